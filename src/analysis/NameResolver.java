@@ -0,0 +1,150 @@
+package analysis;
+
+import symboltable.Symbol;
+import symboltable.SymbolTable;
+import syntaxtree.*;
+
+import java.util.ArrayList;
+
+/**
+ * Binds every variable, array and function node of a syntax tree to the symbol its
+ * name refers to, so that the phases after it read the symbol from the node instead
+ * of looking its name up in the symbol table again.
+ * <p>
+ * Each name is looked up once, by the id the parser gave it, in the scope the
+ * symbol table is in when the resolver runs. The parser leaves its symbol table in
+ * the scope of the main program, which is the scope of every statement kept in the
+ * syntax tree. Nodes whose names are not declared are left unbound and are listed
+ * by {@link #getUnresolved()}.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class NameResolver implements SyntaxTreeVisitor<Void, RuntimeException> {
+
+    // The symbol table names are resolved in.
+    private final SymbolTable symbolTable;
+
+    // The nodes whose names are not declared.
+    private final ArrayList<VariableNode> unresolved = new ArrayList<>();
+
+    /**
+     * Creates a name resolver.
+     * @param symbolTable The symbol table of the parser which built the syntax tree.
+     */
+    public NameResolver(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Resolves the names of a node and of every node below it.
+     * @param node A syntax tree node, or null.
+     */
+    public void resolve(SyntaxTreeNode node) {
+        if (node != null) {
+            node.accept(this);
+        }
+    }
+
+    /**
+     * Returns the variable, array and function nodes whose names are not declared.
+     * @return The unresolved nodes, in the order they were visited.
+     */
+    public ArrayList<VariableNode> getUnresolved() {
+        return unresolved;
+    }
+
+    /**
+     * Binds a node to the symbol of its name.
+     * @param node A variable, array or function node.
+     */
+    private void bind(VariableNode node) {
+        Symbol symbol = symbolTable.getSymbol(node.getNameId(), node.getName());
+        node.setSymbol(symbol);
+        if (symbol == null) {
+            unresolved.add(node);
+        }
+    }
+
+    @Override
+    public Void visit(ProgramNode node) {
+        resolve(node.getDeclarations());
+        resolve(node.getCompoundStatement());
+        return null;
+    }
+
+    @Override
+    public Void visit(DeclarationsNode node) {
+        for (VariableNode variable : node.getVariables()) {
+            bind(variable);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(CompoundStatementNode node) {
+        for (StatementNode statement : node.getStatements()) {
+            resolve(statement);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStatementNode node) {
+        resolve(node.getLvalue());
+        resolve(node.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(IfStatementNode node) {
+        resolve(node.getTest());
+        resolve(node.getThenStatement());
+        resolve(node.getElseStatement());
+        return null;
+    }
+
+    @Override
+    public Void visit(WhileStatementNode node) {
+        resolve(node.getTest());
+        resolve(node.getDoStatement());
+        return null;
+    }
+
+    @Override
+    public Void visit(OperationNode node) {
+        resolve(node.getLeft());
+        resolve(node.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visit(UnaryOperationNode node) {
+        resolve(node.getOperand());
+        return null;
+    }
+
+    @Override
+    public Void visit(VariableNode node) {
+        bind(node);
+        return null;
+    }
+
+    @Override
+    public Void visit(ArrayNode node) {
+        bind(node);
+        resolve(node.getExpressionNode());
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionNode node) {
+        bind(node);
+        if (node.getArgs() != null) {
+            for (ExpressionNode argument : node.getArgs()) {
+                resolve(argument);
+            }
+        }
+        return null;
+    }
+}
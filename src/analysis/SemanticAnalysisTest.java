@@ -3,10 +3,12 @@ package analysis;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
 import parser.Parser;
+import symboltable.Symbol;
 import symboltable.SymbolTable;
 import syntaxtree.*;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * This class contains JUnit testing for the semantic analysis module.
@@ -21,7 +23,7 @@ public class SemanticAnalysisTest {
      * @result The test passes if the money.pas file is confirmed to pass semantic analysis.
      */
     @Test
-    public void moneyTest() {
+    public void moneyTest() throws IOException {
         System.out.println("Semantic Analysis: Testing analysis for money.pas...");
         boolean result = false;
         File input = new File("src/pascal/money.pas");
@@ -103,4 +105,39 @@ public class SemanticAnalysisTest {
         Assertions.assertEquals(true, result);
         System.out.println("Success.");
     }
+
+    /**
+     * Tests that name resolution binds every use of a declared name to the one symbol
+     * of the symbol table, and leaves undeclared names unbound.
+     *
+     * @result The test passes if the declared uses share the symbol of their name and the undeclared use is unresolved.
+     */
+    @Test
+    public void nameResolutionTest() {
+        System.out.println("Semantic Analysis: Testing name resolution...");
+        Parser testParser = new Parser("program test;\nvar x: integer;\nvar a: array[1:5] of integer;\nbegin\nx := a[x] + y;\nwhile x < 3 do x := x + 1\nend\n.\n");
+        ProgramNode testRoot = testParser.program();
+        SymbolTable testSymbolTable = testParser.getSymbolTable();
+
+        NameResolver resolver = new NameResolver(testSymbolTable);
+        resolver.resolve(testRoot);
+
+        Symbol x = testSymbolTable.getSymbol("x");
+        Symbol a = testSymbolTable.getSymbol("a");
+        Assertions.assertSame(x, testRoot.getDeclarations().getVariables().get(0).getSymbol());
+        AssignmentStatementNode assignment = (AssignmentStatementNode) testRoot.getCompoundStatement().getStatements().get(0);
+        Assertions.assertSame(x, assignment.getLvalue().getSymbol());
+        OperationNode sum = (OperationNode) assignment.getExpression();
+        ArrayNode element = (ArrayNode) sum.getLeft();
+        Assertions.assertSame(a, element.getSymbol());
+        Assertions.assertSame(x, ((VariableNode) element.getExpressionNode()).getSymbol());
+        WhileStatementNode loop = (WhileStatementNode) testRoot.getCompoundStatement().getStatements().get(1);
+        Assertions.assertSame(x, ((VariableNode) ((OperationNode) loop.getTest()).getLeft()).getSymbol());
+        Assertions.assertSame(x, ((AssignmentStatementNode) loop.getDoStatement()).getLvalue().getSymbol());
+
+        Assertions.assertEquals(1, resolver.getUnresolved().size());
+        Assertions.assertEquals("y", resolver.getUnresolved().get(0).getName());
+        Assertions.assertNull(resolver.getUnresolved().get(0).getSymbol());
+        System.out.println("Success.");
+    }
 }
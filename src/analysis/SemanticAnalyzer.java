@@ -24,8 +24,28 @@ public class SemanticAnalyzer {
     // True if variables are properly declared prior to their use cases.
     public boolean validDeclarations = true;
 
+    // Semantic errors found in the program.
+    private ArrayList<String> errors = new ArrayList<>();
+
+    // The first node found with each semantic error, in the same order as the errors.
+    private ArrayList<SyntaxTreeNode> errorNodes = new ArrayList<>();
+
+    // The first node whose type is inconsistent with its assignment.
+    private SyntaxTreeNode firstAssignmentError;
+
+    // The first variable used without being declared.
+    private SyntaxTreeNode firstDeclarationError;
+
+    // Checks each statement and expression.
+    private final Checker checker = new Checker();
+
+    // Binds the names of each statement before it is checked.
+    private final NameResolver resolver;
+
     /**
-     * Creates a SemanticAnalyzer and runs semantic analysis on a root program node.
+     * Creates a SemanticAnalyzer and runs semantic analysis on a root program node,
+     * binding the names of the declarations and then of each statement to their
+     * symbols with a {@link NameResolver} before the statement is checked.
      *
      * @param rootNode Root program node generated by the parser.
      * @param finalSymbolTable Symbol Table generated by the parser.
@@ -36,21 +56,36 @@ public class SemanticAnalyzer {
         DeclarationsNode rootDeclarations = root.getDeclarations();
         SubProgramDeclarationsNode rootSubprogramDeclarations = root.getSubProgramDeclarations();
 
+        resolver = new NameResolver(symbolTable);
+        resolver.resolve(rootDeclarations);
         testSemantics(root.getCompoundStatement());
 
         if (!validAssignments) {
-            System.out.println("Compiler Error: Variable types not consistent across assignments");
+            errors.add("Compiler Error: Variable types not consistent across assignments");
+            errorNodes.add(firstAssignmentError);
         }
 
         if (!validDeclarations) {
-            System.out.println("Compiler Error: One or more variables has not been declared before its use case.");
+            errors.add("Compiler Error: One or more variables has not been declared before its use case.");
+            errorNodes.add(firstDeclarationError);
         }
+    }
 
-        if (validAssignments && validDeclarations) {
-            System.out.println("Program passed semantic analysis");
-        } else {
-            System.out.println("Program failed semantic analysis");
-        }
+    /**
+     * Returns the semantic errors found in the program. Nothing is printed by the
+     * analyzer, so that programs may be analyzed concurrently and quietly.
+     * @return The error messages, empty if the program passed semantic analysis.
+     */
+    public ArrayList<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the first node found with each semantic error, whose span locates the error.
+     * @return The nodes, in the same order as the errors of {@link #getErrors()}.
+     */
+    public ArrayList<SyntaxTreeNode> getErrorNodes() {
+        return errorNodes;
     }
 
     /**
@@ -58,14 +93,11 @@ public class SemanticAnalyzer {
      * @param rootCompoundStatement Child compound statement node of the root program node.
      */
     public void testSemantics(CompoundStatementNode rootCompoundStatement) {
-        for (StatementNode statement : rootCompoundStatement.statements) {
-            if (statement instanceof AssignmentStatementNode) {
-                TokenType leftVarType = null;
-                TokenType expressionType = null;
-                AssignmentStatementNode thisAssignmentStatement = ((AssignmentStatementNode) statement);
-                leftVarType = thisAssignmentStatement.getLvalue().getType();
-                ExpressionNode thisExpression = ((AssignmentStatementNode) statement).getExpression();
-                traverseOperation(thisExpression, leftVarType);
+        // Each statement is resolved and checked before the next is read, as the statements of a flat tree are rebuilt on each read.
+        for (StatementNode statement : rootCompoundStatement.getStatements()) {
+            if (statement != null) {
+                resolver.resolve(statement);
+                statement.accept(checker);
             }
         }
     }
@@ -76,30 +108,88 @@ public class SemanticAnalyzer {
      * @param expectedType The token type of the variable which precedes the assignment operator.
      */
     public void traverseOperation(ExpressionNode expressionNode, TokenType expectedType) {
-        expectedType = expectedType;
-
-        if (expressionNode instanceof OperationNode) {
-            OperationNode thisOperation = ((OperationNode) expressionNode);
-            ExpressionNode leftExpression = thisOperation.getLeft();
-            traverseOperation(leftExpression, expectedType);
-            ExpressionNode rightExpression = thisOperation.getRight();
-            traverseOperation(rightExpression, expectedType);
-        } else if (expressionNode.getType() != null && expressionNode.getType() != expectedType) {
+        TokenType enclosingType = checker.expectedType;
+        checker.expectedType = expectedType;
+        expressionNode.accept(checker);
+        checker.expectedType = enclosingType;
+    }
+
+    /**
+     * Checks the type of an operand against the type of the variable it is assigned to.
+     * @param expressionNode An expression which is not an operation.
+     * @param expectedType The token type of the variable which precedes the assignment operator.
+     */
+    private void checkType(ExpressionNode expressionNode, TokenType expectedType) {
+        if (expressionNode.getType() != null && expressionNode.getType() != expectedType) {
+            if (validAssignments) {
+                firstAssignmentError = expressionNode;
+            }
             validAssignments = false;
         }
+    }
+
+    /**
+     * Records a variable used without being declared.
+     * @param expressionNode The undeclared variable.
+     */
+    private void declarationError(ExpressionNode expressionNode) {
+        if (validDeclarations) {
+            firstDeclarationError = expressionNode;
+        }
+        validDeclarations = false;
+    }
+
+    /**
+     * Checks the assignment statements and the expressions assigned by them.
+     */
+    private class Checker implements SyntaxTreeVisitor<Void, RuntimeException> {
+
+        // The token type of the variable being assigned to.
+        private TokenType expectedType;
 
-        if (expressionNode instanceof ArrayNode) {
-            ArrayNode thisArray = ((ArrayNode) expressionNode);
-            String arrayName = thisArray.getName();
-            if (!symbolTable.isArray(arrayName)) {
-                validDeclarations = false;
+        @Override
+        public Void visit(AssignmentStatementNode node) {
+            traverseOperation(node.getExpression(), node.getLvalue().getType());
+            return null;
+        }
+
+        @Override
+        public Void visit(OperationNode node) {
+            node.getLeft().accept(this);
+            node.getRight().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visit(UnaryOperationNode node) {
+            node.getOperand().accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitExpression(ExpressionNode node) {
+            checkType(node, expectedType);
+            return null;
+        }
+
+        @Override
+        public Void visit(VariableNode node) {
+            checkType(node, expectedType);
+            Symbol symbol = node.getSymbol();
+            if (symbol == null || symbol.getKind() != Kind.VARIABLE) {
+                declarationError(node);
             }
-        } else if (expressionNode instanceof VariableNode) {
-            VariableNode thisVariable = ((VariableNode) expressionNode);
-            String variableName = thisVariable.getName();
-            if (!symbolTable.isVariable(variableName)) {
-                validDeclarations = false;
+            return null;
+        }
+
+        @Override
+        public Void visit(ArrayNode node) {
+            checkType(node, expectedType);
+            Symbol symbol = node.getSymbol();
+            if (symbol == null || symbol.getKind() != Kind.ARRAY) {
+                declarationError(node);
             }
+            return null;
         }
     }
 }
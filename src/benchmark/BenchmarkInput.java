@@ -0,0 +1,177 @@
+package benchmark;
+
+import analysis.SemanticAnalyzer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import parser.ParseResult;
+import parser.Parser;
+import scanner.Scanner;
+import scanner.SourceInput;
+import scanner.TokenBuffer;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * The program a benchmark compiles, prepared once for each trial.
+ * <p>
+ * An input is either one of the example programs of src/pascal, named without its
+ * extension, or a generated program named "synthetic-" followed by its number of
+ * statements, as made by a {@link ProgramGenerator} with a fixed seed. A generated
+ * program named "expressions-" followed by its number of statements is
+ * expression-heavy instead: it declares no subprograms, and every statement is an
+ * assignment of an expression with {@value #EXPRESSION_SIZE} operators. The
+ * examples are read relative to the working directory, which must be the root of
+ * the project. Each phase is given the output of the phases before it, so that it is timed
+ * alone: the source, its file, its characters, and its syntax tree and symbol table
+ * after semantic analysis. A generated input is written to a temporary file, so
+ * that reading the source can be timed for it too.
+ * </p>
+ *
+ * @author William Mork
+ */
+@State(Scope.Benchmark)
+public class BenchmarkInput {
+
+    /** Prefix of the names of generated inputs. */
+    static final String SYNTHETIC = "synthetic-";
+
+    /** Prefix of the names of generated expression-heavy inputs. */
+    static final String EXPRESSIONS = "expressions-";
+
+    /** Number of operators in each expression of an expression-heavy input. */
+    static final int EXPRESSION_SIZE = 64;
+
+    /** The seed of the generated inputs. */
+    private static final long SEED = 1;
+
+    /** The name of the input. */
+    @Param({"simplest", "simple", "money", "arraytest", "synthetic-1000", "synthetic-10000", "synthetic-100000",
+            "expressions-1000"})
+    public String input;
+
+    /** The source of the program. */
+    String source;
+
+    /** The file holding the source. */
+    File file;
+
+    /** The characters of the source, followed by one spare character for the scanner. */
+    char[] chars;
+
+    /** The number of tokens in the source. */
+    int tokens;
+
+    /** The syntax tree of the program, with its names resolved. */
+    ProgramNode program;
+
+    /** The symbol table of the program. */
+    SymbolTable symbolTable;
+
+    /**
+     * Reads or generates the input and runs every phase over it once.
+     * @throws IOException If the input can not be read.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        source = source(input);
+        if (isGenerated(input)) {
+            file = File.createTempFile(input, ".pas");
+            Files.write(file.toPath(), source.getBytes(StandardCharsets.US_ASCII));
+        } else {
+            file = new File("src/pascal/" + input + ".pas");
+        }
+        chars = Arrays.copyOf(source.toCharArray(), source.length() + 1);
+        tokens = tokens(source);
+        Parser parser = new Parser(source);
+        ParseResult parsed = parser.parse();
+        if (!parsed.isSuccess()) {
+            throw new IllegalStateException(input + " does not parse: " + parsed.getDiagnostics().get(0));
+        }
+        program = parsed.getProgram();
+        symbolTable = parser.getSymbolTable();
+        new SemanticAnalyzer(program, symbolTable);
+    }
+
+    /**
+     * Deletes the file of a generated input.
+     */
+    @TearDown
+    public void tearDown() {
+        if (isGenerated(input)) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns a fresh scanner over the source.
+     * @return A scanner positioned at the start of the source.
+     */
+    Scanner scanner() {
+        return SourceInput.scan(chars);
+    }
+
+    /**
+     * Reads or generates the source of an input.
+     * @param input The name of the input.
+     * @return The source.
+     * @throws IOException If the input can not be read.
+     */
+    static String source(String input) throws IOException {
+        if (input.startsWith(SYNTHETIC)) {
+            ProgramGenerator generator = new ProgramGenerator(SEED);
+            generator.setStatements(Integer.parseInt(input.substring(SYNTHETIC.length())));
+            return generator.generate();
+        }
+        if (input.startsWith(EXPRESSIONS)) {
+            ProgramGenerator generator = new ProgramGenerator(SEED);
+            generator.setStatements(Integer.parseInt(input.substring(EXPRESSIONS.length())));
+            generator.setDepth(0);
+            generator.setSubprograms(0);
+            generator.setExpressionSize(EXPRESSION_SIZE);
+            return generator.generate();
+        }
+        char[] chars = SourceInput.decode(new File("src/pascal/" + input + ".pas"));
+        return new String(chars, 0, chars.length - 1);
+    }
+
+    /**
+     * Returns true if an input is a generated program.
+     * @param input The name of the input.
+     * @return True if the input is generated rather than read from src/pascal.
+     */
+    private static boolean isGenerated(String input) {
+        return input.startsWith(SYNTHETIC) || input.startsWith(EXPRESSIONS);
+    }
+
+    /**
+     * Returns the size of the file of an input.
+     * @param input The name of the input.
+     * @return The number of bytes of its source, which are all ASCII in a generated input.
+     * @throws IOException If the input can not be read.
+     */
+    static long bytes(String input) throws IOException {
+        if (isGenerated(input)) {
+            return source(input).length();
+        }
+        return new File("src/pascal/" + input + ".pas").length();
+    }
+
+    /**
+     * Counts the tokens of a source.
+     * @param source The source.
+     * @return The number of tokens.
+     * @throws IOException If the source can not be scanned.
+     */
+    static int tokens(String source) throws IOException {
+        return new TokenBuffer(source).size();
+    }
+}
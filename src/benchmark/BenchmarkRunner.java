@@ -0,0 +1,90 @@
+package benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Runs the JMH benchmarks of the compiler and summarizes them in operations per
+ * second, nanoseconds per token of the input, megabytes of the input per second,
+ * and bytes allocated per operation. The megabytes per second of the scanner
+ * benchmarks which read the file of the input give the throughput of reading
+ * source through a Reader and through the memory-mapped fast path.
+ * <p>
+ * The benchmarks are compiled with the JMH annotation processor on the class path,
+ * and run from the root of the project, so that the example programs are found:
+ * </p>
+ * <pre>
+ * javac -cp jmh-core.jar:jmh-generator-annprocess.jar -d out $(find src -name "*.java" ! -name "*Test.java")
+ * java -cp out:jmh-core.jar:jopt-simple.jar:commons-math3.jar benchmark.BenchmarkRunner [JMH options]
+ * </pre>
+ * <p>
+ * Any JMH option may be given, for example a benchmark name pattern such as
+ * "PhaseBenchmark.parser", or "-p input=money,synthetic-10000" to choose the inputs.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class BenchmarkRunner {
+
+    /** The label of the allocation result of the GC profiler. */
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    /**
+     * Runs the benchmarks.
+     * @param args JMH command line options.
+     * @throws CommandLineOptionException If the options are not valid.
+     * @throws RunnerException If a benchmark fails.
+     * @throws IOException If an input can not be read to count its tokens.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine).addProfiler(GCProfiler.class);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(PhaseBenchmark.class.getSimpleName()).include(DispatchBenchmark.class.getSimpleName())
+                    .include(SymbolTableBenchmark.class.getSimpleName()).include(ScopeBenchmark.class.getSimpleName());
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        HashMap<String, Integer> tokens = new HashMap<>();
+        HashMap<String, Long> bytes = new HashMap<>();
+        System.out.println();
+        System.out.println(String.format("%-40s %-18s %14s %12s %10s %14s", "Benchmark", "Input", "ops/s", "ns/token", "MB/s", "B/op"));
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String benchmark = params.getBenchmark().replace(BenchmarkRunner.class.getPackage().getName() + ".", "");
+            String input = params.getParam("input");
+            double score = result.getPrimaryResult().getScore();
+            String perToken = "-";
+            String perSecond = "-";
+            if (input != null) {
+                if (!tokens.containsKey(input)) {
+                    tokens.put(input, BenchmarkInput.tokens(BenchmarkInput.source(input)));
+                    bytes.put(input, BenchmarkInput.bytes(input));
+                }
+                perToken = String.format("%.2f", 1e9 / score / tokens.get(input));
+                perSecond = String.format("%.2f", bytes.get(input) * score / (1024 * 1024));
+            } else {
+                StringBuilder values = new StringBuilder();
+                for (String key : params.getParamsKeys()) {
+                    values.append(values.length() == 0 ? "" : ",").append(key).append('=').append(params.getParam(key));
+                }
+                input = values.toString();
+            }
+            Result<?> allocation = result.getSecondaryResults().get(ALLOCATION);
+            String perOperation = allocation == null ? "-" : String.format("%.0f", allocation.getScore());
+            System.out.println(String.format("%-40s %-18s %14.2f %12s %10s %14s", benchmark, input, score, perToken, perSecond, perOperation));
+        }
+    }
+}
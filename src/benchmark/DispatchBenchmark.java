@@ -0,0 +1,205 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import syntaxtree.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the cost of dispatching on the class of each syntax tree node.
+ * <p>
+ * The same walk, counting every node of the syntax tree of a {@link BenchmarkInput},
+ * is timed twice: once through a chain of instanceof tests, as the passes of the
+ * compiler used to be written, and once through a {@link SyntaxTreeVisitor}. Semantic
+ * analysis and code generation, which both dispatch through visitors, are timed over
+ * the same inputs by {@link PhaseBenchmark}. Run them through {@link BenchmarkRunner}.
+ * </p>
+ *
+ * @author William Mork
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class DispatchBenchmark {
+
+    /**
+     * Counts the nodes of the syntax tree by testing the class of each node.
+     * @param input The input.
+     * @return The number of nodes.
+     */
+    @Benchmark
+    public long instanceofWalk(BenchmarkInput input) {
+        return countInstanceof(input.program);
+    }
+
+    /**
+     * Counts the nodes of the syntax tree through a visitor.
+     * @param input The input.
+     * @return The number of nodes.
+     */
+    @Benchmark
+    public long visitorWalk(BenchmarkInput input) {
+        return countVisitor(input.program);
+    }
+
+    /**
+     * Counts a node and its children by testing the class of each node in turn.
+     * @param node A syntax tree node, or null.
+     * @return The number of nodes.
+     */
+    static long countInstanceof(SyntaxTreeNode node) {
+        long count = node == null ? 0 : 1;
+        if (node instanceof ProgramNode) {
+            ProgramNode program = (ProgramNode) node;
+            count += countInstanceof(program.getDeclarations());
+            count += countInstanceof(program.getSubProgramDeclarations());
+            count += countInstanceof(program.getCompoundStatement());
+        } else if (node instanceof DeclarationsNode) {
+            count += ((DeclarationsNode) node).getVariables().size();
+        } else if (node instanceof SubProgramDeclarationsNode) {
+            count += ((SubProgramDeclarationsNode) node).getProcs().size();
+        } else if (node instanceof CompoundStatementNode) {
+            for (StatementNode statement : ((CompoundStatementNode) node).getStatements()) {
+                count += countInstanceof(statement);
+            }
+        } else if (node instanceof AssignmentStatementNode) {
+            count += countInstanceof(((AssignmentStatementNode) node).getLvalue());
+            count += countInstanceof(((AssignmentStatementNode) node).getExpression());
+        } else if (node instanceof IfStatementNode) {
+            count += countInstanceof(((IfStatementNode) node).getTest());
+            count += countInstanceof(((IfStatementNode) node).getThenStatement());
+            count += countInstanceof(((IfStatementNode) node).getElseStatement());
+        } else if (node instanceof WhileStatementNode) {
+            count += countInstanceof(((WhileStatementNode) node).getTest());
+            count += countInstanceof(((WhileStatementNode) node).getDoStatement());
+        } else if (node instanceof OperationNode) {
+            count += countInstanceof(((OperationNode) node).getLeft());
+            count += countInstanceof(((OperationNode) node).getRight());
+        } else if (node instanceof UnaryOperationNode) {
+            count += countInstanceof(((UnaryOperationNode) node).getOperand());
+        } else if (node instanceof ArrayNode) {
+            count += countInstanceof(((ArrayNode) node).getExpressionNode());
+        } else if (node instanceof FunctionNode) {
+            for (ExpressionNode argument : ((FunctionNode) node).getArgs()) {
+                count += countInstanceof(argument);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts a node and its children through a visitor.
+     * @param node A syntax tree node, or null.
+     * @return The number of nodes.
+     */
+    static long countVisitor(SyntaxTreeNode node) {
+        Counter counter = new Counter();
+        counter.count(node);
+        return counter.count;
+    }
+
+    /**
+     * Counts nodes as they are visited.
+     */
+    private static class Counter implements SyntaxTreeVisitor<Void, RuntimeException> {
+
+        /** The number of nodes counted. */
+        long count;
+
+        /**
+         * Counts a node and its children.
+         * @param node A syntax tree node, or null.
+         */
+        void count(SyntaxTreeNode node) {
+            if (node != null) {
+                count++;
+                node.accept(this);
+            }
+        }
+
+        @Override
+        public Void visit(ProgramNode node) {
+            count(node.getDeclarations());
+            count(node.getSubProgramDeclarations());
+            count(node.getCompoundStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(DeclarationsNode node) {
+            count += node.getVariables().size();
+            return null;
+        }
+
+        @Override
+        public Void visit(SubProgramDeclarationsNode node) {
+            count += node.getProcs().size();
+            return null;
+        }
+
+        @Override
+        public Void visit(CompoundStatementNode node) {
+            for (StatementNode statement : node.getStatements()) {
+                count(statement);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(AssignmentStatementNode node) {
+            count(node.getLvalue());
+            count(node.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visit(IfStatementNode node) {
+            count(node.getTest());
+            count(node.getThenStatement());
+            count(node.getElseStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(WhileStatementNode node) {
+            count(node.getTest());
+            count(node.getDoStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(OperationNode node) {
+            count(node.getLeft());
+            count(node.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visit(UnaryOperationNode node) {
+            count(node.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(ArrayNode node) {
+            count(node.getExpressionNode());
+            return null;
+        }
+
+        @Override
+        public Void visit(FunctionNode node) {
+            for (ExpressionNode argument : node.getArgs()) {
+                count(argument);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package benchmark;
+
+/**
+ * An output which discards everything written to it, so that code generation can be
+ * timed without the cost of keeping its output.
+ *
+ * @author William Mork
+ */
+class NullOutput implements Appendable {
+
+    @Override
+    public Appendable append(CharSequence csq) {
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+        return this;
+    }
+}
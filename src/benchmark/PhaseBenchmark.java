@@ -0,0 +1,121 @@
+package benchmark;
+
+import analysis.SemanticAnalyzer;
+import codegen.CodeGeneration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.Parser;
+import scanner.Scanner;
+import scanner.SourceInput;
+import syntaxtree.ProgramNode;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of each phase of the compiler, each compiling a whole
+ * {@link BenchmarkInput} once per operation.
+ * <p>
+ * The scanner is timed by calling nextToken to the end of the source, both over
+ * the characters of the source alone and including reading its file, either
+ * decoded through a Reader or through the memory-mapped ASCII fast path. The parser
+ * by building the syntax tree and symbol table of the source, and semantic analysis
+ * and code generation over the syntax tree of the parser. Run them through
+ * {@link BenchmarkRunner}, which also reports the time per token, the megabytes of
+ * source per second and the bytes allocated per operation.
+ * </p>
+ *
+ * @author William Mork
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class PhaseBenchmark {
+
+    /**
+     * Scans the source to its end.
+     * @param input The input.
+     * @return The number of tokens scanned.
+     * @throws IOException Never, as the source is held in memory.
+     */
+    @Benchmark
+    public int scanner(BenchmarkInput input) throws IOException {
+        return count(input.scanner());
+    }
+
+    /**
+     * Reads the file of the source by decoding it through a Reader, and scans it to its end.
+     * @param input The input.
+     * @return The number of tokens scanned.
+     * @throws IOException If the file can not be read.
+     */
+    @Benchmark
+    public int scannerReader(BenchmarkInput input) throws IOException {
+        return count(SourceInput.scan(SourceInput.decode(input.file)));
+    }
+
+    /**
+     * Reads the file of the source through a memory map, and scans it to its end.
+     * @param input The input.
+     * @return The number of tokens scanned.
+     * @throws IOException If the file can not be read.
+     */
+    @Benchmark
+    public int scannerMapped(BenchmarkInput input) throws IOException {
+        return count(SourceInput.open(input.file));
+    }
+
+    /**
+     * Parses the source into a syntax tree and symbol table.
+     * @param input The input.
+     * @return The syntax tree.
+     */
+    @Benchmark
+    public ProgramNode parser(BenchmarkInput input) {
+        return new Parser(input.source).program();
+    }
+
+    /**
+     * Runs semantic analysis, including name resolution, over the syntax tree.
+     * @param input The input.
+     * @return The analyzer.
+     */
+    @Benchmark
+    public SemanticAnalyzer semanticAnalyzer(BenchmarkInput input) {
+        return new SemanticAnalyzer(input.program, input.symbolTable);
+    }
+
+    /**
+     * Generates the MIPS assembly of the syntax tree to a discarding output.
+     * @param input The input.
+     * @return The number of instructions generated.
+     * @throws IOException Never, as the output discards what is written to it.
+     */
+    @Benchmark
+    public long codeGeneration(BenchmarkInput input) throws IOException {
+        CodeGeneration codeGenerator = new CodeGeneration(input.program, input.symbolTable);
+        codeGenerator.codeWriter(new NullOutput());
+        return codeGenerator.getInstructionCount();
+    }
+
+    /**
+     * Scans a source to its end.
+     * @param scanner A scanner positioned at the start of the source.
+     * @return The number of tokens scanned.
+     * @throws IOException If the source can not be read.
+     */
+    private static int count(Scanner scanner) throws IOException {
+        int count = 0;
+        while (scanner.nextToken() != null) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,339 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * Generates valid Micro-Pascal programs of any size, for finding how the cost of
+ * each phase of the compiler grows with its input.
+ * <p>
+ * A program declares integer and real variables and integer arrays, then a number
+ * of procedures and functions with parameters, locals and statements of their own,
+ * and then the statements of the main program. Statements are assignments, if and
+ * while statements and compound statements, nested up to a depth, and each
+ * expression has a set number of operators. Every assignment is of an expression
+ * of the type of its variable, so a generated program passes semantic analysis.
+ * The same seed and settings always generate the same program.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class ProgramGenerator {
+
+    /** The operators of integer expressions. */
+    private static final String[] INTEGER_OPERATORS = {"+", "-", "*", "div", "mod"};
+
+    /** The operators of real expressions. */
+    private static final String[] REAL_OPERATORS = {"+", "-", "*", "/"};
+
+    /** The relational operators. */
+    private static final String[] RELATIONAL_OPERATORS = {"<", ">", "<=", ">=", "=", "<>"};
+
+    /** Number of statements in the body of each subprogram. */
+    private static final int SUBPROGRAM_STATEMENTS = 3;
+
+    /** Length of each array. */
+    private static final int ARRAY_LENGTH = 10;
+
+    /** Source of the choices of the generator. */
+    private Random random;
+
+    /** Number of variables declared, one in four of which is real. */
+    private int declarations = 16;
+
+    /** Number of arrays declared. */
+    private int arrays = 2;
+
+    /** Number of statements of the main program, not counting the statements nested in them. */
+    private int statements = 100;
+
+    /** The depth statements are nested to. */
+    private int depth = 2;
+
+    /** Number of operators in each expression. */
+    private int expressionSize = 4;
+
+    /** Number of subprograms declared. */
+    private int subprograms = 2;
+
+    /** The program being generated. */
+    private StringBuilder source;
+
+    /**
+     * Creates a generator.
+     * @param seed The seed of the choices of the generator.
+     */
+    public ProgramGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Sets the number of variables declared, at least one.
+     * @param declarations The number of variables, one in four of which is real.
+     */
+    public void setDeclarations(int declarations) {
+        this.declarations = Math.max(1, declarations);
+    }
+
+    /**
+     * Sets the number of arrays declared.
+     * @param arrays The number of integer arrays.
+     */
+    public void setArrays(int arrays) {
+        this.arrays = arrays;
+    }
+
+    /**
+     * Sets the number of statements of the main program.
+     * @param statements The number of statements, not counting the statements nested in them.
+     */
+    public void setStatements(int statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * Sets the depth statements are nested to.
+     * @param depth The depth, 0 for no if, while or compound statements.
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Sets the number of operators in each expression.
+     * @param expressionSize The number of operators.
+     */
+    public void setExpressionSize(int expressionSize) {
+        this.expressionSize = expressionSize;
+    }
+
+    /**
+     * Sets the number of subprograms declared.
+     * @param subprograms The number of procedures and functions.
+     */
+    public void setSubprograms(int subprograms) {
+        this.subprograms = subprograms;
+    }
+
+    /**
+     * Generates a program with the current settings, continuing the choices of the
+     * programs generated before it.
+     * @return The source of the program.
+     */
+    public String generate() {
+        source = new StringBuilder("program generated;\n");
+        for (int i = 0; i < declarations; i++) {
+            source.append("var ").append(variable(i)).append(i % 4 == 3 ? ": real;\n" : ": integer;\n");
+        }
+        for (int i = 0; i < arrays; i++) {
+            source.append("var a").append(i).append(": array[0:").append(ARRAY_LENGTH - 1).append("] of integer;\n");
+        }
+        for (int i = 0; i < subprograms; i++) {
+            subprogram(i);
+            source.append(";\n");
+        }
+        source.append("begin\n");
+        for (int i = 0; i < statements; i++) {
+            source.append("  ");
+            statement(depth);
+            source.append(i + 1 < statements ? ";\n" : "\n");
+        }
+        source.append("end\n.\n");
+        String program = source.toString();
+        source = null;
+        return program;
+    }
+
+    /**
+     * Writes a procedure or function, with an integer and a real parameter and an
+     * integer local.
+     * @param index The number of the subprogram.
+     */
+    private void subprogram(int index) {
+        if (index % 2 == 0) {
+            source.append("procedure s").append(index).append("(x: integer; y: real);\n");
+        } else {
+            source.append("function s").append(index).append("(x: integer; y: real): integer;\n");
+        }
+        source.append("var t: integer;\n");
+        source.append("begin\n");
+        for (int i = 0; i < SUBPROGRAM_STATEMENTS; i++) {
+            source.append("  ");
+            if (i == 0) {
+                source.append("t := x + ");
+                integerExpression(expressionSize);
+            } else if (i == 1) {
+                source.append("y := y * ");
+                realExpression(expressionSize);
+            } else {
+                statement(depth);
+            }
+            source.append(i + 1 < SUBPROGRAM_STATEMENTS ? ";\n" : "\n");
+        }
+        source.append("end");
+    }
+
+    /**
+     * Writes a statement, which is an assignment at depth 0.
+     * @param depth The depth statements may still be nested to.
+     */
+    private void statement(int depth) {
+        int choice = depth > 0 ? random.nextInt(10) : 9;
+        if (choice < 2) {
+            source.append("if ");
+            test();
+            source.append(" then ");
+            statement(depth - 1);
+            source.append(" else ");
+            statement(depth - 1);
+        } else if (choice < 4) {
+            source.append("while ");
+            test();
+            source.append(" do ");
+            statement(depth - 1);
+        } else if (choice < 5) {
+            source.append("begin ");
+            statement(depth - 1);
+            source.append("; ");
+            statement(depth - 1);
+            source.append(" end");
+        } else {
+            assignment();
+        }
+    }
+
+    /**
+     * Writes an assignment to a variable or array element, of an expression of its type.
+     */
+    private void assignment() {
+        int target = random.nextInt(declarations + arrays);
+        if (target >= declarations) {
+            source.append('a').append(target - declarations).append('[');
+            index();
+            source.append("] := ");
+            integerExpression(expressionSize);
+        } else if (target % 4 == 3) {
+            source.append(variable(target)).append(" := ");
+            realExpression(expressionSize);
+        } else {
+            source.append(variable(target)).append(" := ");
+            integerExpression(expressionSize);
+        }
+    }
+
+    /**
+     * Writes the test of an if or while statement.
+     */
+    private void test() {
+        integerExpression(expressionSize / 2);
+        source.append(' ').append(RELATIONAL_OPERATORS[random.nextInt(RELATIONAL_OPERATORS.length)]).append(' ');
+        integerExpression(expressionSize - expressionSize / 2);
+    }
+
+    /**
+     * Writes an integer expression. Each operand with an operator of its own is
+     * parenthesized, so any operators may be combined.
+     * @param size The number of operators in the expression.
+     */
+    private void integerExpression(int size) {
+        if (size == 0) {
+            integerOperand();
+            return;
+        }
+        int leftSize = random.nextInt(size);
+        parenthesized(leftSize, true);
+        source.append(' ').append(INTEGER_OPERATORS[random.nextInt(INTEGER_OPERATORS.length)]).append(' ');
+        parenthesized(size - 1 - leftSize, true);
+    }
+
+    /**
+     * Writes a real expression.
+     * @param size The number of operators in the expression.
+     */
+    private void realExpression(int size) {
+        if (size == 0) {
+            realOperand();
+            return;
+        }
+        int leftSize = random.nextInt(size);
+        parenthesized(leftSize, false);
+        source.append(' ').append(REAL_OPERATORS[random.nextInt(REAL_OPERATORS.length)]).append(' ');
+        parenthesized(size - 1 - leftSize, false);
+    }
+
+    /**
+     * Writes an operand of an expression, in parentheses if it has operators.
+     * @param size The number of operators in the operand.
+     * @param integer True for an integer operand, false for a real one.
+     */
+    private void parenthesized(int size, boolean integer) {
+        if (size > 0) {
+            source.append('(');
+        }
+        if (integer) {
+            integerExpression(size);
+        } else {
+            realExpression(size);
+        }
+        if (size > 0) {
+            source.append(')');
+        }
+    }
+
+    /**
+     * Writes an integer variable, array element, negated variable or literal.
+     */
+    private void integerOperand() {
+        int choice = random.nextInt(10);
+        if (choice < 5) {
+            source.append(integerVariable());
+        } else if (choice < 7 && arrays > 0) {
+            source.append('a').append(random.nextInt(arrays)).append('[');
+            index();
+            source.append(']');
+        } else if (choice < 8) {
+            source.append("(-").append(integerVariable()).append(')');
+        } else {
+            source.append(random.nextInt(100));
+        }
+    }
+
+    /**
+     * Writes a real variable or literal, a literal if no real variable is declared.
+     */
+    private void realOperand() {
+        if (declarations > 3 && random.nextBoolean()) {
+            source.append(variable(random.nextInt(declarations / 4) * 4 + 3));
+        } else {
+            source.append(random.nextInt(100)).append('.').append(random.nextInt(10));
+        }
+    }
+
+    /**
+     * Writes the index of an array element, an integer variable or a literal within its bounds.
+     */
+    private void index() {
+        if (random.nextBoolean()) {
+            source.append(integerVariable());
+        } else {
+            source.append(random.nextInt(ARRAY_LENGTH));
+        }
+    }
+
+    /**
+     * Returns the name of a random integer variable.
+     * @return The name.
+     */
+    private String integerVariable() {
+        int index = random.nextInt(declarations);
+        return variable(index % 4 == 3 ? index - 1 : index);
+    }
+
+    /**
+     * Returns the name of a variable.
+     * @param index The number of the variable.
+     * @return The name, beginning with i for an integer variable and r for a real one.
+     */
+    private static String variable(int index) {
+        return (index % 4 == 3 ? "r" : "i") + index;
+    }
+}
@@ -0,0 +1,194 @@
+package benchmark;
+
+import compiler.CompilationMetrics;
+import compiler.CompilationResult;
+import compiler.Compiler;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * This class contains JUnit testing for the program generator and for how the cost
+ * of each phase of the compiler grows with the size of its input.
+ * <p>
+ * The scaling test compiles generated programs of doubling size, recording the CPU
+ * time and the bytes allocated by each phase, the best of several rounds, and the
+ * heap retained by the result of each compilation. A straight line is fitted to each
+ * measure against the size of the program on a log-log scale, and the test fails if
+ * the slope of any line, the exponent of its growth, is above the bound. The bound,
+ * the number of statements of the smallest program and the number of sizes may be
+ * set by the system properties scaling.bound, scaling.base and scaling.steps.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class ScalingTest {
+
+    /** The largest exponent of growth allowed, 1 being linear and 2 quadratic. */
+    private static final double BOUND = Double.parseDouble(System.getProperty("scaling.bound", "1.5"));
+
+    /** Number of statements of the smallest program. */
+    private static final int BASE = Integer.getInteger("scaling.base", 2000);
+
+    /** Number of program sizes, each double the last. */
+    private static final int STEPS = Integer.getInteger("scaling.steps", 4);
+
+    /** Number of rounds each program is compiled in, the best of which is kept. */
+    private static final int ROUNDS = 3;
+
+    /** The phases measured. The syntax tree phase prints the tree with indentedToString. */
+    private static final String[] PHASES = {"parse", "semantic analysis", "code generation", "syntax tree"};
+
+    /**
+     * Tests that the generator makes the same program from the same seed, and that
+     * its programs compile without errors.
+     *
+     * @result The test passes if generated programs are repeatable and valid.
+     */
+    @Test
+    public void generatorTest() {
+        System.out.println("Scaling: Testing program generator...");
+        Assertions.assertEquals(program(7, 200), program(7, 200));
+        Assertions.assertNotEquals(program(7, 200), program(8, 200));
+
+        for (int depth = 0; depth <= 4; depth++) {
+            ProgramGenerator generator = new ProgramGenerator(depth);
+            generator.setStatements(50);
+            generator.setDepth(depth);
+            generator.setExpressionSize(depth * 3);
+            generator.setSubprograms(depth);
+            generator.setArrays(depth % 2);
+            CompilationResult result = Compiler.compile(generator.generate());
+            Assertions.assertTrue(result.isSuccess(), () -> result.getDiagnostics().toString());
+        }
+        System.out.println("Success.");
+    }
+
+    /**
+     * Tests that no phase of the compiler grows faster than the bound in time or memory.
+     *
+     * @result The test passes if the fitted exponent of every measure is within the bound.
+     */
+    @Test
+    public void scalingTest() {
+        System.out.println("Scaling: Testing growth of each phase...");
+        int[] sizes = new int[STEPS];
+        String[] measures = new String[PHASES.length * 2 + 1];
+        double[][] values = new double[measures.length][STEPS];
+        for (int i = 0; i < PHASES.length; i++) {
+            measures[i] = PHASES[i] + " time";
+            measures[PHASES.length + i] = PHASES[i] + " allocation";
+        }
+        measures[measures.length - 1] = "retained heap";
+
+        // Warm up the compiler before anything is measured.
+        for (int round = 0; round < ROUNDS; round++) {
+            compile(program(0, BASE << (STEPS - 1)));
+        }
+        for (int step = 0; step < STEPS; step++) {
+            sizes[step] = BASE << step;
+            String source = program(step, sizes[step]);
+            for (int i = 0; i < values.length; i++) {
+                values[i][step] = Double.MAX_VALUE;
+            }
+            for (int round = 0; round < ROUNDS; round++) {
+                CompilationMetrics metrics = compile(source).getMetrics();
+                for (int i = 0; i < PHASES.length; i++) {
+                    values[i][step] = Math.min(values[i][step], metrics.getCpuTime(PHASES[i]));
+                    values[PHASES.length + i][step] = Math.min(values[PHASES.length + i][step],
+                            metrics.getAllocatedBytes(PHASES[i]));
+                }
+            }
+            long before = usedHeap();
+            CompilationResult result = compile(source);
+            values[measures.length - 1][step] = usedHeap() - before;
+            Assertions.assertTrue(result.isSuccess());
+        }
+
+        StringBuilder report = new StringBuilder(String.format("%-30s", "statements"));
+        for (int size : sizes) {
+            report.append(String.format("%14d", size));
+        }
+        report.append(String.format("%10s%n", "exponent"));
+        String failure = null;
+        for (int i = 0; i < measures.length; i++) {
+            report.append(String.format("%-30s", measures[i]));
+            for (double value : values[i]) {
+                report.append(String.format("%14.0f", value));
+            }
+            double exponent = exponent(sizes, values[i]);
+            report.append(String.format("%10.2f%n", exponent));
+            if (exponent > BOUND && failure == null) {
+                failure = measures[i] + " grows as n^" + String.format("%.2f", exponent) + ", above the bound of n^" + BOUND;
+            }
+        }
+        System.out.print(report);
+        Assertions.assertNull(failure, failure);
+        System.out.println("Success.");
+    }
+
+    /**
+     * Generates a program whose declarations, arrays and subprograms grow with its statements.
+     * @param seed The seed of the generator.
+     * @param statements The number of statements of the main program.
+     * @return The source of the program.
+     */
+    private static String program(long seed, int statements) {
+        ProgramGenerator generator = new ProgramGenerator(seed);
+        generator.setStatements(statements);
+        generator.setDeclarations(statements / 20 + 8);
+        generator.setArrays(statements / 200 + 1);
+        generator.setSubprograms(statements / 200 + 1);
+        generator.setDepth(3);
+        generator.setExpressionSize(4);
+        return generator.generate();
+    }
+
+    /**
+     * Compiles a program and prints its syntax tree as the syntax tree phase.
+     * @param source The source of the program.
+     * @return The result of the compilation, whose metrics include the syntax tree phase.
+     */
+    private static CompilationResult compile(String source) {
+        CompilationResult result = Compiler.compile(source);
+        CompilationMetrics metrics = result.getMetrics();
+        metrics.begin("syntax tree");
+        result.getProgram().indentedToString(0);
+        metrics.end();
+        return result;
+    }
+
+    /**
+     * Returns the heap in use after collecting garbage.
+     * @return The bytes of heap in use.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Fits a straight line to measures against sizes on a log-log scale by least squares.
+     * @param sizes The sizes.
+     * @param values The measure at each size.
+     * @return The slope of the line, the exponent of the growth of the measure, or 0 if a measure is not positive.
+     */
+    private static double exponent(int[] sizes, double[] values) {
+        int n = sizes.length;
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int i = 0; i < n; i++) {
+            if (values[i] <= 0) {
+                return 0;
+            }
+            double x = Math.log(sizes[i]);
+            double y = Math.log(values[i]);
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+}
@@ -0,0 +1,141 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.ParseResult;
+import parser.Parser;
+import scanner.TokenType;
+import symboltable.SymbolTable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of entering, leaving and looking up names through deeply nested
+ * scopes.
+ * <p>
+ * A program of nested procedures, each declaring locals which shadow the globals of
+ * the program, is parsed, which enters and leaves a scope for every procedure and
+ * looks up each name of its statements through the enclosing scopes. The symbol
+ * table is also driven directly: a scope is entered for each level, names are
+ * declared in it and names of every enclosing level looked up, and then every scope
+ * is left. Run them through {@link BenchmarkRunner}.
+ * </p>
+ *
+ * @author William Mork
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class ScopeBenchmark {
+
+    /** Number of globals declared by the generated program, and of names declared in each scope. */
+    private static final int NAMES = 8;
+
+    /** The nesting depth of the scopes. */
+    @Param({"100", "5000"})
+    public int depth;
+
+    /** The source of the program of nested procedures. */
+    private String source;
+
+    /**
+     * Generates the program and checks that it parses.
+     */
+    @Setup
+    public void setUp() {
+        source = program(depth);
+        ParseResult parsed = new Parser(source).parse();
+        if (!parsed.isSuccess()) {
+            throw new IllegalStateException("Generated program does not parse: " + parsed.getDiagnostics().get(0));
+        }
+    }
+
+    /**
+     * Parses the program of nested procedures.
+     * @return The result of the parse.
+     */
+    @Benchmark
+    public ParseResult parse() {
+        return new Parser(source).parse();
+    }
+
+    /**
+     * Enters, looks up names through and leaves the nested scopes of a symbol table.
+     * @return The number of lookups which found a variable.
+     */
+    @Benchmark
+    public long symbolTable() {
+        return nest(new SymbolTable(), depth);
+    }
+
+    /**
+     * Generates a program of procedures nested to a depth, each with a parameter and
+     * locals, one of which shadows a global, and statements using its own names, the
+     * shadowed global and a global of the program.
+     * @param depth The number of nested procedures.
+     * @return The source of the program.
+     */
+    static String program(int depth) {
+        StringBuilder source = new StringBuilder("program bench;\n");
+        for (int i = 0; i < NAMES; i++) {
+            source.append("var g").append(i).append(": integer;\n");
+        }
+        for (int i = 0; i < depth; i++) {
+            source.append("procedure p").append(i).append("(a: integer);\n");
+            source.append("var l").append(i).append(", g").append(i % NAMES).append(": integer;\n");
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            String local = "l" + i;
+            String shadowed = "g" + (i % NAMES);
+            String global = "g" + ((i + 1) % NAMES);
+            source.append("begin ").append(local).append(" := a + ").append(shadowed).append("; ")
+                    .append(shadowed).append(" := ").append(local).append(" * ").append(global).append(" end;\n");
+        }
+        return source.append("begin\n  g0 := 1\nend\n.\n").toString();
+    }
+
+    /**
+     * Enters scopes to a depth, declaring names in each, half of which shadow those of
+     * the scope before it, and looking up every name in each, then leaves every scope.
+     * @param symbolTable An empty symbol table.
+     * @param depth The number of nested scopes.
+     * @return The number of lookups which found a variable.
+     */
+    static long nest(SymbolTable symbolTable, int depth) {
+        String[] names = new String[NAMES * 2];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "n" + i;
+        }
+        long found = 0;
+        for (int i = 0; i < NAMES; i++) {
+            symbolTable.addVariable(names[i], TokenType.INTEGER);
+        }
+        for (int level = 1; level <= depth; level++) {
+            symbolTable.addNewScope();
+            // Half the names of each scope shadow those of its parent.
+            int first = (level % 2) * NAMES / 2;
+            for (int i = first; i < first + NAMES; i++) {
+                symbolTable.addVariable(names[i], TokenType.REAL);
+            }
+            for (String name : names) {
+                found += symbolTable.isVariable(name) ? 1 : 0;
+            }
+        }
+        for (int level = 1; level <= depth; level++) {
+            symbolTable.removeScope();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scanner.NameTable;
+import scanner.TokenType;
+import symboltable.SymbolTable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the symbol table: declaring names, looking them up by name and
+ * by id, and entering and leaving nested scopes.
+ *
+ * @author William Mork
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolTableBenchmark {
+
+    /** The number of names declared, and of nested scopes entered. */
+    @Param({"100", "10000"})
+    public int size;
+
+    /** The names. */
+    private String[] names;
+
+    /** The ids of the names in the name table of the table. */
+    private int[] ids;
+
+    /** A table with every name declared. */
+    private SymbolTable table;
+
+    /**
+     * Creates the names and a table declaring them.
+     */
+    @Setup
+    public void setUp() {
+        names = new String[size];
+        ids = new int[size];
+        table = new SymbolTable();
+        NameTable nameTable = table.getNameTable();
+        for (int i = 0; i < size; i++) {
+            names[i] = "name" + i;
+            table.addVariable(names[i], TokenType.INTEGER);
+            ids[i] = nameTable.find(names[i]);
+        }
+    }
+
+    /**
+     * Declares every name in a new table.
+     * @return The table.
+     */
+    @Benchmark
+    public SymbolTable insert() {
+        SymbolTable symbolTable = new SymbolTable();
+        for (String name : names) {
+            symbolTable.addVariable(name, TokenType.INTEGER);
+        }
+        return symbolTable;
+    }
+
+    /**
+     * Looks up every name by its lexeme.
+     * @return The number of variables found.
+     */
+    @Benchmark
+    public int lookup() {
+        int found = 0;
+        for (String name : names) {
+            found += table.isVariable(name) ? 1 : 0;
+        }
+        return found;
+    }
+
+    /**
+     * Looks up every name by its id, as the parser does.
+     * @return The number of variables found.
+     */
+    @Benchmark
+    public int lookupById() {
+        int found = 0;
+        for (int id : ids) {
+            found += table.isVariable(id) ? 1 : 0;
+        }
+        return found;
+    }
+
+    /**
+     * Enters as many nested scopes as there are names, declaring and looking up
+     * names in each, then leaves them all.
+     * @return The number of variables found.
+     */
+    @Benchmark
+    public long scopes() {
+        return ScopeBenchmark.nest(new SymbolTable(), size);
+    }
+}
@@ -8,6 +8,7 @@ import symboltable.SymbolTable;
 import syntaxtree.ProgramNode;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * This class contains JUnit testing for the code generation module.
@@ -22,7 +23,7 @@ public class CodeGenerationTest {
      * @result The test passes if the money.pas file generates proper MIPS assembly code.
      */
     @Test
-    public void moneyCodeTest() {
+    public void moneyCodeTest() throws IOException {
         System.out.println("Code Generation: Testing code generation for money.pas");
         File input = new File("src/pascal/money.pas");
         Parser testParser = new Parser(input);
@@ -31,7 +32,7 @@ public class CodeGenerationTest {
 
         CodeGeneration testCodeGenerator = new CodeGeneration(testRoot, testParser.getSymbolTable());
 
-        String expected = ".data\ndollars:\t.word\t0\nyen:\t.word\t0\nbitcoins:\t.word\t0\n\n.text\nmain:\naddi\t$sp,\t$sp,\t-40\nsw\t$s7,\t36($sp)\nsw\t$s6,\t32($sp)\nsw\t$s5,\t28($sp)\nsw\t$s4,\t24($sp)\nsw\t$s3,\t20($sp)\nsw\t$s2,\t16($sp)\nsw\t$s1,\t12($sp)\nsw\t$s0,\t8($sp)\nsw\t$fp,\t4($sp)\nsw\t$ra,\t0($sp)\naddi\t$s0,\t$zero,\t10000\nsw\t$s0,\tdollars\nla\t$t0,\tdollars\naddi\t$t1,\t$zero,\t110\nmult\t$t0,\t$t1\nmflo\t$s0\nsw\t$s0,\tyen\nla\t$t0,\tdollars\naddi\t$t1,\t$zero,\t3900\ndiv\t$t0,\t$t1\nmflo\t$s0\nsw\t$s0,\tbitcoins\nlw\t$s7,\t36($sp)\nlw\t$s6,\t32($sp)\nlw\t$s5,\t28($sp)\nlw\t$s4,\t24($sp)\nlw\t$s3,\t20($sp)\nlw\t$s2,\t16($sp)\nlw\t$s1,\t12($sp)\nlw\t$s0,\t8($sp)\nlw\t$fp,\t4($sp)\nlw\t$ra,\t0($sp)\naddi\t$sp,\t$sp,\t40\njr\t$ra\n";
+        String expected = ".data\ndollars:\t.word\t0\nyen:\t.word\t0\nbitcoins:\t.word\t0\n\n.text\nmain:\naddi\t$sp,\t$sp,\t-40\nsw\t$s7,\t36($sp)\nsw\t$s6,\t32($sp)\nsw\t$s5,\t28($sp)\nsw\t$s4,\t24($sp)\nsw\t$s3,\t20($sp)\nsw\t$s2,\t16($sp)\nsw\t$s1,\t12($sp)\nsw\t$s0,\t8($sp)\nsw\t$fp,\t4($sp)\nsw\t$ra,\t0($sp)\naddi\t$t0,\t$zero,\t10000\nsw\t$t0,\tdollars\nlw\t$t0,\tdollars\naddi\t$t1,\t$zero,\t110\nmult\t$t0,\t$t1\nmflo\t$t0\nsw\t$t0,\tyen\nlw\t$t0,\tdollars\naddi\t$t1,\t$zero,\t3900\ndiv\t$t0,\t$t1\nmflo\t$t0\nsw\t$t0,\tbitcoins\nlw\t$s7,\t36($sp)\nlw\t$s6,\t32($sp)\nlw\t$s5,\t28($sp)\nlw\t$s4,\t24($sp)\nlw\t$s3,\t20($sp)\nlw\t$s2,\t16($sp)\nlw\t$s1,\t12($sp)\nlw\t$s0,\t8($sp)\nlw\t$fp,\t4($sp)\nlw\t$ra,\t0($sp)\naddi\t$sp,\t$sp,\t40\njr\t$ra\n";
 
         String result = testCodeGenerator.codeWriter();
 
@@ -45,7 +46,7 @@ public class CodeGenerationTest {
      * @result The test passes if a basic program produces proper MIPS assembly code.
      */
     @Test
-    public void programCodeTest() {
+    public void programCodeTest() throws IOException {
         System.out.println("Code Generation: Testing code generation for a basic program.");
         File input = new File("src/pascal/simplest.pas");
         Parser testParser = new Parser(input);
@@ -76,7 +77,7 @@ public class CodeGenerationTest {
 
         CodeGeneration testCodeGenerator = new CodeGeneration(testRoot, testParser.getSymbolTable());
 
-        String expected = ".data\nfee:\t.word\t0\nfi:\t.word\t0\nfo:\t.word\t0\nfum:\t.word\t0\n\n.text\nmain:\naddi\t$sp,\t$sp,\t-40\nsw\t$s7,\t36($sp)\nsw\t$s6,\t32($sp)\nsw\t$s5,\t28($sp)\nsw\t$s4,\t24($sp)\nsw\t$s3,\t20($sp)\nsw\t$s2,\t16($sp)\nsw\t$s1,\t12($sp)\nsw\t$s0,\t8($sp)\nsw\t$fp,\t4($sp)\nsw\t$ra,\t0($sp)\naddi\t$s0,\t$zero,\t4\nsw\t$s0,\tfee\naddi\t$t0,\t$zero,\t5\nla\t$t1,\tfee\ndiv\t$t0,\t$t1\nmflo\t$s0\nsw\t$s0,\tfi\naddi\t$t1,\t$zero,\t3\nla\t$t2,\tfee\nmult\t$t1,\t$t2\nmflo\t$t0\nla\t$t1,\tfi\nadd\t$s0,\t$t0,\t$t1\nsw\t$s0,\tfo\nla\t$t0,\tfee\nla\t$t2,\tfi\nla\t$t3,\tfo\ndiv\t$t2,\t$t3\nmflo\t$t1\nmult\t$t0,\t$t1\nmflo\t$s0\nsw\t$s0,\tfum\nlw\t$s7,\t36($sp)\nlw\t$s6,\t32($sp)\nlw\t$s5,\t28($sp)\nlw\t$s4,\t24($sp)\nlw\t$s3,\t20($sp)\nlw\t$s2,\t16($sp)\nlw\t$s1,\t12($sp)\nlw\t$s0,\t8($sp)\nlw\t$fp,\t4($sp)\nlw\t$ra,\t0($sp)\naddi\t$sp,\t$sp,\t40\njr\t$ra\n";
+        String expected = ".data\nfee:\t.word\t0\nfi:\t.word\t0\nfo:\t.word\t0\nfum:\t.word\t0\n\n.text\nmain:\naddi\t$sp,\t$sp,\t-40\nsw\t$s7,\t36($sp)\nsw\t$s6,\t32($sp)\nsw\t$s5,\t28($sp)\nsw\t$s4,\t24($sp)\nsw\t$s3,\t20($sp)\nsw\t$s2,\t16($sp)\nsw\t$s1,\t12($sp)\nsw\t$s0,\t8($sp)\nsw\t$fp,\t4($sp)\nsw\t$ra,\t0($sp)\naddi\t$t0,\t$zero,\t4\nsw\t$t0,\tfee\naddi\t$t0,\t$zero,\t5\nlw\t$t1,\tfee\ndiv\t$t0,\t$t1\nmflo\t$t0\nsw\t$t0,\tfi\naddi\t$t0,\t$zero,\t3\nlw\t$t1,\tfee\nmult\t$t0,\t$t1\nmflo\t$t0\nlw\t$t1,\tfi\nadd\t$t0,\t$t0,\t$t1\nsw\t$t0,\tfo\nlw\t$t0,\tfee\nlw\t$t1,\tfi\nmult\t$t0,\t$t1\nmflo\t$t0\nlw\t$t1,\tfo\ndiv\t$t0,\t$t1\nmflo\t$t0\nsw\t$t0,\tfum\nlw\t$s7,\t36($sp)\nlw\t$s6,\t32($sp)\nlw\t$s5,\t28($sp)\nlw\t$s4,\t24($sp)\nlw\t$s3,\t20($sp)\nlw\t$s2,\t16($sp)\nlw\t$s1,\t12($sp)\nlw\t$s0,\t8($sp)\nlw\t$fp,\t4($sp)\nlw\t$ra,\t0($sp)\naddi\t$sp,\t$sp,\t40\njr\t$ra\n";
 
         String result = testCodeGenerator.codeWriter();
 
@@ -98,7 +99,7 @@ public class CodeGenerationTest {
 
         CodeGeneration testCodeGenerator = new CodeGeneration(testRoot, testParser.getSymbolTable());
 
-        String expected = ".data\nfee:\t.word\t0\nfi:\t.word\t0\nfo:\t.word\t0\nfum:\t.word\t0\n\n.text\nmain:\naddi\t$sp,\t$sp,\t-40\nsw\t$s7,\t36($sp)\nsw\t$s6,\t32($sp)\nsw\t$s5,\t28($sp)\nsw\t$s4,\t24($sp)\nsw\t$s3,\t20($sp)\nsw\t$s2,\t16($sp)\nsw\t$s1,\t12($sp)\nsw\t$s0,\t8($sp)\nsw\t$fp,\t4($sp)\nsw\t$ra,\t0($sp)\naddi\t$s0,\t$zero,\t4\nsw\t$s0,\tfee\naddi\t$s0,\t$zero,\t5\nsw\t$s0,\tfi\naddi\t$t1,\t$zero,\t3\nla\t$t2,\tfee\nmult\t$t1,\t$t2\nmflo\t$t0\nla\t$t1,\tfi\nadd\t$s0,\t$t0,\t$t1\nsw\t$s0,\tfo\naddi\t$t0,\t$zero,\t13\nbge\t$t0,\t$t1,\telse0\naddi\t$s0,\t$zero,\t13\nsw\t$s0,\tfo\nj\tendIf0\nelse0:\naddi\t$s1,\t$zero,\t26\nsw\t$s1,\tfo\n\nendIf0:\nlw\t$s7,\t36($sp)\nlw\t$s6,\t32($sp)\nlw\t$s5,\t28($sp)\nlw\t$s4,\t24($sp)\nlw\t$s3,\t20($sp)\nlw\t$s2,\t16($sp)\nlw\t$s1,\t12($sp)\nlw\t$s0,\t8($sp)\nlw\t$fp,\t4($sp)\nlw\t$ra,\t0($sp)\naddi\t$sp,\t$sp,\t40\njr\t$ra\n";
+        String expected = ".data\nfee:\t.word\t0\nfi:\t.word\t0\nfo:\t.word\t0\nfum:\t.word\t0\n\n.text\nmain:\naddi\t$sp,\t$sp,\t-40\nsw\t$s7,\t36($sp)\nsw\t$s6,\t32($sp)\nsw\t$s5,\t28($sp)\nsw\t$s4,\t24($sp)\nsw\t$s3,\t20($sp)\nsw\t$s2,\t16($sp)\nsw\t$s1,\t12($sp)\nsw\t$s0,\t8($sp)\nsw\t$fp,\t4($sp)\nsw\t$ra,\t0($sp)\naddi\t$t0,\t$zero,\t4\nsw\t$t0,\tfee\naddi\t$t0,\t$zero,\t5\nsw\t$t0,\tfi\naddi\t$t0,\t$zero,\t3\nlw\t$t1,\tfee\nmult\t$t0,\t$t1\nmflo\t$t0\nlw\t$t1,\tfi\nadd\t$t0,\t$t0,\t$t1\nsw\t$t0,\tfo\nlw\t$t0,\tfo\naddi\t$t1,\t$zero,\t13\nbge\t$t0,\t$t1,\telse0\naddi\t$t0,\t$zero,\t13\nsw\t$t0,\tfo\nj\tendIf0\nelse0:\naddi\t$t0,\t$zero,\t26\nsw\t$t0,\tfo\nendIf0:\nlw\t$s7,\t36($sp)\nlw\t$s6,\t32($sp)\nlw\t$s5,\t28($sp)\nlw\t$s4,\t24($sp)\nlw\t$s3,\t20($sp)\nlw\t$s2,\t16($sp)\nlw\t$s1,\t12($sp)\nlw\t$s0,\t8($sp)\nlw\t$fp,\t4($sp)\nlw\t$ra,\t0($sp)\naddi\t$sp,\t$sp,\t40\njr\t$ra\n";
 
         String result = testCodeGenerator.codeWriter();
 
@@ -127,4 +128,80 @@ public class CodeGenerationTest {
         Assertions.assertEquals(expected, result);
         System.out.println("Success.");
     }
+
+    /**
+     * Tests that constant expressions are folded and that constants too large for an
+     * immediate are loaded with li.
+     *
+     * @result The test passes if each constant expression is loaded with a single instruction.
+     */
+    @Test
+    public void constantCodeTest() {
+        System.out.println("Code Generation: Testing code generation for constant expressions");
+        Parser testParser = new Parser("program foo;\nvar fee, fi: integer;\nbegin\nfee := 2 * 3 + 4;\nfi := 70000 - 1\nend\n.\n");
+        ProgramNode testRoot = testParser.program();
+
+        CodeGeneration testCodeGenerator = new CodeGeneration(testRoot, testParser.getSymbolTable());
+
+        String result = testCodeGenerator.codeWriter();
+
+        Assertions.assertTrue(result.contains("addi\t$t0,\t$zero,\t10\nsw\t$t0,\tfee\n"));
+        Assertions.assertTrue(result.contains("li\t$t0,\t69999\nsw\t$t0,\tfi\n"));
+        Assertions.assertFalse(result.contains("mult"));
+        System.out.println("Success.");
+    }
+
+    /**
+     * Tests that an expression with more values live at once than there are registers
+     * spills the rest to the stack, using only the allocated and scratch registers.
+     *
+     * @result The test passes if the spilled values are stored and loaded through stack slots.
+     */
+    @Test
+    public void registerAllocationTest() {
+        System.out.println("Code Generation: Testing register allocation for a deeply nested expression");
+        StringBuilder expression = new StringBuilder("fee");
+        for (int i = 0; i < 24; i++) {
+            expression.insert(0, "fi + (").append(')');
+        }
+        Parser testParser = new Parser("program foo;\nvar fee, fi: integer;\nbegin\nfee := " + expression + ";\nfi := fee + 1\nend\n.\n");
+        ProgramNode testRoot = testParser.program();
+
+        CodeGeneration testCodeGenerator = new CodeGeneration(testRoot, testParser.getSymbolTable());
+
+        String result = testCodeGenerator.codeWriter();
+
+        Assertions.assertFalse(result.contains("$t10"));
+        Assertions.assertTrue(result.contains("$s7,\tfi\n"));
+        Assertions.assertTrue(result.contains("sw\t$v0,\t0($sp)\n"));
+        Assertions.assertTrue(result.contains("lw\t$v1,\t0($sp)\n") || result.contains("lw\t$v0,\t0($sp)\n"));
+        // The stack grown for the spills of the first statement is restored before the second.
+        int frame = result.indexOf("addi\t$sp,\t$sp,\t-", result.indexOf("main:\naddi") + 10);
+        Assertions.assertTrue(frame > 0);
+        String size = result.substring(frame + "addi\t$sp,\t$sp,\t-".length(), result.indexOf('\n', frame));
+        Assertions.assertTrue(result.indexOf("addi\t$sp,\t$sp,\t" + size + "\nlw\t$t0,\tfee\n") > frame);
+        System.out.println("Success.");
+    }
+
+    /**
+     * Tests that an array takes a word for each of its elements, and that the address
+     * of an element counts from the lower bound of the array.
+     *
+     * @result The test passes if the array is laid out in full and its elements are addressed from its first word.
+     */
+    @Test
+    public void arrayCodeTest() {
+        System.out.println("Code Generation: Testing code generation for an array with a lower bound of 1");
+        Parser testParser = new Parser("program foo;\nvar a: array[1:3] of integer;\nvar x, y: integer;\nbegin\na[1] := 5;\nx := a[3]\nend\n.\n");
+        ProgramNode testRoot = testParser.program();
+
+        CodeGeneration testCodeGenerator = new CodeGeneration(testRoot, testParser.getSymbolTable());
+
+        String result = testCodeGenerator.codeWriter();
+
+        Assertions.assertTrue(result.startsWith(".data\na:\t.space\t12\nx:\t.word\t0\ny:\t.word\t0\n\n"));
+        Assertions.assertTrue(result.contains("addi\t$t0,\t$zero,\t5\naddi\t$t1,\t$zero,\t1\naddi\t$t1,\t$t1,\t-1\nsll\t$t1,\t$t1,\t2\nla\t$t2,\ta\nadd\t$t1,\t$t1,\t$t2\nsw\t$t0,\t0($t1)\n"));
+        Assertions.assertTrue(result.contains("addi\t$t0,\t$zero,\t3\naddi\t$t0,\t$t0,\t-1\nsll\t$t0,\t$t0,\t2\nla\t$t1,\ta\nadd\t$t0,\t$t0,\t$t1\nlw\t$t0,\t0($t0)\nsw\t$t0,\tx\n"));
+        System.out.println("Success.");
+    }
 }
@@ -0,0 +1,72 @@
+package codegen;
+
+/**
+ * A MIPS instruction over virtual registers, or a line of text such as a label, held
+ * until the registers of the code it belongs to have been allocated.
+ * <p>
+ * The operands of an instruction are written from a template, in which %d stands for
+ * the register the instruction writes, and %a and %b for the registers it reads.
+ * </p>
+ *
+ * @author William Mork
+ */
+class Instruction {
+
+    /** Marks an unused register operand. */
+    static final int NONE = -1;
+
+    /** The opcode, or null if this is a line of text. */
+    final String opcode;
+
+    /** The template of the operands, or the text of a line of text. */
+    final String operands;
+
+    /** The virtual register written, or NONE. */
+    final int defined;
+
+    /** The first virtual register read, or NONE. */
+    final int first;
+
+    /** The second virtual register read, or NONE. */
+    final int second;
+
+    /**
+     * Creates an instruction.
+     * @param opcode The MIPS opcode.
+     * @param operands The template of the operands.
+     * @param defined The virtual register written, or NONE.
+     * @param first The first virtual register read, or NONE.
+     * @param second The second virtual register read, or NONE.
+     */
+    Instruction(String opcode, String operands, int defined, int first, int second) {
+        this.opcode = opcode;
+        this.operands = operands;
+        this.defined = defined;
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Creates a line of text, written as it is.
+     * @param text The text, ending with its own newline if it has one.
+     */
+    Instruction(String text) {
+        this(null, text, NONE, NONE, NONE);
+    }
+
+    /**
+     * Returns true if this is a line of text rather than an instruction.
+     * @return True for a line of text.
+     */
+    boolean isText() {
+        return opcode == null;
+    }
+
+    /**
+     * Returns true if this is a jump or branch.
+     * @return True for j and the MIPS branches, whose opcodes begin with b.
+     */
+    boolean isTransfer() {
+        return opcode != null && (opcode.equals("j") || opcode.startsWith("b"));
+    }
+}
@@ -0,0 +1,648 @@
+package codegen;
+
+import ir.BasicBlock;
+import ir.ControlFlowGraph;
+import ir.IrGenerator;
+import ir.Opcode;
+import scanner.TokenType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Writes the MIPS assembly of a program from its intermediate representation.
+ * <p>
+ * The program is lowered one statement of its main program at a time, and the code
+ * lowered for each statement is written and then dropped from the representation, so
+ * that neither the representation nor the assembly of the whole program is held in
+ * memory. The blocks are written in the order they are laid out. A block is labeled unless it
+ * is only reached by falling through from the block before it, and a jump to the next
+ * block is left out. A comparison read only by the branch after it is written as a
+ * single compare-and-branch.
+ * </p>
+ * <p>
+ * Each instruction of the representation is selected into MIPS instructions over
+ * virtual registers, which are held until no value is live, at the latest at the end of
+ * the block, and then assigned to MIPS registers by a {@link RegisterAllocator} and
+ * written. If any value of such a region is spilled, the stack is grown by its slots
+ * around the region, and restored before a branch which ends it.
+ * </p>
+ *
+ * @author William Mork
+ */
+class MipsBackend {
+
+    /** Lowers the program being written. */
+    private final IrGenerator generator;
+
+    /** The block whose code was written last, or null before the first block. */
+    private BasicBlock previous;
+
+    /** The output the MIPS assembly is written to. */
+    private Appendable out;
+
+    /** Number of instructions written. */
+    private long instructionCount;
+
+    /** The lower bound of the index of each array, by its address. */
+    private final HashMap<String, Integer> lowerBounds = new HashMap<>();
+
+    /** The code of the current region, held until its registers are allocated. */
+    private final ArrayList<Instruction> code = new ArrayList<>();
+
+    /** Number of virtual registers used by the code of the current region. */
+    private int registerCount;
+
+    /** Assigns the virtual registers of each region to MIPS registers. */
+    private final RegisterAllocator allocator = new RegisterAllocator();
+
+    /** The number of the current region, counting from 1 and never reused. */
+    private int region = 1;
+
+    /**
+     * The lowest register of the representation mentioned by the current block. The
+     * arrays below are indexed by register less this base, as each register is only
+     * read in the block which writes it, and grow to the largest range of any block.
+     */
+    private int base;
+
+    /** The region each register of the block was last given a virtual register in. */
+    private int[] regionOf = new int[64];
+
+    /** The virtual register of each register of the block in that region. */
+    private int[] localOf = new int[64];
+
+    /** Number of reads of each register of the block. */
+    private int[] uses = new int[64];
+
+    /** The index of the last instruction of the block which reads each register. */
+    private int[] lastUse = new int[64];
+
+    /**
+     * Creates a backend for a program.
+     * @param generator The generator which lowers the program.
+     */
+    MipsBackend(IrGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Writes the MIPS assembly of the program.
+     * @param output The output the MIPS assembly is written to.
+     * @throws IOException If the output can not be written.
+     */
+    void write(Appendable output) throws IOException {
+        out = output;
+        instructionCount = 0;
+        region++;
+        ControlFlowGraph graph = generator.start();
+
+        // .data section, a word for each variable and for each element of each array
+        out.append(".data\n");
+        lowerBounds.clear();
+        ArrayList<String> variables = graph.getVariables();
+        for (int i = 0; i < variables.size(); i++) {
+            if (graph.isArray(i)) {
+                lowerBounds.put(variables.get(i), graph.getLowerBound(i));
+                long size = 4L * ((long) graph.getUpperBound(i) - graph.getLowerBound(i) + 1);
+                out.append(variables.get(i)).append(":\t.space\t").append(String.valueOf(Math.max(size, 0))).append('\n');
+            } else {
+                out.append(variables.get(i)).append(":\t.word\t0\n");
+            }
+        }
+
+        out.append("\n");
+
+        // .text section
+        out.append(".text\n");
+        out.append("main:\n");
+
+        // push to stack
+        pushToStack();
+
+        previous = null;
+        boolean lowering = true;
+        while (lowering) {
+            lowering = generator.lowerNext();
+            ArrayList<BasicBlock> blocks = graph.getBlocks();
+            for (int i = 0; i < blocks.size(); i++) {
+                BasicBlock block = blocks.get(i);
+                ArrayList<BasicBlock> predecessors = block.getPredecessors();
+                if (previous != null && block != previous
+                        && !(predecessors.size() == 1 && predecessors.get(0) == previous)) {
+                    out.append(block.getLabel()).append(":\n");
+                }
+                blockWriter(block, i + 1 < blocks.size() ? blocks.get(i + 1) : null);
+                previous = block;
+            }
+            graph.retire();
+        }
+
+        // pop from stack
+        popFromStack();
+    }
+
+    /**
+     * Returns the number of instructions written by the last call to write.
+     * @return The instruction count.
+     */
+    long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * Writes the code of a block, flushing it whenever no value is live. A block which
+     * has not ended yet is written up to its last instruction, and continued later.
+     * @param block The block.
+     * @param next The block laid out after it, or null if it is the last.
+     * @throws IOException If the output can not be written.
+     */
+    private void blockWriter(BasicBlock block, BasicBlock next) throws IOException {
+        ArrayList<ir.Instruction> instructions = block.getInstructions();
+        int size = instructions.size();
+        range(instructions);
+        for (int i = 0; i < size; i++) {
+            ir.Instruction instruction = instructions.get(i);
+            if (instruction.getResult() != ir.Instruction.NONE) {
+                uses[instruction.getResult() - base] = 0;
+            }
+            read(instruction.getLeft(), i);
+            if (instruction.getRight() != instruction.getLeft()) {
+                read(instruction.getRight(), i);
+            }
+        }
+
+        // A comparison read only by the branch after it is written with the branch.
+        ir.Instruction comparison = null;
+        ir.Instruction terminator = block.getTerminator();
+        if (size >= 2 && terminator != null && terminator.getOpcode() == Opcode.BRANCH) {
+            ir.Instruction last = instructions.get(size - 2);
+            if (last.getOpcode().isComparison() && last.getResult() == terminator.getLeft() && uses[last.getResult() - base] == 1) {
+                comparison = last;
+            }
+        }
+
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            ir.Instruction instruction = instructions.get(i);
+            if (instruction == terminator) {
+                terminatorWriter(terminator, comparison, next);
+                break;
+            }
+            if (instruction == comparison) {
+                continue;
+            }
+            instructionWriter(instruction);
+            if (instruction.getLeft() != ir.Instruction.NONE && lastUse[instruction.getLeft() - base] == i) {
+                live--;
+            }
+            if (instruction.getRight() != ir.Instruction.NONE && instruction.getRight() != instruction.getLeft()
+                    && lastUse[instruction.getRight() - base] == i) {
+                live--;
+            }
+            if (instruction.getResult() != ir.Instruction.NONE && uses[instruction.getResult() - base] > 0) {
+                live++;
+            }
+            if (live == 0) {
+                flush();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Sets the base of the registers of a block to the lowest it mentions, growing the
+     * arrays indexed by register to its range. The regions left in the arrays by other
+     * blocks are all before the current region, so they need not be cleared.
+     * @param instructions The instructions of the block.
+     */
+    private void range(ArrayList<ir.Instruction> instructions) {
+        int lowest = Integer.MAX_VALUE;
+        int highest = -1;
+        for (ir.Instruction instruction : instructions) {
+            int result = instruction.getResult();
+            int left = instruction.getLeft();
+            int right = instruction.getRight();
+            if (result != ir.Instruction.NONE) {
+                lowest = Math.min(lowest, result);
+                highest = Math.max(highest, result);
+            }
+            if (left != ir.Instruction.NONE) {
+                lowest = Math.min(lowest, left);
+                highest = Math.max(highest, left);
+            }
+            if (right != ir.Instruction.NONE) {
+                lowest = Math.min(lowest, right);
+                highest = Math.max(highest, right);
+            }
+        }
+        base = highest < 0 ? 0 : lowest;
+        int length = highest - base + 1;
+        if (length > regionOf.length) {
+            int capacity = Math.max(regionOf.length * 2, length);
+            regionOf = Arrays.copyOf(regionOf, capacity);
+            localOf = new int[capacity];
+            uses = new int[capacity];
+            lastUse = new int[capacity];
+        }
+    }
+
+    /**
+     * Counts a read of a register of the representation by an instruction of its block.
+     * @param register The register, or NONE.
+     * @param index The index of the instruction.
+     */
+    private void read(int register, int index) {
+        if (register != ir.Instruction.NONE) {
+            uses[register - base]++;
+            lastUse[register - base] = index;
+        }
+    }
+
+    /**
+     * Returns the virtual register of a register of the representation in the current region.
+     * @param register The register of the representation.
+     * @return The virtual register.
+     */
+    private int local(int register) {
+        if (regionOf[register - base] != region) {
+            regionOf[register - base] = region;
+            localOf[register - base] = newRegister();
+        }
+        return localOf[register - base];
+    }
+
+    /**
+     * Selects the MIPS instructions of an instruction of the representation which is
+     * not a terminator.
+     * @param instruction The instruction.
+     */
+    private void instructionWriter(ir.Instruction instruction) {
+        Opcode opcode = instruction.getOpcode();
+        if (opcode == Opcode.UNSUPPORTED) {
+            text("[ERROR: Code for statement could not be generated.]");
+            return;
+        }
+        int left = instruction.getLeft() == ir.Instruction.NONE ? Instruction.NONE : local(instruction.getLeft());
+        int right = instruction.getRight() == ir.Instruction.NONE ? Instruction.NONE : local(instruction.getRight());
+        int result = instruction.getResult() == ir.Instruction.NONE ? Instruction.NONE : local(instruction.getResult());
+        String name = instruction.getName();
+        switch (opcode) {
+            case CONST:
+                constantWriter(instruction.getType(), name, result);
+                break;
+            case LOAD:
+                emit("lw", "%d,\t" + name, result, Instruction.NONE, Instruction.NONE);
+                break;
+            case STORE:
+                emit("sw", "%a,\t" + name, Instruction.NONE, left, Instruction.NONE);
+                break;
+            case ALOAD:
+                emit("lw", "%d,\t0(%a)", result, elementWriter(name, left), Instruction.NONE);
+                break;
+            case ASTORE:
+                emit("sw", "%a,\t0(%b)", Instruction.NONE, right, elementWriter(name, left));
+                break;
+            case NEG:
+                emit("sub", "%d,\t$zero,\t%a", result, left, Instruction.NONE);
+                break;
+            case NOT:
+                // The operand holds 0 or 1.
+                emit("xori", "%d,\t%a,\t1", result, left, Instruction.NONE);
+                break;
+            default:
+                operationWriter(opcode, result, left, right);
+                break;
+        }
+    }
+
+    /**
+     * Selects the MIPS instructions of a constant. An integer constant which fits in
+     * the signed 16-bit immediate of addi is added to $zero; any other integer constant
+     * is loaded with li, which the assembler expands to lui and ori.
+     * @param type The type of the constant.
+     * @param text The text of the constant.
+     * @param resultReg The virtual register to store a result.
+     */
+    private void constantWriter(TokenType type, String text, int resultReg) {
+        if (type == TokenType.INTEGER) {
+            int value = Integer.parseInt(text);
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                emit("li", "%d,\t" + text, resultReg, Instruction.NONE, Instruction.NONE);
+                return;
+            }
+        }
+        emit("addi", "%d,\t$zero,\t" + text, resultReg, Instruction.NONE, Instruction.NONE);
+    }
+
+    /**
+     * Selects the MIPS instructions of the address of an element of an array, which is
+     * the address of the array plus four times the index less the lower bound.
+     * @param name The address of the array.
+     * @param indexReg The virtual register holding the index.
+     * @return The virtual register holding the address.
+     */
+    private int elementWriter(String name, int indexReg) {
+        Integer lowerBound = lowerBounds.get(name);
+        if (lowerBound != null && lowerBound != 0) {
+            int elementReg = newRegister();
+            emit("addi", "%d,\t%a,\t" + (-(long) lowerBound), elementReg, indexReg, Instruction.NONE);
+            indexReg = elementReg;
+        }
+        int offsetReg = newRegister();
+        emit("sll", "%d,\t%a,\t2", offsetReg, indexReg, Instruction.NONE);
+        int arrayReg = newRegister();
+        emit("la", "%d,\t" + name, arrayReg, Instruction.NONE, Instruction.NONE);
+        int addressReg = newRegister();
+        emit("add", "%d,\t%a,\t%b", addressReg, offsetReg, arrayReg);
+        return addressReg;
+    }
+
+    /**
+     * Selects the MIPS instructions of a binary operation. A comparison gives 1 if it
+     * holds and 0 if it does not.
+     * @param opcode The operation.
+     * @param resultReg The virtual register to store a result.
+     * @param leftReg The virtual register of the left operand.
+     * @param rightReg The virtual register of the right operand.
+     */
+    private void operationWriter(Opcode opcode, int resultReg, int leftReg, int rightReg) {
+        switch (opcode) {
+            case ADD:
+                emit("add", "%d,\t%a,\t%b", resultReg, leftReg, rightReg);
+                break;
+            case SUB:
+                emit("sub", "%d,\t%a,\t%b", resultReg, leftReg, rightReg);
+                break;
+            case MUL:
+                emit("mult", "%a,\t%b", Instruction.NONE, leftReg, rightReg);
+                emit("mflo", "%d", resultReg, Instruction.NONE, Instruction.NONE);
+                break;
+            case DIV:
+                emit("div", "%a,\t%b", Instruction.NONE, leftReg, rightReg);
+                emit("mflo", "%d", resultReg, Instruction.NONE, Instruction.NONE);
+                break;
+            case MOD:
+                emit("div", "%a,\t%b", Instruction.NONE, leftReg, rightReg);
+                emit("mfhi", "%d", resultReg, Instruction.NONE, Instruction.NONE);
+                break;
+            case AND:
+                emit("and", "%d,\t%a,\t%b", resultReg, leftReg, rightReg);
+                break;
+            case OR:
+                emit("or", "%d,\t%a,\t%b", resultReg, leftReg, rightReg);
+                break;
+            case LT:
+                emit("slt", "%d,\t%a,\t%b", resultReg, leftReg, rightReg);
+                break;
+            case GT:
+                emit("slt", "%d,\t%b,\t%a", resultReg, leftReg, rightReg);
+                break;
+            case LE: {
+                int greaterReg = newRegister();
+                emit("slt", "%d,\t%b,\t%a", greaterReg, leftReg, rightReg);
+                emit("xori", "%d,\t%a,\t1", resultReg, greaterReg, Instruction.NONE);
+                break;
+            }
+            case GE: {
+                int lessReg = newRegister();
+                emit("slt", "%d,\t%a,\t%b", lessReg, leftReg, rightReg);
+                emit("xori", "%d,\t%a,\t1", resultReg, lessReg, Instruction.NONE);
+                break;
+            }
+            // The difference of the operands is zero only if they are equal.
+            case EQ: {
+                int differenceReg = newRegister();
+                emit("xor", "%d,\t%a,\t%b", differenceReg, leftReg, rightReg);
+                emit("sltiu", "%d,\t%a,\t1", resultReg, differenceReg, Instruction.NONE);
+                break;
+            }
+            case NE: {
+                int differenceReg = newRegister();
+                emit("xor", "%d,\t%a,\t%b", differenceReg, leftReg, rightReg);
+                emit("sltu", "%d,\t$zero,\t%a", resultReg, differenceReg, Instruction.NONE);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("No code for the operation " + opcode + ".");
+        }
+    }
+
+    /**
+     * Writes the terminator of a block, leaving out a jump to the next block. A branch
+     * to the next block is written as the opposite branch to its other target.
+     * @param terminator The terminator.
+     * @param comparison The comparison the branch tests, to be written with it, or null.
+     * @param next The block laid out after the block, or null if it is the last.
+     * @throws IOException If the output can not be written.
+     */
+    private void terminatorWriter(ir.Instruction terminator, ir.Instruction comparison, BasicBlock next) throws IOException {
+        switch (terminator.getOpcode()) {
+            case JUMP:
+                flush();
+                if (terminator.getTarget() != next) {
+                    emit("j").append(terminator.getTarget().getLabel()).append('\n');
+                }
+                break;
+            case EXIT:
+                flush();
+                if (next != null) {
+                    throw new IllegalArgumentException("The block " + next.getLabel() + " is laid out after the exit.");
+                }
+                break;
+            case BRANCH: {
+                BasicBlock target = terminator.getTarget();
+                BasicBlock otherTarget = terminator.getOtherTarget();
+                // Branch to the other target if the test fails, unless it is the next block.
+                boolean holds = otherTarget == next;
+                String label = holds ? target.getLabel() : otherTarget.getLabel();
+                if (comparison != null) {
+                    emit(branch(comparison.getOpcode(), holds), "%a,\t%b,\t" + label, Instruction.NONE,
+                            local(comparison.getLeft()), local(comparison.getRight()));
+                } else {
+                    emit(holds ? "bne" : "beq", "%a,\t$zero,\t" + label, Instruction.NONE,
+                            local(terminator.getLeft()), Instruction.NONE);
+                }
+                flush();
+                if (!holds && target != next) {
+                    emit("j").append(target.getLabel()).append('\n');
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("No code for the terminator " + terminator.getOpcode() + ".");
+        }
+    }
+
+    /**
+     * Returns the branch taken when a comparison holds, or when it does not.
+     * @param comparison The comparison.
+     * @param holds True for the branch taken when the comparison holds.
+     * @return The opcode of the branch.
+     */
+    private static String branch(Opcode comparison, boolean holds) {
+        switch (comparison) {
+            case LT:
+                return holds ? "blt" : "bge";
+            case GT:
+                return holds ? "bgt" : "ble";
+            case LE:
+                return holds ? "ble" : "bgt";
+            case GE:
+                return holds ? "bge" : "blt";
+            case EQ:
+                return holds ? "beq" : "bne";
+            case NE:
+                return holds ? "bne" : "beq";
+            default:
+                throw new IllegalArgumentException(comparison + " is not a comparison.");
+        }
+    }
+
+    /**
+     * Starts a new instruction which uses no virtual registers by writing its opcode
+     * and a tab.
+     * @param opcode The MIPS opcode.
+     * @return The output, so that the operands can be appended.
+     * @throws IOException If the output can not be written.
+     */
+    private Appendable emit(String opcode) throws IOException {
+        instructionCount++;
+        return out.append(opcode).append('\t');
+    }
+
+    /**
+     * Adds an instruction to the code of the current region.
+     * @param opcode The MIPS opcode.
+     * @param operands The template of the operands, with %d for the register written and %a and %b for those read.
+     * @param defined The virtual register written, or Instruction.NONE.
+     * @param first The first virtual register read, or Instruction.NONE.
+     * @param second The second virtual register read, or Instruction.NONE.
+     */
+    private void emit(String opcode, String operands, int defined, int first, int second) {
+        code.add(new Instruction(opcode, operands, defined, first, second));
+    }
+
+    /**
+     * Adds a line of text to the code of the current region.
+     * @param text The text.
+     */
+    private void text(String text) {
+        code.add(new Instruction(text));
+    }
+
+    /**
+     * Returns a new virtual register.
+     * @return The number of the register.
+     */
+    private int newRegister() {
+        return registerCount++;
+    }
+
+    /**
+     * Allocates the registers of the code of the current region and writes it. If any
+     * value is spilled, the stack is grown by its slots around the code, and restored
+     * before a jump or branch which ends it.
+     * @throws IOException If the output can not be written.
+     */
+    private void flush() throws IOException {
+        if (code.isEmpty()) {
+            return;
+        }
+        allocator.allocate(code, registerCount);
+        int frame = 4 * allocator.getSlotCount();
+        if (frame > 0) {
+            emit("addi").append("$sp,\t$sp,\t-").append(String.valueOf(frame)).append('\n');
+        }
+        for (int i = 0; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            if (instruction.isText()) {
+                out.append(instruction.operands);
+                continue;
+            }
+            String first = operand(instruction.first, RegisterAllocator.SCRATCH[0]);
+            String second = operand(instruction.second, RegisterAllocator.SCRATCH[1]);
+            String defined = instruction.defined == Instruction.NONE ? null
+                    : allocator.isSpilled(instruction.defined) ? RegisterAllocator.SCRATCH[0] : allocator.register(instruction.defined);
+            if (frame > 0 && i == code.size() - 1 && instruction.isTransfer()) {
+                emit("addi").append("$sp,\t$sp,\t").append(String.valueOf(frame)).append('\n');
+                frame = 0;
+            }
+            emit(instruction.opcode);
+            String operands = instruction.operands;
+            for (int j = 0; j < operands.length(); j++) {
+                char c = operands.charAt(j);
+                if (c == '%' && j + 1 < operands.length()) {
+                    char operand = operands.charAt(++j);
+                    out.append(operand == 'd' ? defined : operand == 'a' ? first : second);
+                } else {
+                    out.append(c);
+                }
+            }
+            out.append('\n');
+            if (defined != null && allocator.isSpilled(instruction.defined)) {
+                emit("sw").append(defined).append(",\t").append(String.valueOf(4 * allocator.slot(instruction.defined))).append("($sp)\n");
+            }
+        }
+        if (frame > 0) {
+            emit("addi").append("$sp,\t$sp,\t").append(String.valueOf(frame)).append('\n');
+        }
+        code.clear();
+        registerCount = 0;
+        region++;
+    }
+
+    /**
+     * Returns the MIPS register holding a virtual register read by an instruction,
+     * first loading it into a scratch register if it was spilled.
+     * @param virtual The virtual register, or Instruction.NONE.
+     * @param scratch The scratch register to load a spilled value into.
+     * @return The name of the MIPS register, or null if there is no operand.
+     * @throws IOException If the output can not be written.
+     */
+    private String operand(int virtual, String scratch) throws IOException {
+        if (virtual == Instruction.NONE) {
+            return null;
+        }
+        if (!allocator.isSpilled(virtual)) {
+            return allocator.register(virtual);
+        }
+        emit("lw").append(scratch).append(",\t").append(String.valueOf(4 * allocator.slot(virtual))).append("($sp)\n");
+        return scratch;
+    }
+
+    /**
+     * Code generation method for pushing registers $s*, $fp, and $sp to the stack.
+     *
+     * @throws IOException If the output can not be written.
+     */
+    private void pushToStack() throws IOException {
+        // Push to stack.
+        emit("addi").append("$sp,\t$sp,\t-").append(String.valueOf(8 * 4 + 8)).append('\n');
+
+        for (int i = 8 - 1; i >= 0; i--) {
+            emit("sw").append("$s").append(String.valueOf(i)).append(",\t").append(String.valueOf(4 * (i + 2))).append("($sp)\n");
+        }
+
+        emit("sw").append("$fp,\t4($sp)\n");
+        emit("sw").append("$ra,\t0($sp)\n");
+    }
+
+    /**
+     * Code generation method for popping registers $s*, $fp, and $sp to the stack.
+     *
+     * @throws IOException If the output can not be written.
+     */
+    private void popFromStack() throws IOException {
+        // Pop from stack.
+        for (int i = 8 - 1; i >= 0; i--) {
+            emit("lw").append("$s").append(String.valueOf(i)).append(",\t").append(String.valueOf(4 * (i + 2))).append("($sp)\n");
+        }
+        emit("lw").append("$fp,\t4($sp)\n");
+        emit("lw").append("$ra,\t0($sp)\n");
+        emit("addi").append("$sp,\t$sp,\t").append(String.valueOf((8 * 4) + 8)).append("\n");
+        emit("jr").append("$ra\n");
+    }
+}
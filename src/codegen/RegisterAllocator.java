@@ -0,0 +1,177 @@
+package codegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Assigns the virtual registers of a run of instructions to the MIPS registers
+ * $t0-$t9 and $s0-$s7 by linear scan, spilling to the stack when more values are
+ * live at once than there are registers.
+ * <p>
+ * The live interval of a virtual register runs from the first instruction which
+ * mentions it to the last. The code generator evaluates each expression into fresh
+ * registers and stores every result to memory before the end of its statement, so
+ * no value is live across a label, and these intervals are exact even in loops.
+ * Intervals are visited in the order they start; an interval whose last use is the
+ * instruction where another starts gives its register up to it, as an instruction
+ * reads its registers before it writes. When every register is taken, the live
+ * interval which ends last is spilled: it is kept in a stack slot of its own for its
+ * whole life, loaded into a scratch register before each use and stored after its
+ * definition.
+ * </p>
+ *
+ * @author William Mork
+ */
+class RegisterAllocator {
+
+    /** The registers allocated, in the order they are preferred. */
+    static final String[] REGISTERS = {
+            "$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6", "$t7", "$t8", "$t9",
+            "$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7"};
+
+    /** Scratch registers holding spilled values for the instruction reading or writing them. */
+    static final String[] SCRATCH = {"$v0", "$v1"};
+
+    /** Marks a virtual register kept in a stack slot. */
+    private static final int SPILLED = -1;
+
+    /** The register of each virtual register, or SPILLED. */
+    private int[] register = new int[64];
+
+    /** The stack slot of each spilled virtual register. */
+    private int[] slot = new int[64];
+
+    /** The index of the instruction each interval starts at, or -1 if it is not mentioned. */
+    private int[] start = new int[64];
+
+    /** The index of the instruction each interval ends at. */
+    private int[] end = new int[64];
+
+    /** The virtual registers holding a register, at most one for each register. */
+    private final int[] active = new int[REGISTERS.length];
+
+    /** The number of stack slots used. */
+    private int slots;
+
+    /**
+     * Allocates the virtual registers of a run of instructions.
+     * @param code The instructions.
+     * @param registerCount The number of virtual registers, numbered from 0.
+     */
+    void allocate(ArrayList<Instruction> code, int registerCount) {
+        if (registerCount > register.length) {
+            int capacity = Math.max(register.length * 2, registerCount);
+            register = new int[capacity];
+            slot = new int[capacity];
+            start = new int[capacity];
+            end = new int[capacity];
+        }
+        Arrays.fill(start, 0, registerCount, -1);
+        for (int i = 0; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            mention(instruction.first, i);
+            mention(instruction.second, i);
+            mention(instruction.defined, i);
+        }
+
+        slots = 0;
+        int activeCount = 0;
+        // A set bit marks a free register.
+        int free = (1 << REGISTERS.length) - 1;
+        for (int i = 0; i < code.size(); i++) {
+            Instruction instruction = code.get(i);
+            for (int operand = 0; operand < 3; operand++) {
+                int virtual = operand == 0 ? instruction.first : operand == 1 ? instruction.second : instruction.defined;
+                if (virtual == Instruction.NONE || start[virtual] != i) {
+                    continue;
+                }
+                // Expire the intervals which have ended. The register written by an
+                // instruction may be one it reads for the last time.
+                int expired = virtual == instruction.defined ? i : i - 1;
+                for (int k = activeCount - 1; k >= 0; k--) {
+                    if (end[active[k]] <= expired) {
+                        free |= 1 << register[active[k]];
+                        active[k] = active[--activeCount];
+                    }
+                }
+                if (free != 0) {
+                    register[virtual] = Integer.numberOfTrailingZeros(free);
+                    free &= free - 1;
+                    active[activeCount++] = virtual;
+                    continue;
+                }
+                int last = 0;
+                for (int k = 1; k < activeCount; k++) {
+                    if (end[active[k]] > end[active[last]]) {
+                        last = k;
+                    }
+                }
+                if (end[active[last]] > end[virtual]) {
+                    register[virtual] = register[active[last]];
+                    spill(active[last]);
+                    active[last] = virtual;
+                } else {
+                    spill(virtual);
+                }
+            }
+        }
+    }
+
+    /**
+     * Extends the interval of a virtual register to an instruction which mentions it.
+     * @param virtual The virtual register, or NONE.
+     * @param index The index of the instruction.
+     */
+    private void mention(int virtual, int index) {
+        if (virtual != Instruction.NONE) {
+            if (start[virtual] < 0) {
+                start[virtual] = index;
+            }
+            end[virtual] = index;
+        }
+    }
+
+    /**
+     * Moves a virtual register to a stack slot of its own.
+     * @param virtual The virtual register.
+     */
+    private void spill(int virtual) {
+        register[virtual] = SPILLED;
+        slot[virtual] = slots++;
+    }
+
+    /**
+     * Returns true if a virtual register was spilled to the stack.
+     * @param virtual The virtual register.
+     * @return True if it is kept in a stack slot.
+     */
+    boolean isSpilled(int virtual) {
+        return register[virtual] == SPILLED;
+    }
+
+    /**
+     * Returns the register of a virtual register which was not spilled.
+     * @param virtual The virtual register.
+     * @return The name of the MIPS register.
+     */
+    String register(int virtual) {
+        return REGISTERS[register[virtual]];
+    }
+
+    /**
+     * Returns the stack slot of a spilled virtual register.
+     * @param virtual The virtual register.
+     * @return The slot, counting from 0 at the stack pointer.
+     */
+    int slot(int virtual) {
+        return slot[virtual];
+    }
+
+    /**
+     * Returns the number of stack slots the last allocation used.
+     * @return The slot count.
+     */
+    int getSlotCount() {
+        return slots;
+    }
+}
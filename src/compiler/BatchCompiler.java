@@ -0,0 +1,302 @@
+package compiler;
+
+import parser.Diagnostic;
+import parser.ParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles many Micro-Pascal files concurrently within a single JVM.
+ * <p>
+ * Each file is compiled by its own parser, semantic analyzer and code generator
+ * on a work-stealing thread pool. The output of each file is written to its own
+ * directory, named after the file, within the output directory.
+ * </p>
+ * <p>
+ * In check mode each file is only run through the production rules of the parser,
+ * and the errors which rejected each invalid file are printed instead of any output.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class BatchCompiler {
+
+    /** File extension of Micro-Pascal programs. */
+    private static final String PASCAL_EXTENSION = ".pas";
+
+    /** The command line options of the batch. */
+    private Options options;
+
+    /** The build cache, or null if no cache is used. */
+    private BuildCache cache;
+
+    /**
+     * Creates a batch compiler for the inputs of the given options.
+     * @param options The command line options.
+     */
+    public BatchCompiler(Options options) {
+        this.options = options;
+        this.cache = options.openCache();
+    }
+
+    /**
+     * Compiles every input file and prints a summary of the batch.
+     * @return True if every file compiled and passed semantic analysis.
+     */
+    public boolean run() {
+        ArrayList<Job> jobs = createJobs();
+        if (jobs.isEmpty()) {
+            System.out.println("Error: No Micro-Pascal files found.");
+            return false;
+        }
+
+        System.out.println((options.isCheck() ? "Checking " : "Compiling ") + count(jobs.size(), "file") + " using " + count(options.getJobs(), "thread") + "...");
+        ExecutorService pool = Executors.newWorkStealingPool(options.getJobs());
+        long batchStart = System.nanoTime();
+        ArrayList<Future<Result>> futures = new ArrayList<>();
+        for (Job job : jobs) {
+            futures.add(pool.submit(job));
+        }
+
+        ArrayList<Result> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                results.add(new Result(jobs.get(i).input, "ERROR", false, 0, null, null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("Error: Batch compilation was interrupted.");
+                pool.shutdownNow();
+                return false;
+            }
+        }
+        long batchTime = System.nanoTime() - batchStart;
+        pool.shutdown();
+
+        boolean success = printSummary(results, batchTime);
+        if (options.getTimings() != null) {
+            for (Result result : results) {
+                if (result.metrics != null) {
+                    CompilerMain.printTimings(result.metrics, result.input, options.getTimings());
+                }
+            }
+        }
+        if (cache != null) {
+            System.out.println(cache);
+        }
+        return success;
+    }
+
+    /**
+     * Expands the input files and directories into compile jobs, giving each
+     * file a unique output directory.
+     * @return The list of jobs.
+     */
+    private ArrayList<Job> createJobs() {
+        ArrayList<Job> jobs = new ArrayList<>();
+        HashSet<String> outputNames = new HashSet<>();
+        for (File input : options.getInputs()) {
+            ArrayList<File> files = new ArrayList<>();
+            if (input.isDirectory()) {
+                collectFiles(input, files);
+            } else {
+                files.add(input);
+            }
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(PASCAL_EXTENSION)) {
+                    name = name.substring(0, name.length() - PASCAL_EXTENSION.length());
+                }
+                String outputName = name;
+                for (int suffix = 2; !outputNames.add(outputName); suffix++) {
+                    outputName = name + "-" + suffix;
+                }
+                CompilationMetrics metrics = options.getTimings() == null || options.isCheck() ? null : new CompilationMetrics();
+                jobs.add(new Job(file, new File(options.getOutputDirectory(), outputName), options, cache, metrics));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Recursively adds the Micro-Pascal files within a directory to a list.
+     * @param directory The directory to search.
+     * @param files The list the files are added to.
+     */
+    private static void collectFiles(File directory, ArrayList<File> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectFiles(child, files);
+            } else if (child.getName().endsWith(PASCAL_EXTENSION)) {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * Prints the wall time of each file and the throughput of the batch.
+     * @param results The results of each compile job.
+     * @param batchTime The wall time of the whole batch in nanoseconds.
+     * @return True if every file compiled and passed semantic analysis, or was accepted in check mode.
+     */
+    private static boolean printSummary(ArrayList<Result> results, long batchTime) {
+        int failures = 0;
+        System.out.println();
+        System.out.println("BATCH SUMMARY:");
+        for (Result result : results) {
+            if (!result.success) {
+                failures++;
+            }
+            System.out.println(String.format("%-8s %10.3f ms\t%s", result.status, result.wallTime / 1e6, result.input.getPath()));
+            if (result.message != null) {
+                System.out.println("\t" + result.message.replace("\n", "\n\t"));
+            }
+        }
+        double seconds = batchTime / 1e9;
+        System.out.println(String.format("%s (%d failed) in %.3f s, %.1f files/sec",
+                count(results.size(), "file"), failures, seconds, results.size() / seconds));
+        return failures == 0;
+    }
+
+    /**
+     * Returns a count followed by a noun, which is plural unless the count is 1.
+     * @param count The count.
+     * @param noun The singular noun.
+     * @return For example "1 file" or "4 files".
+     */
+    private static String count(int count, String noun) {
+        return count + " " + noun + (count == 1 ? "" : "s");
+    }
+
+    /**
+     * Compiles a single file of the batch into its own output directory.
+     */
+    private static class Job implements Callable<Result> {
+
+        /** The file to compile. */
+        private File input;
+
+        /** The directory the output of the file is written to. */
+        private File outputDirectory;
+
+        /** The build cache, or null if no cache is used. */
+        private BuildCache cache;
+
+        /** The options which affect the compiler output. */
+        private Options options;
+
+        /** The metrics of the compile, or null if the compile is not measured. */
+        private CompilationMetrics metrics;
+
+        /**
+         * Creates a compile job.
+         * @param input The file to compile.
+         * @param outputDirectory The directory the output of the file is written to.
+         * @param options The options which affect the compiler output.
+         * @param cache The build cache, or null if no cache is used.
+         * @param metrics The metrics of the compile, or null if the compile is not measured.
+         */
+        Job(File input, File outputDirectory, Options options, BuildCache cache, CompilationMetrics metrics) {
+            this.input = input;
+            this.outputDirectory = outputDirectory;
+            this.options = options;
+            this.cache = cache;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Compiles the file and times it.
+         * @return The result of the compilation.
+         */
+        @Override
+        public Result call() {
+            long start = System.nanoTime();
+            String status;
+            String message = null;
+            boolean success = false;
+            try {
+                if (options.isCheck()) {
+                    List<Diagnostic> diagnostics = CompilerMain.check(input, options);
+                    success = diagnostics.isEmpty();
+                    status = success ? "OK" : "REJECTED";
+                    if (!success) {
+                        message = new ParseException(diagnostics).getMessage();
+                    }
+                } else {
+                    List<Diagnostic> diagnostics = new ArrayList<>();
+                    success = CompilerMain.compile(input, outputDirectory, options, cache, metrics, diagnostics);
+                    status = success ? "OK" : "SEMANTIC";
+                    if (!diagnostics.isEmpty()) {
+                        message = new ParseException(diagnostics).getMessage();
+                    }
+                }
+            } catch (IOException e) {
+                status = "IO-ERROR";
+            } catch (ParseException e) {
+                status = "PARSE";
+                message = e.getMessage();
+            } catch (RuntimeException e) {
+                status = "ERROR";
+            }
+            return new Result(input, status, success, System.nanoTime() - start, metrics, message);
+        }
+    }
+
+    /**
+     * The outcome of a single compile job.
+     */
+    private static class Result {
+
+        /** The compiled file. */
+        private File input;
+
+        /** Short description of the outcome. */
+        private String status;
+
+        /** True if the file compiled and passed semantic analysis. */
+        private boolean success;
+
+        /** Wall time of the compilation in nanoseconds. */
+        private long wallTime;
+
+        /** The metrics of the compile, or null if the compile was not measured. */
+        private CompilationMetrics metrics;
+
+        /** The errors which rejected the file, one per line, or null. */
+        private String message;
+
+        /**
+         * Creates a result.
+         * @param input The compiled file.
+         * @param status Short description of the outcome.
+         * @param success True if the file compiled and passed semantic analysis.
+         * @param wallTime Wall time of the compilation in nanoseconds.
+         * @param metrics The metrics of the compile, or null if the compile was not measured.
+         * @param message The errors which rejected the file, one per line, or null.
+         */
+        Result(File input, String status, boolean success, long wallTime, CompilationMetrics metrics, String message) {
+            this.input = input;
+            this.status = status;
+            this.success = success;
+            this.wallTime = wallTime;
+            this.metrics = metrics;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An on-disk cache of compiler output files, keyed by a hash of the source file,
+ * the compiler version and the options that affect the output.
+ * <p>
+ * Each entry is a directory, named after its key, holding the output files of one
+ * successful compile, including the intermediate representation if it was asked
+ * for. On a hit the cached files are copied to the output directory without running
+ * the compiler. The total size of the cache is bounded; when it is exceeded the
+ * least recently used entries are evicted.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class BuildCache {
+
+    /** Output files stored in every cache entry. */
+    private static final String[] ARTIFACTS = {
+            CompilerMain.SYMBOL_TABLE_FILE, CompilerMain.SYNTAX_TREE_FILE, CompilerMain.ASSEMBLY_FILE};
+
+    /** Directory holding the cache entries. */
+    private File directory;
+
+    /** Maximum total size of the cache entries in bytes. */
+    private long maxSize;
+
+    /** Size in bytes of each entry, by key. */
+    private HashMap<String, Long> entrySizes = new HashMap<>();
+
+    /** Total size in bytes of all entries. */
+    private long totalSize = 0;
+
+    /** Number of compiles answered from the cache. */
+    private AtomicLong hits = new AtomicLong();
+
+    /** Number of compiles not found in the cache. */
+    private AtomicLong misses = new AtomicLong();
+
+    /** Number of entries evicted from the cache. */
+    private AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Opens a build cache in the given directory, creating it if needed.
+     * @param directory The directory holding the cache entries.
+     * @param maxSize Maximum total size of the cache entries in bytes.
+     */
+    public BuildCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        directory.mkdirs();
+        File[] entries = directory.listFiles(File::isDirectory);
+        if (entries != null) {
+            for (File entry : entries) {
+                if (entry.getName().contains(".tmp")) {
+                    // Left behind by a compile that was interrupted while storing.
+                    deleteEntry(entry);
+                } else if (isComplete(entry)) {
+                    long size = sizeOf(entry);
+                    entrySizes.put(entry.getName(), size);
+                    totalSize += size;
+                }
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Computes the cache key of a source file.
+     * @param inputFile The Micro-Pascal source file.
+     * @param optionKey A description of the options which affect the compiler output.
+     * @return The hexadecimal SHA-256 hash of the source, compiler version and options.
+     * @throws IOException If the source file can not be read.
+     */
+    public String key(File inputFile, String optionKey) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        digest.update(CompilerMain.VERSION.getBytes("UTF-8"));
+        digest.update((byte) 0);
+        digest.update(optionKey.getBytes("UTF-8"));
+        digest.update((byte) 0);
+        digest.update(Files.readAllBytes(inputFile.toPath()));
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Copies every cached output file of a key into an output directory.
+     * @param key The cache key of the source file.
+     * @param outputDirectory The directory the output files are copied to.
+     * @return True on a cache hit; false if the key is not cached.
+     */
+    public boolean restore(String key, File outputDirectory) {
+        File entry = new File(directory, key);
+        synchronized (this) {
+            if (!entrySizes.containsKey(key)) {
+                misses.incrementAndGet();
+                return false;
+            }
+            // The modification time of an entry records its last use.
+            entry.setLastModified(System.currentTimeMillis());
+        }
+        try {
+            File[] artifacts = entry.listFiles(File::isFile);
+            if (artifacts == null) {
+                throw new IOException("Cache entry " + key + " is missing.");
+            }
+            outputDirectory.mkdirs();
+            for (File artifact : artifacts) {
+                Files.copy(artifact.toPath(), new File(outputDirectory, artifact.getName()).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // The entry was evicted or damaged underneath us; compile instead.
+            misses.incrementAndGet();
+            return false;
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stores the output files of a successful compile, evicting the least recently
+     * used entries if the cache grows past its maximum size.
+     * @param key The cache key of the source file.
+     * @param outputDirectory The directory holding the output files.
+     * @param options The options the output was compiled with, which select the output files stored.
+     */
+    public void store(String key, File outputDirectory, Options options) {
+        File entry = new File(directory, key);
+        File temporary = new File(directory, key + ".tmp" + Thread.currentThread().getId());
+        ArrayList<String> artifacts = new ArrayList<>(Arrays.asList(ARTIFACTS));
+        if (options.isEmitIr()) {
+            artifacts.add(CompilerMain.IR_FILE);
+        }
+        try {
+            temporary.mkdirs();
+            for (String artifact : artifacts) {
+                Files.copy(new File(outputDirectory, artifact).toPath(), new File(temporary, artifact).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (this) {
+                if (entrySizes.containsKey(key) || !temporary.renameTo(entry)) {
+                    deleteEntry(temporary);
+                    return;
+                }
+                long size = sizeOf(entry);
+                entrySizes.put(key, size);
+                totalSize += size;
+                evict();
+            }
+        } catch (IOException e) {
+            deleteEntry(temporary);
+        }
+    }
+
+    /**
+     * Removes least recently used entries until the cache fits within its maximum size.
+     */
+    private synchronized void evict() {
+        if (totalSize <= maxSize) {
+            return;
+        }
+        ArrayList<File> entries = new ArrayList<>();
+        for (String key : entrySizes.keySet()) {
+            entries.add(new File(directory, key));
+        }
+        entries.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File entry : entries) {
+            if (totalSize <= maxSize) {
+                break;
+            }
+            totalSize -= entrySizes.remove(entry.getName());
+            deleteEntry(entry);
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns true if an entry directory holds every output file which is always stored.
+     * @param entry The entry directory.
+     * @return True if the entry is complete.
+     */
+    private static boolean isComplete(File entry) {
+        for (String artifact : ARTIFACTS) {
+            if (!new File(entry, artifact).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the total size of the files in an entry directory.
+     * @param entry The entry directory.
+     * @return The size in bytes.
+     */
+    private static long sizeOf(File entry) {
+        long size = 0;
+        File[] artifacts = entry.listFiles(File::isFile);
+        if (artifacts != null) {
+            for (File artifact : artifacts) {
+                size += artifact.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Deletes an entry directory and the files within it.
+     * @param entry The entry directory.
+     */
+    private static void deleteEntry(File entry) {
+        File[] files = entry.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        entry.delete();
+    }
+
+    /**
+     * Returns the number of compiles answered from the cache.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of compiles not found in the cache.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted from the cache.
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the total size of the cache entries.
+     * @return The size in bytes.
+     */
+    public synchronized long getSize() {
+        return totalSize;
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     * @return The hit, miss and eviction counts and size of the cache.
+     */
+    @Override
+    public synchronized String toString() {
+        return "Build cache: " + hits.get() + " hits, " + misses.get() + " misses, " + evictions.get()
+                + " evictions, " + entrySizes.size() + " entries (" + totalSize / 1024 + " KB of " + maxSize / 1024 + " KB)";
+    }
+}
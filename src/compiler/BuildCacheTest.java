@@ -0,0 +1,137 @@
+package compiler;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class contains JUnit testing for the build cache.
+ *
+ * @author William Mork
+ */
+public class BuildCacheTest {
+
+    /**
+     * Tests that the output of a stored compile is restored on the next compile of
+     * the same source with the same options, and that the hit is counted.
+     *
+     * @result The test fails if the compile misses the cache or restores different output.
+     */
+    @Test
+    public void hitTest() throws IOException {
+        System.out.println("Testing build cache hits...");
+        File root = Files.createTempDirectory("cache").toFile();
+        File input = new File("src/pascal/money.pas");
+        File output = new File(root, "output");
+        File restored = new File(root, "restored");
+        BuildCache cache = new BuildCache(new File(root, "cache"), 1 << 20);
+        Options options = new Options();
+
+        Assertions.assertTrue(CompilerMain.compile(input, output, options, cache, null));
+        Assertions.assertEquals(0, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+
+        Assertions.assertTrue(CompilerMain.compile(input, restored, options, cache, null));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+        for (String artifact : new String[] {CompilerMain.SYMBOL_TABLE_FILE, CompilerMain.SYNTAX_TREE_FILE, CompilerMain.ASSEMBLY_FILE}) {
+            Assertions.assertArrayEquals(Files.readAllBytes(new File(output, artifact).toPath()),
+                    Files.readAllBytes(new File(restored, artifact).toPath()));
+        }
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that a compile misses the cache once its source or the options which
+     * affect its output change.
+     *
+     * @result The test fails if a changed source or option is answered from the cache.
+     */
+    @Test
+    public void missTest() throws IOException {
+        System.out.println("Testing build cache misses...");
+        File root = Files.createTempDirectory("cache").toFile();
+        File input = new File(root, "money.pas");
+        Files.copy(new File("src/pascal/money.pas").toPath(), input.toPath());
+        File output = new File(root, "output");
+        BuildCache cache = new BuildCache(new File(root, "cache"), 1 << 20);
+
+        String key = cache.key(input, new Options().getOutputKey());
+        cache.store(key, compile(input, output, new Options()), new Options());
+        Assertions.assertTrue(cache.restore(key, output));
+
+        Options emitIr = Options.parse(new String[] {"--emit-ir", input.getPath()});
+        Assertions.assertNotEquals(key, cache.key(input, emitIr.getOutputKey()));
+        Assertions.assertFalse(cache.restore(cache.key(input, emitIr.getOutputKey()), output));
+
+        Files.write(input.toPath(), "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Assertions.assertNotEquals(key, cache.key(input, new Options().getOutputKey()));
+        Assertions.assertFalse(cache.restore(cache.key(input, new Options().getOutputKey()), output));
+
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(2, cache.getMisses());
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that the size of an entry counts every file stored in it, and that the
+     * least recently used entries are evicted first once the cache is full.
+     *
+     * @result The test fails if the wrong entry is evicted or the cache outgrows its maximum size.
+     */
+    @Test
+    public void evictionTest() throws IOException {
+        System.out.println("Testing build cache eviction...");
+        File root = Files.createTempDirectory("cache").toFile();
+        File input = new File("src/pascal/money.pas");
+        Options options = Options.parse(new String[] {"--emit-ir", input.getPath()});
+        File output = compile(input, new File(root, "output"), options);
+        long entrySize = 0;
+        for (File artifact : output.listFiles()) {
+            entrySize += artifact.length();
+        }
+
+        // Room for two entries but not three.
+        File directory = new File(root, "cache");
+        BuildCache cache = new BuildCache(directory, entrySize * 5 / 2);
+        cache.store("a", output, options);
+        cache.store("b", output, options);
+        Assertions.assertEquals(2 * entrySize, cache.getSize());
+
+        long now = System.currentTimeMillis();
+        new File(directory, "a").setLastModified(now - 20000);
+        new File(directory, "b").setLastModified(now - 10000);
+        // Using the older entry makes the other the least recently used.
+        Assertions.assertTrue(cache.restore("a", new File(root, "restored")));
+        cache.store("c", output, options);
+
+        Assertions.assertEquals(1, cache.getEvictions());
+        Assertions.assertTrue(cache.restore("a", new File(root, "restored")));
+        Assertions.assertFalse(cache.restore("b", new File(root, "restored")));
+        Assertions.assertTrue(cache.restore("c", new File(root, "restored")));
+        Assertions.assertEquals(2 * entrySize, cache.getSize());
+
+        // Reopening the cache counts the same entries at the same size.
+        Assertions.assertEquals(2 * entrySize, new BuildCache(directory, entrySize * 5 / 2).getSize());
+        System.out.println("Success!");
+    }
+
+    /**
+     * Compiles a file without the cache.
+     * @param input The file to compile.
+     * @param output The directory the output files are written to.
+     * @param options The options which affect the compiler output.
+     * @return The output directory.
+     * @throws IOException If a file can not be read or written.
+     */
+    private static File compile(File input, File output, Options options) throws IOException {
+        output.mkdirs();
+        Assertions.assertTrue(CompilerMain.compile(input, output, options, null, null));
+        return output;
+    }
+}
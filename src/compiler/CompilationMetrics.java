@@ -0,0 +1,339 @@
+package compiler;
+
+import parser.Parser;
+import syntaxtree.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+
+/**
+ * Records the cost of each phase of a compilation: wall time, CPU time and bytes
+ * allocated by the compiling thread, along with the number of tokens, syntax tree
+ * nodes, symbols and instructions the compilation produced.
+ * <p>
+ * Phases are timed on the thread that runs them, so a metrics object belongs to
+ * a single compilation and must not be shared between threads.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class CompilationMetrics {
+
+    /** Source of per-thread CPU time and allocation counters. */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** The completed phases, in the order they ran. */
+    private ArrayList<Phase> phases = new ArrayList<>();
+
+    /** The phase currently running, or null. */
+    private Phase current;
+
+    /** Size of the source program in bytes. */
+    private long sourceBytes;
+
+    /** Number of tokens read by the parser. */
+    private long tokens;
+
+    /** Number of nodes in the syntax tree. */
+    private long nodes;
+
+    /** Number of symbols in the symbol table. */
+    private long symbols;
+
+    /** Number of MIPS instructions generated. */
+    private long instructions;
+
+    /**
+     * Starts timing a phase, ending the current phase if one is running.
+     * @param name The name of the phase.
+     */
+    public void begin(String name) {
+        if (current != null) {
+            end();
+        }
+        current = new Phase(name);
+        current.wallTime = -System.nanoTime();
+        current.cpuTime = -cpuTime();
+        current.allocatedBytes = -allocatedBytes();
+    }
+
+    /**
+     * Stops timing the current phase.
+     */
+    public void end() {
+        if (current == null) {
+            return;
+        }
+        current.wallTime += System.nanoTime();
+        current.cpuTime += cpuTime();
+        current.allocatedBytes += allocatedBytes();
+        phases.add(current);
+        current = null;
+    }
+
+    /**
+     * Returns true if a phase is being timed.
+     * @return True if a phase has begun and not yet ended.
+     */
+    public boolean isRunning() {
+        return current != null;
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     * @return CPU time in nanoseconds, or 0 if it can not be measured.
+     */
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread.
+     * @return Allocated bytes, or 0 if allocation can not be measured.
+     */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the CPU time of a phase.
+     * @param name The name of the phase.
+     * @return CPU time in nanoseconds over every run of the phase, or 0 if it has not run.
+     */
+    public long getCpuTime(String name) {
+        long cpuTime = 0;
+        for (Phase phase : phases) {
+            if (phase.name.equals(name)) {
+                cpuTime += phase.cpuTime;
+            }
+        }
+        return cpuTime;
+    }
+
+    /**
+     * Returns the number of bytes allocated during a phase.
+     * @param name The name of the phase.
+     * @return Allocated bytes over every run of the phase, or 0 if it has not run.
+     */
+    public long getAllocatedBytes(String name) {
+        long allocatedBytes = 0;
+        for (Phase phase : phases) {
+            if (phase.name.equals(name)) {
+                allocatedBytes += phase.allocatedBytes;
+            }
+        }
+        return allocatedBytes;
+    }
+
+    /**
+     * Sets the size of the source program.
+     * @param sourceBytes The size of the source in bytes.
+     */
+    public void setSourceBytes(long sourceBytes) {
+        this.sourceBytes = sourceBytes;
+    }
+
+    /**
+     * Records the number of tokens, syntax tree nodes, symbols and instructions
+     * produced by a compilation.
+     * @param parser The parser which read the program.
+     * @param root The root node of the syntax tree.
+     * @param instructions The number of MIPS instructions generated.
+     */
+    public void count(Parser parser, ProgramNode root, long instructions) {
+        this.tokens = parser.getTokenCount();
+        this.symbols = parser.getSymbolTable().size();
+        this.nodes = count(root);
+        this.instructions = instructions;
+    }
+
+    /**
+     * Counts a node and its children.
+     * @param node A syntax tree node, or null.
+     * @return The number of nodes.
+     */
+    private static long count(SyntaxTreeNode node) {
+        NodeCounter counter = new NodeCounter();
+        counter.count(node);
+        return counter.count;
+    }
+
+    /**
+     * Counts nodes as they are visited. The variables of a declarations node and the
+     * subprograms of a subprogram declarations node are counted without being visited.
+     */
+    private static class NodeCounter implements SyntaxTreeVisitor<Void, RuntimeException> {
+
+        /** The number of nodes counted. */
+        long count;
+
+        /**
+         * Counts a node and its children.
+         * @param node A syntax tree node, or null.
+         */
+        void count(SyntaxTreeNode node) {
+            if (node != null) {
+                count++;
+                node.accept(this);
+            }
+        }
+
+        @Override
+        public Void visit(ProgramNode node) {
+            count(node.getDeclarations());
+            count(node.getSubProgramDeclarations());
+            count(node.getCompoundStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(DeclarationsNode node) {
+            count += node.getVariables().size();
+            return null;
+        }
+
+        @Override
+        public Void visit(SubProgramDeclarationsNode node) {
+            count += node.getProcs().size();
+            return null;
+        }
+
+        @Override
+        public Void visit(CompoundStatementNode node) {
+            for (StatementNode statement : node.getStatements()) {
+                count(statement);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(AssignmentStatementNode node) {
+            count(node.getLvalue());
+            count(node.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visit(IfStatementNode node) {
+            count(node.getTest());
+            count(node.getThenStatement());
+            count(node.getElseStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(WhileStatementNode node) {
+            count(node.getTest());
+            count(node.getDoStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(OperationNode node) {
+            count(node.getLeft());
+            count(node.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visit(UnaryOperationNode node) {
+            count(node.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(ArrayNode node) {
+            count(node.getExpressionNode());
+            return null;
+        }
+
+        @Override
+        public Void visit(FunctionNode node) {
+            for (ExpressionNode argument : node.getArgs()) {
+                count(argument);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Formats the metrics as a table with one row per phase.
+     * @return The metrics table.
+     */
+    public String toTable() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%-20s %12s %12s %14s%n", "PHASE", "WALL (ms)", "CPU (ms)", "ALLOCATED (KB)"));
+        Phase total = new Phase("total");
+        for (Phase phase : phases) {
+            table.append(String.format("%-20s %12.3f %12.3f %14d%n", phase.name,
+                    phase.wallTime / 1e6, phase.cpuTime / 1e6, phase.allocatedBytes / 1024));
+            total.wallTime += phase.wallTime;
+            total.cpuTime += phase.cpuTime;
+            total.allocatedBytes += phase.allocatedBytes;
+        }
+        table.append(String.format("%-20s %12.3f %12.3f %14d%n", total.name,
+                total.wallTime / 1e6, total.cpuTime / 1e6, total.allocatedBytes / 1024));
+        table.append(String.format("source: %d bytes (%.2f MB/s), tokens: %d, nodes: %d, symbols: %d, instructions: %d%n",
+                sourceBytes, sourceBytes / (total.wallTime / 1e9) / (1024 * 1024), tokens, nodes, symbols, instructions));
+        return table.toString();
+    }
+
+    /**
+     * Formats the metrics as a single line JSON object.
+     * @param file The name of the compiled file.
+     * @return The metrics in JSON.
+     */
+    public String toJson(String file) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"file\":\"").append(file.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\"phases\":[");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"").append(phase.name)
+                    .append("\",\"wallNanos\":").append(phase.wallTime)
+                    .append(",\"cpuNanos\":").append(phase.cpuTime)
+                    .append(",\"allocatedBytes\":").append(phase.allocatedBytes).append('}');
+        }
+        json.append("],\"sourceBytes\":").append(sourceBytes)
+                .append(",\"tokens\":").append(tokens)
+                .append(",\"nodes\":").append(nodes)
+                .append(",\"symbols\":").append(symbols)
+                .append(",\"instructions\":").append(instructions).append('}');
+        return json.toString();
+    }
+
+    /**
+     * The measured cost of one phase.
+     */
+    private static class Phase {
+
+        /** The name of the phase. */
+        private String name;
+
+        /** Wall time in nanoseconds. */
+        private long wallTime;
+
+        /** CPU time in nanoseconds. */
+        private long cpuTime;
+
+        /** Bytes allocated by the compiling thread. */
+        private long allocatedBytes;
+
+        /**
+         * Creates a phase.
+         * @param name The name of the phase.
+         */
+        Phase(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package compiler;
+
+import parser.Diagnostic;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+
+import java.util.List;
+
+/**
+ * The outcome of compiling a program with {@link Compiler}: the syntax tree,
+ * the symbol table, the MIPS assembly, every error found and the cost of each phase.
+ * <p>
+ * A program with syntax errors has a partial syntax tree and no assembly. A program
+ * which fails semantic analysis still has its assembly generated, as the compiler
+ * always has.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class CompilationResult {
+
+    /** The root of the syntax tree. */
+    private final ProgramNode program;
+
+    /** The symbol table built by the parser. */
+    private final SymbolTable symbolTable;
+
+    /** The generated MIPS assembly, or null if the program could not be parsed or its assembly was written to a file. */
+    private final String assembly;
+
+    /** The syntax and semantic errors found in the program. */
+    private final List<Diagnostic> diagnostics;
+
+    /** The cost of each phase of the compilation. */
+    private final CompilationMetrics metrics;
+
+    /**
+     * Creates a compilation result.
+     * @param program The root of the syntax tree.
+     * @param symbolTable The symbol table built by the parser.
+     * @param assembly The generated MIPS assembly, or null if the program could not be parsed or its assembly was written to a file.
+     * @param diagnostics The syntax and semantic errors found in the program.
+     * @param metrics The cost of each phase of the compilation.
+     */
+    public CompilationResult(ProgramNode program, SymbolTable symbolTable, String assembly,
+                             List<Diagnostic> diagnostics, CompilationMetrics metrics) {
+        this.program = program;
+        this.symbolTable = symbolTable;
+        this.assembly = assembly;
+        this.diagnostics = diagnostics;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the root of the syntax tree.
+     * @return The program node, partial if the program has syntax errors.
+     */
+    public ProgramNode getProgram() {
+        return program;
+    }
+
+    /**
+     * Returns the symbol table built by the parser.
+     * @return The symbol table.
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Returns the generated MIPS assembly.
+     * @return The assembly, or null if the program could not be parsed or its assembly was written to a file.
+     */
+    public String getAssembly() {
+        return assembly;
+    }
+
+    /**
+     * Returns the syntax and semantic errors found in the program.
+     * @return The diagnostics, empty if the program compiled cleanly.
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Returns the cost of each phase of the compilation.
+     * @return The metrics.
+     */
+    public CompilationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns true if the program parsed and passed semantic analysis.
+     * @return True if no errors were found.
+     */
+    public boolean isSuccess() {
+        return diagnostics.isEmpty();
+    }
+}
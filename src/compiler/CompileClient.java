@@ -0,0 +1,129 @@
+package compiler;
+
+import parser.Diagnostic;
+import parser.ParseException;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Thin command line client of the compile daemon. Sends each input file and the compile
+ * options of the client to a running daemon, which writes the output files as the command
+ * line compiler would, and prints the diagnostics it returns. If no daemon is running the file is compiled in-process.
+ *
+ * @author William Mork
+ */
+public class CompileClient {
+
+    /** The command line options of the client. */
+    private Options options;
+
+    /**
+     * Creates a compile daemon client.
+     * @param options The command line options.
+     */
+    public CompileClient(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * Sends every input file, or a shutdown request, to the daemon.
+     * @return True if every file compiled and passed semantic analysis.
+     */
+    public boolean run() {
+        if (options.isStopDaemon()) {
+            try {
+                request(CompileDaemon.SHUTDOWN + "\n\n");
+                System.out.println("Compile daemon stopped.");
+                return true;
+            } catch (IOException e) {
+                System.out.println("Error: No compile daemon is listening on port " + options.getPort() + ".");
+                return false;
+            }
+        }
+
+        boolean success = true;
+        File outputDirectory = options.getOutputDirectory().getAbsoluteFile();
+        String compileOptions = String.join(" ", options.getCompileArguments());
+        for (File input : options.getInputs()) {
+            String request = CompileDaemon.FILE + " " + input.getAbsolutePath() + "\n"
+                    + CompileDaemon.OUTPUT + " " + outputDirectory.getPath() + "\n"
+                    + CompileDaemon.OPTIONS + " " + compileOptions + "\n\n";
+            try {
+                System.out.println("Compiling " + input + "...");
+                success &= request(request);
+            } catch (ConnectException e) {
+                System.out.println("No compile daemon is listening on port " + options.getPort() + ". Compiling in-process...");
+                success &= compileInProcess(input, outputDirectory);
+            } catch (IOException e) {
+                System.out.println("Error: Compile request for " + input + " failed.");
+                success = false;
+            }
+        }
+        if (success) {
+            System.out.println("The output files can be found in the " + options.getOutputDirectory() + "/ directory.");
+        }
+        return success;
+    }
+
+    /**
+     * Compiles a file in this process with the options of the client, printing the
+     * same diagnostics the daemon would return.
+     * @param input The file to compile.
+     * @param outputDirectory The directory the output files are written to.
+     * @return True if the file compiled and passed semantic analysis.
+     */
+    private boolean compileInProcess(File input, File outputDirectory) {
+        CompilationMetrics metrics = options.getTimings() == null ? null : new CompilationMetrics();
+        ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+        try {
+            boolean success = CompilerMain.compile(input, outputDirectory, options, null, metrics, diagnostics);
+            for (Diagnostic diagnostic : diagnostics) {
+                System.out.println(diagnostic);
+            }
+            if (metrics != null) {
+                CompilerMain.printTimings(metrics, input, options.getTimings());
+            }
+            return success;
+        } catch (ParseException e) {
+            for (Diagnostic diagnostic : e.getDiagnostics()) {
+                System.out.println("Parse error: " + diagnostic);
+            }
+        } catch (IOException e) {
+            System.out.println("Error exporting output files.");
+        }
+        return false;
+    }
+
+    /**
+     * Sends a request to the daemon and prints its diagnostics.
+     * @param request The request text.
+     * @return True if the daemon reported success.
+     * @throws IOException If the daemon can not be reached.
+     */
+    private boolean request(String request) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), options.getPort());
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.write(request);
+            out.flush();
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(CompileDaemon.DIAGNOSTIC + " ")) {
+                    System.out.println(line.substring(CompileDaemon.DIAGNOSTIC.length() + 1));
+                } else if (line.startsWith(CompileDaemon.ARTIFACT + " ")) {
+                    String[] header = line.split(" ");
+                    CompileDaemon.readChars(in, Integer.parseInt(header[2]));
+                } else if (line.startsWith(CompileDaemon.STATUS + " ")) {
+                    return line.endsWith(" OK");
+                }
+            }
+            return false;
+        }
+    }
+}
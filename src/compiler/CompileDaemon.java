@@ -0,0 +1,307 @@
+package compiler;
+
+import codegen.CodeGeneration;
+import parser.Diagnostic;
+import parser.ParseException;
+import parser.Parser;
+import syntaxtree.SyntaxTreePrinter;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A long-lived compile server which keeps the compiler loaded and warm between compiles.
+ * <p>
+ * The daemon listens on a loopback port and answers one compile request per connection.
+ * A request is a set of header lines ended by an empty line:
+ * </p>
+ * <pre>
+ * FILE /absolute/path/program.pas     compile a file, or
+ * SOURCE 42                           compile the 42 characters following the header
+ * OUTPUT /absolute/path/output        optional; write the output files into this directory
+ * OPTIONS --tree-format json --emit-ir optional; the compile options of the client
+ * </pre>
+ * <p>
+ * The response is a list of <code>DIAGNOSTIC message</code> lines, one per syntax or
+ * semantic error and one per line of any requested timings, followed by an
+ * <code>ARTIFACT name length</code> line and its contents for each output file that was
+ * not written to an output directory, and ends with <code>STATUS OK</code> or
+ * <code>STATUS FAILED</code>. A request consisting of the single line <code>SHUTDOWN</code>
+ * stops the daemon.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class CompileDaemon {
+
+    /** Default loopback port of the daemon. */
+    public static final int DEFAULT_PORT = 7450;
+
+    /** Request header naming a file to compile. */
+    static final String FILE = "FILE";
+
+    /** Request header preceding inline source code. */
+    static final String SOURCE = "SOURCE";
+
+    /** Request header naming the output directory. */
+    static final String OUTPUT = "OUTPUT";
+
+    /** Request header carrying the compile options of the client. */
+    static final String OPTIONS = "OPTIONS";
+
+    /** Request which stops the daemon. */
+    static final String SHUTDOWN = "SHUTDOWN";
+
+    /** Response line carrying a diagnostic message. */
+    static final String DIAGNOSTIC = "DIAGNOSTIC";
+
+    /** Response line preceding the contents of an output file. */
+    static final String ARTIFACT = "ARTIFACT";
+
+    /** Final response line. */
+    static final String STATUS = "STATUS";
+
+    /** Program compiled at startup to load and JIT the compiler classes. */
+    private static final String WARM_UP_PROGRAM = "program warmup;\nvar a, b: integer;\nbegin\na := 1;\nb := a * 2 + 3\nend\n.\n";
+
+    /** The command line options of the daemon, used for requests which carry no options of their own. */
+    private Options options;
+
+    /** Server socket accepting compile requests. */
+    private ServerSocket serverSocket;
+
+    /** The build cache used for file requests, or null if no cache is used. */
+    private BuildCache cache;
+
+    /**
+     * Creates a compile daemon.
+     * @param options The command line options.
+     */
+    public CompileDaemon(Options options) {
+        this.options = options;
+        this.cache = options.openCache();
+    }
+
+    /**
+     * Warms up the compiler and serves compile requests until a shutdown request arrives.
+     */
+    public void run() {
+        warmUp();
+        ExecutorService workers = Executors.newFixedThreadPool(options.getJobs());
+        try {
+            serverSocket = new ServerSocket(options.getPort(), 50, InetAddress.getLoopbackAddress());
+            System.out.println("Compile daemon listening on " + serverSocket.getLocalSocketAddress() + ".");
+            while (!serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    // The socket is closed by a shutdown request.
+                    break;
+                }
+                workers.submit(() -> serve(socket));
+            }
+        } catch (IOException e) {
+            System.out.println("Error: Compile daemon could not listen on port " + options.getPort() + ".");
+        } finally {
+            // Let the compiles in progress finish writing their output.
+            workers.shutdown();
+            try {
+                while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                    System.out.println("Waiting for compiles in progress...");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                workers.shutdownNow();
+            }
+        }
+        System.out.println("Compile daemon stopped.");
+    }
+
+    /**
+     * Compiles a small program so that class loading, scanner table unpacking
+     * and JIT compilation are done before the first request arrives.
+     */
+    private static void warmUp() {
+        try {
+            for (int i = 0; i < 100; i++) {
+                compileToArtifacts(new Parser(WARM_UP_PROGRAM), new ArrayList<>(), new Options(), new CompilationMetrics());
+            }
+        } catch (IOException e) {
+            // The output files are printed to strings, which can not fail.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a request from a connection, compiles it and writes the response.
+     * @param socket The client connection.
+     */
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            File inputFile = null;
+            String source = null;
+            File outputDirectory = null;
+            Options requestOptions = options;
+
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                if (line.equals(SHUTDOWN)) {
+                    out.write(STATUS + " OK\n");
+                    out.flush();
+                    serverSocket.close();
+                    return;
+                } else if (line.startsWith(FILE + " ")) {
+                    inputFile = new File(line.substring(FILE.length() + 1));
+                } else if (line.startsWith(OUTPUT + " ")) {
+                    outputDirectory = new File(line.substring(OUTPUT.length() + 1));
+                } else if (line.startsWith(OPTIONS + " ")) {
+                    requestOptions = Options.parse(line.substring(OPTIONS.length() + 1).trim().split(" +"));
+                } else if (line.startsWith(SOURCE + " ")) {
+                    source = readChars(in, Integer.parseInt(line.substring(SOURCE.length() + 1)));
+                }
+            }
+            respond(out, inputFile, source, outputDirectory, requestOptions);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: Compile request failed: " + e);
+        }
+    }
+
+    /**
+     * Compiles a request and writes the response.
+     * @param out The response stream.
+     * @param inputFile The file to compile, or null for inline source.
+     * @param source The inline source, or null to compile a file.
+     * @param outputDirectory The directory to write output files to, or null to return them in the response.
+     * @param requestOptions The options of the request.
+     * @throws IOException If the response can not be written.
+     */
+    private void respond(Writer out, File inputFile, String source, File outputDirectory, Options requestOptions) throws IOException {
+        ArrayList<String> diagnostics = new ArrayList<>();
+        boolean success = false;
+
+        if (inputFile == null && source == null) {
+            diagnostics.add("Request names neither a FILE nor a SOURCE.");
+        } else if (inputFile != null && !inputFile.isFile()) {
+            diagnostics.add("Input file " + inputFile + " could not be located.");
+        } else {
+            CompilationMetrics metrics = requestOptions.getTimings() == null ? null : new CompilationMetrics();
+            try {
+                if (outputDirectory != null) {
+                    ArrayList<Diagnostic> errors = new ArrayList<>();
+                    if (inputFile != null) {
+                        success = CompilerMain.compile(inputFile, outputDirectory, requestOptions, cache, metrics, errors);
+                    } else {
+                        CompilationResult result = Compiler.compile(new Parser(source), outputDirectory, requestOptions, metrics);
+                        errors.addAll(result.getDiagnostics());
+                        success = result.isSuccess();
+                    }
+                    for (Diagnostic error : errors) {
+                        diagnostics.add(error.toString());
+                    }
+                } else {
+                    Parser parser = inputFile != null ? CompilerMain.createParser(inputFile, requestOptions) : new Parser(source);
+                    LinkedHashMap<String, String> artifacts = compileToArtifacts(parser, diagnostics, requestOptions,
+                            metrics != null ? metrics : new CompilationMetrics());
+                    success = diagnostics.isEmpty();
+                    for (Map.Entry<String, String> artifact : artifacts.entrySet()) {
+                        writeArtifact(out, artifact.getKey(), artifact.getValue());
+                    }
+                }
+                if (metrics != null) {
+                    String timings = CompilerMain.formatTimings(metrics, inputFile != null ? inputFile : new File(SOURCE),
+                            requestOptions.getTimings());
+                    for (String line : timings.split("\n")) {
+                        diagnostics.add(line);
+                    }
+                }
+            } catch (ParseException e) {
+                for (Diagnostic diagnostic : e.getDiagnostics()) {
+                    diagnostics.add("Parse error: " + diagnostic);
+                }
+            }
+        }
+
+        for (String diagnostic : diagnostics) {
+            out.write(DIAGNOSTIC + " " + diagnostic + "\n");
+        }
+        out.write(STATUS + (success ? " OK" : " FAILED") + "\n");
+        out.flush();
+    }
+
+    /**
+     * Compiles a program into the contents of its output files.
+     * @param parser A parser positioned at the start of a program.
+     * @param diagnostics The list semantic errors are added to.
+     * @param requestOptions The options which affect the compiler output.
+     * @param metrics The metrics each phase is recorded in.
+     * @return The contents of each output file by its name, in the order they are sent.
+     * @throws ParseException If the program has any syntax errors.
+     * @throws IOException If the syntax tree can not be printed.
+     */
+    private static LinkedHashMap<String, String> compileToArtifacts(Parser parser, ArrayList<String> diagnostics,
+                                                                    Options requestOptions, CompilationMetrics metrics) throws IOException {
+        CompilationResult result = Compiler.compile(parser, requestOptions, metrics);
+        if (result.getAssembly() == null) {
+            throw new ParseException(result.getDiagnostics());
+        }
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            diagnostics.add(diagnostic.toString());
+        }
+        LinkedHashMap<String, String> artifacts = new LinkedHashMap<>();
+        artifacts.put(CompilerMain.SYMBOL_TABLE_FILE, result.getSymbolTable().toString());
+        StringBuilder syntaxTree = new StringBuilder();
+        new SyntaxTreePrinter(syntaxTree, requestOptions.getSyntaxTreeFormat()).print(result.getProgram());
+        artifacts.put(CompilerMain.SYNTAX_TREE_FILE, syntaxTree.toString());
+        artifacts.put(CompilerMain.ASSEMBLY_FILE, result.getAssembly());
+        if (requestOptions.isEmitIr()) {
+            StringBuilder ir = new StringBuilder();
+            new CodeGeneration(result.getProgram(), result.getSymbolTable()).irWriter(ir);
+            artifacts.put(CompilerMain.IR_FILE, ir.toString());
+        }
+        return artifacts;
+    }
+
+    /**
+     * Writes the contents of an output file to the response.
+     * @param out The response stream.
+     * @param name The name of the output file.
+     * @param contents The contents of the output file.
+     * @throws IOException If the response can not be written.
+     */
+    private static void writeArtifact(Writer out, String name, String contents) throws IOException {
+        out.write(ARTIFACT + " " + name + " " + contents.length() + "\n");
+        out.write(contents);
+    }
+
+    /**
+     * Reads an exact number of characters from a stream.
+     * @param in The stream to read from.
+     * @param length The number of characters to read.
+     * @return The characters read.
+     * @throws IOException If the stream ends early.
+     */
+    static String readChars(Reader in, int length) throws IOException {
+        char[] buffer = new char[length];
+        int read = 0;
+        while (read < length) {
+            int count = in.read(buffer, read, length - read);
+            if (count < 0) {
+                throw new EOFException("Stream ended after " + read + " of " + length + " characters.");
+            }
+            read += count;
+        }
+        return new String(buffer);
+    }
+}
@@ -0,0 +1,196 @@
+package compiler;
+
+import analysis.SemanticAnalyzer;
+import codegen.CodeGeneration;
+import parser.Diagnostic;
+import parser.ParseException;
+import parser.ParseResult;
+import parser.Parser;
+import scanner.LineIndex;
+import scanner.TokenBuffer;
+import symboltable.SymbolTable;
+import syntaxtree.ProgramNode;
+import syntaxtree.SyntaxTreeNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+/**
+ * Compiles Micro-Pascal programs in memory, for use by programs which embed the compiler.
+ * <p>
+ * Each call runs its own parser, semantic analyzer and code generator and shares
+ * no state with any other call, so many programs may be compiled concurrently on
+ * one JVM. Nothing is printed, no files are written and errors are returned in the
+ * result rather than ending the program. The command line compiler, the batch
+ * compiler and the compile daemon run the same pipeline through the package-private
+ * methods, which may also write the output files of a program into a directory.
+ * </p>
+ *
+ * @author William Mork
+ */
+public final class Compiler {
+
+    /**
+     * The compiler is used through its static methods.
+     */
+    private Compiler() {
+    }
+
+    /**
+     * Compiles a program with the default options.
+     * @param source The Micro-Pascal source.
+     * @return The outcome of the compilation.
+     */
+    public static CompilationResult compile(CharSequence source) {
+        return compile(source, new Options());
+    }
+
+    /**
+     * Compiles a program. Only the options which select how the source is read and
+     * parsed are used; the output directory and other command line options are ignored.
+     * @param source The Micro-Pascal source.
+     * @param options The options of the compilation.
+     * @return The outcome of the compilation.
+     */
+    public static CompilationResult compile(CharSequence source, Options options) {
+        CompilationMetrics metrics = new CompilationMetrics();
+        metrics.setSourceBytes(source.length());
+        metrics.begin("parse");
+        Parser parser;
+        if (options.isPrescan()) {
+            char[] chars = new char[source.length() + 1];
+            for (int i = 0; i < source.length(); i++) {
+                chars[i] = source.charAt(i);
+            }
+            try {
+                parser = new Parser(new TokenBuffer(chars, source.length()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            parser = new Parser(source.toString());
+        }
+        return compile(parser, options, metrics);
+    }
+
+    /**
+     * Compiles the program read by a parser. A parse phase already begun by the
+     * caller is continued.
+     * @param parser A parser positioned at the start of a program.
+     * @param options The options which select how the program is parsed.
+     * @param metrics The metrics each phase is recorded in.
+     * @return The outcome of the compilation.
+     */
+    static CompilationResult compile(Parser parser, Options options, CompilationMetrics metrics) {
+        ParseResult parsed = parse(parser, options, metrics);
+        ProgramNode rootNode = parsed.getProgram();
+        SymbolTable symbolTable = parser.getSymbolTable();
+        ArrayList<Diagnostic> diagnostics = new ArrayList<>(parsed.getDiagnostics());
+        if (!parsed.isSuccess()) {
+            metrics.end();
+            return new CompilationResult(rootNode, symbolTable, null, diagnostics, metrics);
+        }
+        analyze(parser, rootNode, diagnostics, metrics);
+
+        metrics.begin("code generation");
+        CodeGeneration codeGenerator = new CodeGeneration(rootNode, symbolTable);
+        String assembly = codeGenerator.codeWriter();
+        metrics.end();
+
+        metrics.count(parser, rootNode, codeGenerator.getInstructionCount());
+        return new CompilationResult(rootNode, symbolTable, assembly, diagnostics, metrics);
+    }
+
+    /**
+     * Compiles the program read by a parser and writes its output files into a
+     * directory, as the command line compiler does. The assembly is streamed to its
+     * file as it is generated, so the result holds no assembly. A parse phase already
+     * begun by the caller is continued.
+     * @param parser A parser positioned at the start of a program.
+     * @param outputDirectory The directory the output files are written to.
+     * @param options The options which affect the compiler output.
+     * @param metrics The metrics each phase is recorded in, or null if the compile is not measured.
+     * @return The outcome of the compilation, without its assembly.
+     * @throws ParseException If the program has any syntax errors, carrying all of them.
+     * @throws IOException If an output file can not be written.
+     */
+    static CompilationResult compile(Parser parser, File outputDirectory, Options options,
+                                     CompilationMetrics metrics) throws IOException {
+        ParseResult parsed = parse(parser, options, metrics);
+        if (!parsed.isSuccess()) {
+            throw new ParseException(parsed.getDiagnostics());
+        }
+        ProgramNode rootNode = parsed.getProgram();
+        SymbolTable symbolTable = parser.getSymbolTable();
+        ArrayList<Diagnostic> diagnostics = new ArrayList<>(parsed.getDiagnostics());
+        analyze(parser, rootNode, diagnostics, metrics);
+
+        outputDirectory.mkdirs();
+        begin(metrics, "code generation");
+        CodeGeneration codeGenerator = new CodeGeneration(rootNode, symbolTable);
+        CompilerMain.writeAssembly(codeGenerator, outputDirectory);
+        if (options.isEmitIr()) {
+            CompilerMain.writeIr(codeGenerator, outputDirectory);
+        }
+        begin(metrics, "export symbol table");
+        CompilerMain.writeSymbolTable(symbolTable, outputDirectory);
+        begin(metrics, "export syntax tree");
+        CompilerMain.writeSyntaxTree(rootNode, outputDirectory, options.getSyntaxTreeFormat());
+        if (metrics != null) {
+            metrics.end();
+            metrics.count(parser, rootNode, codeGenerator.getInstructionCount());
+        }
+        return new CompilationResult(rootNode, symbolTable, null, diagnostics, metrics);
+    }
+
+    /**
+     * Parses a whole program, continuing a parse phase already begun by the caller.
+     * @param parser A parser positioned at the start of a program.
+     * @param options The options which select whether the program is parsed into a flat tree.
+     * @param metrics The metrics of the compile, or null if the compile is not measured.
+     * @return The syntax tree of the program and every syntax error found in it.
+     */
+    private static ParseResult parse(Parser parser, Options options, CompilationMetrics metrics) {
+        if (metrics != null && !metrics.isRunning()) {
+            metrics.begin("parse");
+        }
+        return options.isFlatTree() ? parser.parseFlat() : parser.parse();
+    }
+
+    /**
+     * Runs semantic analysis over a parsed program, adding each error it finds as a
+     * diagnostic at the position of the node it was found in.
+     * @param parser The parser which read the program.
+     * @param rootNode The root program node of the syntax tree.
+     * @param diagnostics The list the errors are added to.
+     * @param metrics The metrics of the compile, or null if the compile is not measured.
+     */
+    private static void analyze(Parser parser, ProgramNode rootNode, ArrayList<Diagnostic> diagnostics,
+                                CompilationMetrics metrics) {
+        begin(metrics, "semantic analysis");
+        SemanticAnalyzer analysis = new SemanticAnalyzer(rootNode, parser.getSymbolTable());
+        LineIndex lineIndex = parser.getLineIndex();
+        for (int i = 0; i < analysis.getErrors().size(); i++) {
+            SyntaxTreeNode node = analysis.getErrorNodes().get(i);
+            if (lineIndex == null || node == null || node.getOffset() < 0) {
+                diagnostics.add(new Diagnostic(0, 0, analysis.getErrors().get(i)));
+            } else {
+                diagnostics.add(new Diagnostic(lineIndex.line(node.getOffset()), lineIndex.column(node.getOffset()),
+                        analysis.getErrors().get(i)));
+            }
+        }
+    }
+
+    /**
+     * Starts timing a phase, ending the previous one.
+     * @param metrics The metrics of the compile, or null if the compile is not measured.
+     * @param phase The name of the phase.
+     */
+    private static void begin(CompilationMetrics metrics, String phase) {
+        if (metrics != null) {
+            metrics.begin(phase);
+        }
+    }
+}
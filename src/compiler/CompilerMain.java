@@ -1,62 +1,310 @@
 package compiler;
 
-import analysis.SemanticAnalyzer;
 import codegen.CodeGeneration;
+import parser.Diagnostic;
+import parser.ParseException;
 import parser.Parser;
+import parser.Recognizer;
+import scanner.SourceInput;
+import scanner.TokenBuffer;
 import symboltable.SymbolTable;
 import syntaxtree.ProgramNode;
+import syntaxtree.SyntaxTreePrinter;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
 
 
 /** * Top-level class for the compiler. To compile a file, run this class from the
  * command line with the location of a micro-pascal program file as a parameter.
+ * Passing several files or a directory compiles them concurrently in batch mode.
  *
  * @author William Mork
  * @version 1.1
  */
 public class CompilerMain {
 
+    /** Version of the compiler. */
+    public static final String VERSION = "1.1";
+
+    /** Name of the symbol table output file. */
+    public static final String SYMBOL_TABLE_FILE = "symboltable.txt";
+
+    /** Name of the syntax tree output file. */
+    public static final String SYNTAX_TREE_FILE = "syntaxtree.txt";
+
+    /** Name of the MIPS assembly output file. */
+    public static final String ASSEMBLY_FILE = "MIPS.asm";
+
+    /** Name of the intermediate representation output file. */
+    public static final String IR_FILE = "ir.txt";
+
     public static void main(String[] args) {
         File inputFile = null;
+        Options options = null;
+
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println("Usage: [--jobs N] [--output DIR] [--daemon | --client | --stop-daemon] [--port N] [--cache DIR] [--cache-size MB] [--timings[=json]] [--tree-format text|json] [--prescan] [--mmap] [--flat-tree] [--check] [--emit-ir] FILE|DIRECTORY...");
+            System.exit(1);
+        }
+
+        // Keep a warm compiler resident, or hand the files to one.
+        if (options.isDaemon()) {
+            new CompileDaemon(options).run();
+            return;
+        }
+        if (options.isClient() || options.isStopDaemon()) {
+            boolean success = new CompileClient(options).run();
+            System.exit(success ? 0 : 1);
+        }
+
+        // Compile several files or a directory concurrently, or check them.
+        if (options.isBatch() || options.isCheck()) {
+            boolean success = new BatchCompiler(options).run();
+            System.exit(success ? 0 : 1);
+        }
 
         // Load sample program if no arguments are passed.
-        if (args.length == 0) {
+        if (options.getInputs().isEmpty()) {
             System.out.println("Error: No input parameter. Compiling example file...");
             inputFile = new File("example.pas");
-        } else if (args.length == 1) {
-            System.out.println("File found. Compiling...");
-            inputFile = new File(args[0]);
         } else {
-            System.out.println("Error: File load failed. Please use the location of a Micro-Pascal file as the only input parameter.");
+            System.out.println("File found. Compiling...");
+            inputFile = options.getInputs().get(0);
+        }
+        File outputDirectory = options.getOutputDirectory();
+
+        // Copy the output of an unchanged file from the build cache.
+        BuildCache cache = options.openCache();
+        String cacheKey = null;
+        if (cache != null) {
+            try {
+                cacheKey = cache.key(inputFile, options.getOutputKey());
+                if (cache.restore(cacheKey, outputDirectory)) {
+                    System.out.println("Build cache hit. Output files copied to the " + outputDirectory + "/ directory.");
+                    System.out.println(cache);
+                    return;
+                }
+            } catch (IOException e) {
+                cacheKey = null;
+            }
+        }
+
+        // Measure each phase if timings were requested.
+        CompilationMetrics metrics = options.getTimings() == null ? null : new CompilationMetrics();
+        if (metrics != null) {
+            metrics.setSourceBytes(inputFile.length());
+        }
+
+        begin(metrics, "parse");
+        Parser parser = null;
+        try {
+            parser = createParser(inputFile, options);
+        } catch (IOException e) {
+            System.out.println("Error: Input file " + inputFile + " could not be read.");
             System.exit(1);
         }
 
-        Parser parser = new Parser(inputFile);
+        // The assembly is streamed to its file as it is generated.
+        CompilationResult result = null;
+        try {
+            result = Compiler.compile(parser, outputDirectory, options, metrics);
+        } catch (ParseException e) {
+            for (Diagnostic diagnostic : e.getDiagnostics()) {
+                System.out.println("Parse error: " + inputFile + ":" + diagnostic);
+            }
+            System.exit(1);
+        } catch (IOException e) {
+            System.out.println("Error exporting output files.");
+            System.exit(1);
+        }
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            System.out.println(inputFile + ":" + diagnostic);
+        }
+        System.out.println(result.isSuccess() ? "Program passed semantic analysis" : "Program failed semantic analysis");
+        System.out.println("The output files can be found in the " + outputDirectory + "/ directory.");
+
+        if (metrics != null) {
+            printTimings(metrics, inputFile, options.getTimings());
+        }
+
+        if (cacheKey != null && result.isSuccess()) {
+            cache.store(cacheKey, outputDirectory, options);
+        }
+        if (cache != null) {
+            System.out.println(cache);
+        }
+    }
 
-        System.out.println("Parsing program...");
-        ProgramNode rootNode = parser.program();
-        System.out.println("File parsed.");
-        System.out.println("Created Syntax Tree.");
+    /**
+     * Compiles a single file without printing progress, writing the symbol table,
+     * syntax tree and MIPS assembly into the given directory. Each call runs its own
+     * parser, semantic analyzer and code generator, so files may be compiled concurrently.
+     * @param inputFile The Micro-Pascal file to compile.
+     * @param outputDirectory The directory the output files are written to.
+     * @return True if the program passed semantic analysis.
+     * @throws IOException If an output file can not be written.
+     */
+    public static boolean compile(File inputFile, File outputDirectory) throws IOException {
+        return compile(inputFile, outputDirectory, new Options(), null, null);
+    }
 
-        SymbolTable symbolTable = parser.getSymbolTable();
-        System.out.println("Created Symbol Table.");
+    /**
+     * Compiles a single file without printing progress, copying its output from the build
+     * cache instead if the file was compiled before, and storing the output of successful
+     * compiles in the cache.
+     * @param inputFile The Micro-Pascal file to compile.
+     * @param outputDirectory The directory the output files are written to.
+     * @param options The options which affect the compiler output.
+     * @param cache The build cache, or null to always compile.
+     * @param metrics The metrics each phase is recorded in, or null if the compile is not measured.
+     * @return True if the program passed semantic analysis.
+     * @throws IOException If the input file can not be read or an output file can not be written.
+     */
+    public static boolean compile(File inputFile, File outputDirectory, Options options, BuildCache cache,
+                                  CompilationMetrics metrics) throws IOException {
+        return compile(inputFile, outputDirectory, options, cache, metrics, null);
+    }
 
-        System.out.println("Running Semantic Analysis...");
-        SemanticAnalyzer analysis = new SemanticAnalyzer(rootNode, symbolTable);
+    /**
+     * Compiles a single file without printing progress as above, adding the semantic
+     * errors found in it to a list.
+     * @param inputFile The Micro-Pascal file to compile.
+     * @param outputDirectory The directory the output files are written to.
+     * @param options The options which affect the compiler output.
+     * @param cache The build cache, or null to always compile.
+     * @param metrics The metrics each phase is recorded in, or null if the compile is not measured.
+     * @param diagnostics The list the semantic errors are added to, or null.
+     * @return True if the program passed semantic analysis.
+     * @throws IOException If the input file can not be read or an output file can not be written.
+     */
+    public static boolean compile(File inputFile, File outputDirectory, Options options, BuildCache cache,
+                                  CompilationMetrics metrics, List<Diagnostic> diagnostics) throws IOException {
+        String key = null;
+        if (cache != null) {
+            key = cache.key(inputFile, options.getOutputKey());
+            if (cache.restore(key, outputDirectory)) {
+                return true;
+            }
+        }
+        if (metrics != null) {
+            metrics.setSourceBytes(inputFile.length());
+        }
+        begin(metrics, "parse");
+        CompilationResult result = Compiler.compile(createParser(inputFile, options), outputDirectory, options, metrics);
+        if (diagnostics != null) {
+            diagnostics.addAll(result.getDiagnostics());
+        }
+        boolean success = result.isSuccess();
+        if (success && cache != null) {
+            cache.store(key, outputDirectory, options);
+        }
+        return success;
+    }
 
-        System.out.println("Running Code Generation...");
-        CodeGeneration codeGenerator = new CodeGeneration(rootNode, symbolTable);
-        System.out.println("MIPS assembly code generated.");
+    /**
+     * Compiles the program read by a parser without printing progress, writing the
+     * symbol table, syntax tree and MIPS assembly into the given directory.
+     * @param parser A parser positioned at the start of a program.
+     * @param outputDirectory The directory the output files are written to.
+     * @return True if the program passed semantic analysis.
+     * @throws IOException If an output file can not be written.
+     */
+    public static boolean compile(Parser parser, File outputDirectory) throws IOException {
+        return compile(parser, outputDirectory, new Options(), null);
+    }
 
-        System.out.println("Writing Symbol Table to file...");
-        exportSymbolTable(symbolTable);
+    /**
+     * Compiles the program read by a parser without printing progress, recording the
+     * cost of each phase, through the same pipeline as {@link Compiler}. A parse phase
+     * already begun by the caller is continued.
+     * @param parser A parser positioned at the start of a program.
+     * @param outputDirectory The directory the output files are written to.
+     * @param options The options which affect the compiler output.
+     * @param metrics The metrics each phase is recorded in, or null if the compile is not measured.
+     * @return True if the program passed semantic analysis.
+     * @throws IOException If an output file can not be written.
+     */
+    public static boolean compile(Parser parser, File outputDirectory, Options options, CompilationMetrics metrics) throws IOException {
+        return Compiler.compile(parser, outputDirectory, options, metrics).isSuccess();
+    }
 
-        System.out.println("Writing Syntax Tree to file...");
-        exportSyntaxTree(rootNode);
+    /**
+     * Checks a single file for syntax errors by running the production rules of the
+     * parser over it, without semantic analysis, code generation or any output files.
+     * Each call runs its own parser, so files may be checked concurrently.
+     * @param inputFile The Micro-Pascal file to check.
+     * @param options The options which select how the file is read.
+     * @return The errors which rejected the file, empty if the file is a valid program.
+     * @throws IOException If the file can not be read.
+     */
+    public static List<Diagnostic> check(File inputFile, Options options) throws IOException {
+        Recognizer recognizer;
+        try {
+            recognizer = new Recognizer(createParser(inputFile, options));
+        } catch (ParseException e) {
+            return e.getDiagnostics();
+        }
+        recognizer.recognize();
+        return recognizer.getDiagnostics();
+    }
 
-        System.out.println("Writing MIPS code to file...");
-        exportAssembly(codeGenerator.codeWriter());
+    /**
+     * Creates a parser for a file, scanning the whole file into a token buffer first,
+     * or scanning a memory-mapped copy of an ASCII file, if the options ask for it.
+     * @param inputFile The Micro-Pascal file to parse.
+     * @param options The compiler options.
+     * @return A parser positioned at the start of the program.
+     * @throws IOException If the file can not be read.
+     */
+    static Parser createParser(File inputFile, Options options) throws IOException {
+        if (options.isPrescan()) {
+            return new Parser(TokenBuffer.read(inputFile));
+        }
+        if (options.isMapped()) {
+            return new Parser(SourceInput.open(inputFile));
+        }
+        return new Parser(inputFile);
+    }
+
+    /**
+     * Starts timing a phase, ending the previous one.
+     * @param metrics The metrics of the compile, or null if the compile is not measured.
+     * @param phase The name of the phase.
+     */
+    private static void begin(CompilationMetrics metrics, String phase) {
+        if (metrics != null) {
+            metrics.begin(phase);
+        }
+    }
+
+    /**
+     * Prints the cost of each phase of a compile.
+     * @param metrics The metrics of the compile.
+     * @param inputFile The compiled file.
+     * @param format "table" to print a table, or "json" to print a single JSON line.
+     */
+    static void printTimings(CompilationMetrics metrics, File inputFile, String format) {
+        System.out.print(formatTimings(metrics, inputFile, format));
+    }
+
+    /**
+     * Formats the cost of each phase of a compile as it is printed.
+     * @param metrics The metrics of the compile.
+     * @param inputFile The compiled file.
+     * @param format "table" for a table, or "json" for a single JSON line.
+     * @return The timings, ending with a newline.
+     */
+    static String formatTimings(CompilationMetrics metrics, File inputFile, String format) {
+        if (format.equals("json")) {
+            return metrics.toJson(inputFile.getPath()) + "\n";
+        }
+        return "TIMINGS for " + inputFile + ":\n" + metrics.toTable();
     }
 
     /**
@@ -64,9 +312,17 @@ public class CompilerMain {
      * @param symbolTable symbol table to be written to a file.
      */
     public static void exportSymbolTable(SymbolTable symbolTable) {
-        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("output/symboltable.txt")))) {
-            writer.write(symbolTable.toString());
-            writer.close();
+        exportSymbolTable(symbolTable, new File(Options.DEFAULT_OUTPUT_DIRECTORY));
+    }
+
+    /**
+     * Writes the symbol table to a file in the given directory.
+     * @param symbolTable symbol table to be written to a file.
+     * @param outputDirectory The directory the file is written to.
+     */
+    public static void exportSymbolTable(SymbolTable symbolTable, File outputDirectory) {
+        try {
+            writeSymbolTable(symbolTable, outputDirectory);
             System.out.println("The symbol table can be found in the product/output/ directory.");
         }
         catch (Exception e) {
@@ -79,9 +335,27 @@ public class CompilerMain {
      * @param rootProgramNode The root program node of the syntax tree.
      */
     public static void exportSyntaxTree(ProgramNode rootProgramNode) {
-        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("output/syntaxtree.txt")))) {
-            writer.write(rootProgramNode.indentedToString(0));
-            writer.close();
+        exportSyntaxTree(rootProgramNode, new File(Options.DEFAULT_OUTPUT_DIRECTORY));
+    }
+
+    /**
+     * Writes the indented syntax tree to a file in the given directory.
+     * @param rootProgramNode The root program node of the syntax tree.
+     * @param outputDirectory The directory the file is written to.
+     */
+    public static void exportSyntaxTree(ProgramNode rootProgramNode, File outputDirectory) {
+        exportSyntaxTree(rootProgramNode, outputDirectory, SyntaxTreePrinter.Format.TEXT);
+    }
+
+    /**
+     * Writes the syntax tree to a file in the given directory in the given format.
+     * @param rootProgramNode The root program node of the syntax tree.
+     * @param outputDirectory The directory the file is written to.
+     * @param format The format of the syntax tree file.
+     */
+    public static void exportSyntaxTree(ProgramNode rootProgramNode, File outputDirectory, SyntaxTreePrinter.Format format) {
+        try {
+            writeSyntaxTree(rootProgramNode, outputDirectory, format);
             System.out.println("The syntax tree can be found in the product/output/ directory.");
         }
         catch (Exception e) {
@@ -94,13 +368,90 @@ public class CompilerMain {
      * @param generatedCodeString The String, generated by the code generation module, containing the MIPS assembly code for a program.
      */
     public static void exportAssembly(String generatedCodeString) {
-        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream("output/MIPS.asm")))) {
-            writer.write(generatedCodeString);
-            writer.close();
+        exportAssembly(generatedCodeString, new File(Options.DEFAULT_OUTPUT_DIRECTORY));
+    }
+
+    /**
+     * Writes the generated MIPS code to a file in the given directory.
+     * @param generatedCodeString The String, generated by the code generation module, containing the MIPS assembly code for a program.
+     * @param outputDirectory The directory the file is written to.
+     */
+    public static void exportAssembly(String generatedCodeString, File outputDirectory) {
+        try {
+            writeAssembly(generatedCodeString, outputDirectory);
             System.out.println("The MIPS assembly code can be found in the product/output/ directory.");
         }
         catch (Exception e) {
             System.out.println("Error exporting MIPS assembly file.");
         }
     }
+
+    /**
+     * Writes the symbol table to symboltable.txt in the given directory.
+     * @param symbolTable symbol table to be written to a file.
+     * @param outputDirectory The directory the file is written to.
+     * @throws IOException If the file can not be written.
+     */
+    static void writeSymbolTable(SymbolTable symbolTable, File outputDirectory) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, SYMBOL_TABLE_FILE))))) {
+            writer.write(symbolTable.toString());
+        }
+    }
+
+    /**
+     * Streams the syntax tree to syntaxtree.txt in the given directory.
+     * @param rootProgramNode The root program node of the syntax tree.
+     * @param outputDirectory The directory the file is written to.
+     * @param format The format of the syntax tree file.
+     * @throws IOException If the file can not be written.
+     */
+    static void writeSyntaxTree(ProgramNode rootProgramNode, File outputDirectory, SyntaxTreePrinter.Format format) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, SYNTAX_TREE_FILE))))) {
+            new SyntaxTreePrinter(writer, format).print(rootProgramNode);
+        }
+    }
+
+    /**
+     * Writes the intermediate representation of a program to ir.txt in the given directory.
+     * @param codeGenerator The code generator of the program.
+     * @param outputDirectory The directory the file is written to.
+     * @throws IOException If the file can not be written.
+     */
+    static void writeIr(CodeGeneration codeGenerator, File outputDirectory) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, IR_FILE))))) {
+            codeGenerator.irWriter(writer);
+        }
+    }
+
+    /**
+     * Writes the generated MIPS code to MIPS.asm in the given directory.
+     * @param generatedCodeString The String containing the MIPS assembly code for a program.
+     * @param outputDirectory The directory the file is written to.
+     * @throws IOException If the file can not be written.
+     */
+    private static void writeAssembly(String generatedCodeString, File outputDirectory) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, ASSEMBLY_FILE))))) {
+            writer.write(generatedCodeString);
+        }
+    }
+
+    /**
+     * Generates MIPS code straight into MIPS.asm in the given directory, so that the
+     * assembly of the whole program is never held in memory. The code is written to a
+     * temporary file first so that a failed code generation leaves no partial file behind.
+     * @param codeGenerator The code generator of a program.
+     * @param outputDirectory The directory the file is written to.
+     * @throws IOException If the file can not be written.
+     */
+    static void writeAssembly(CodeGeneration codeGenerator, File outputDirectory) throws IOException {
+        File temporary = new File(outputDirectory, ASSEMBLY_FILE + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporary)))) {
+                codeGenerator.codeWriter(writer);
+            }
+            Files.move(temporary.toPath(), new File(outputDirectory, ASSEMBLY_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temporary.delete();
+        }
+    }
 }
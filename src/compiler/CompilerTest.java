@@ -0,0 +1,120 @@
+package compiler;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class contains JUnit testing for the embeddable compiler API.
+ *
+ * @author William Mork
+ */
+public class CompilerTest {
+
+    /**
+     * Tests that a program compiled on many threads at once gives the same
+     * result on each thread as when it is compiled alone.
+     *
+     * @result The test fails if any concurrent compilation differs from the single one.
+     */
+    @Test
+    public void concurrentCompileTest() throws IOException, InterruptedException, ExecutionException {
+        System.out.println("Testing concurrent compilation of money.pas...");
+        final String source = new String(Files.readAllBytes(Paths.get("src/pascal/money.pas")), StandardCharsets.UTF_8);
+        CompilationResult expected = Compiler.compile(source);
+        Assertions.assertTrue(expected.isSuccess());
+        Assertions.assertTrue(expected.getAssembly().startsWith(".data\n"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        ArrayList<Future<CompilationResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(pool.submit(() -> Compiler.compile(source)));
+        }
+        for (Future<CompilationResult> future : futures) {
+            CompilationResult result = future.get();
+            Assertions.assertTrue(result.isSuccess());
+            Assertions.assertEquals(expected.getAssembly(), result.getAssembly());
+            Assertions.assertEquals(expected.getSymbolTable().toString(), result.getSymbolTable().toString());
+        }
+        pool.shutdown();
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that syntax and semantic errors are returned in the result instead of
+     * being printed or ending the program.
+     *
+     * @result The test fails if an error is not returned as a diagnostic.
+     */
+    @Test
+    public void diagnosticsTest() {
+        System.out.println("Testing compilation errors...");
+        CompilationResult syntax = Compiler.compile("program foo;\nvar a: integer;\nbegin\n  a := ;\n  a := 1 +\nend\n.\n");
+        Assertions.assertFalse(syntax.isSuccess());
+        Assertions.assertNull(syntax.getAssembly());
+        Assertions.assertEquals(2, syntax.getDiagnostics().size());
+        Assertions.assertEquals(4, syntax.getDiagnostics().get(0).getLine());
+
+        CompilationResult semantic = Compiler.compile("program foo;\nvar a: integer;\nbegin\n  a := 1.5\nend\n.\n");
+        Assertions.assertFalse(semantic.isSuccess());
+        Assertions.assertNotNull(semantic.getAssembly());
+        Assertions.assertEquals("4:8: Compiler Error: Variable types not consistent across assignments",
+                semantic.getDiagnostics().get(0).toString());
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that a missing input file is reported as an I/O error however the file
+     * is read, instead of as a syntax error.
+     *
+     * @result The test fails if compiling or checking a missing file does not throw an IOException.
+     */
+    @Test
+    public void missingFileTest() {
+        System.out.println("Testing a missing input file...");
+        File missing = new File("src/pascal/missing.pas");
+        File output = new File(Options.DEFAULT_OUTPUT_DIRECTORY);
+        Options[] readers = {new Options(), Options.parse(new String[] {"--prescan", missing.getPath()}),
+                Options.parse(new String[] {"--mmap", missing.getPath()})};
+        for (Options options : readers) {
+            Assertions.assertThrows(IOException.class, () -> CompilerMain.compile(missing, output, options, null, null));
+            Assertions.assertThrows(IOException.class, () -> CompilerMain.check(missing, options));
+        }
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that a program parsed into a flat tree is analyzed and compiled to the
+     * same syntax tree, errors and assembly as when it is parsed into node objects.
+     *
+     * @result The test fails if compiling through the flat tree gives a different result.
+     */
+    @Test
+    public void flatTreeTest() throws IOException {
+        System.out.println("Testing compilation through a flat syntax tree...");
+        Options flat = Options.parse(new String[] {"--flat-tree"});
+        ArrayList<String> sources = new ArrayList<>();
+        for (String name : new String[] {"money.pas", "arraytest.pas", "simple.pas"}) {
+            sources.add(new String(Files.readAllBytes(Paths.get("src/pascal", name)), StandardCharsets.UTF_8));
+        }
+        sources.add("program foo;\nvar a: integer;\nvar b: real;\nbegin\n  a := 1;\n  b := a;\n  c := 2\nend\n.\n");
+        for (String source : sources) {
+            CompilationResult expected = Compiler.compile(source);
+            CompilationResult actual = Compiler.compile(source, flat);
+            Assertions.assertEquals(expected.getProgram().indentedToString(0), actual.getProgram().indentedToString(0));
+            Assertions.assertEquals(expected.getDiagnostics().toString(), actual.getDiagnostics().toString());
+            Assertions.assertEquals(expected.getAssembly(), actual.getAssembly());
+        }
+        System.out.println("Success!");
+    }
+}
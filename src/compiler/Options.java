@@ -0,0 +1,312 @@
+package compiler;
+
+import syntaxtree.SyntaxTreePrinter;
+
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Holds the options passed to the compiler on the command line.
+ *
+ * @author William Mork
+ */
+public class Options {
+
+    /** Default directory that compiler output is written to. */
+    public static final String DEFAULT_OUTPUT_DIRECTORY = "output";
+
+    /** Micro-Pascal files or directories of files to be compiled. */
+    private ArrayList<File> inputs = new ArrayList<>();
+
+    /** Directory that compiler output is written to. */
+    private File outputDirectory = new File(DEFAULT_OUTPUT_DIRECTORY);
+
+    /** Number of files compiled concurrently in batch mode. */
+    private int jobs = Runtime.getRuntime().availableProcessors();
+
+    /** True if the compiler should run as a resident compile daemon. */
+    private boolean daemon = false;
+
+    /** True if files should be sent to a running compile daemon. */
+    private boolean client = false;
+
+    /** True if a running compile daemon should be stopped. */
+    private boolean stopDaemon = false;
+
+    /** Loopback port of the compile daemon. */
+    private int port = CompileDaemon.DEFAULT_PORT;
+
+    /** Directory of the build cache, or null if no cache is used. */
+    private File cacheDirectory = null;
+
+    /** Maximum size of the build cache in megabytes. */
+    private long cacheSize = 256;
+
+    /** True if each file is scanned into a token buffer before it is parsed. */
+    private boolean prescan = false;
+
+    /** True if ASCII source files are memory-mapped instead of read through a Reader. */
+    private boolean mapped = false;
+
+    /** True if the syntax tree of each file is built into a flat tree instead of node objects. */
+    private boolean flatTree = false;
+
+    /** True if files are only checked for syntax errors, without writing any output. */
+    private boolean check = false;
+
+    /** True if the intermediate representation of each program is written to ir.txt. */
+    private boolean emitIr = false;
+
+    /** Format of the syntax tree output file. */
+    private SyntaxTreePrinter.Format syntaxTreeFormat = SyntaxTreePrinter.Format.TEXT;
+
+    /** Format of the per-phase timings, "table" or "json", or null if timings are not printed. */
+    private String timings = null;
+
+    /**
+     * Parses the command line arguments of the compiler.
+     * <p>
+     * Usage: <code>[--jobs N] [--output DIR] [--daemon | --client | --stop-daemon] [--port N] [--cache DIR] [--cache-size MB] [--timings[=json]] [--tree-format text|json] [--prescan] [--mmap] [--flat-tree] [--check] [--emit-ir] FILE|DIRECTORY...</code>
+     * </p>
+     * @param args The command line arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an argument is not recognized.
+     */
+    public static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--jobs") || arg.equals("-j")) {
+                options.jobs = Integer.parseInt(value(args, ++i, arg));
+                if (options.jobs < 1) {
+                    throw new IllegalArgumentException("--jobs must be at least 1.");
+                }
+            } else if (arg.equals("--output") || arg.equals("-o")) {
+                options.outputDirectory = new File(value(args, ++i, arg));
+            } else if (arg.equals("--daemon")) {
+                options.daemon = true;
+            } else if (arg.equals("--client")) {
+                options.client = true;
+            } else if (arg.equals("--stop-daemon")) {
+                options.stopDaemon = true;
+            } else if (arg.equals("--port")) {
+                options.port = Integer.parseInt(value(args, ++i, arg));
+            } else if (arg.equals("--cache")) {
+                options.cacheDirectory = new File(value(args, ++i, arg));
+            } else if (arg.equals("--cache-size")) {
+                options.cacheSize = Long.parseLong(value(args, ++i, arg));
+            } else if (arg.equals("--timings")) {
+                options.timings = "table";
+            } else if (arg.equals("--timings=json")) {
+                options.timings = "json";
+            } else if (arg.equals("--prescan")) {
+                options.prescan = true;
+            } else if (arg.equals("--mmap")) {
+                options.mapped = true;
+            } else if (arg.equals("--flat-tree")) {
+                options.flatTree = true;
+            } else if (arg.equals("--check")) {
+                options.check = true;
+            } else if (arg.equals("--emit-ir")) {
+                options.emitIr = true;
+            } else if (arg.equals("--tree-format")) {
+                String format = value(args, ++i, arg);
+                if (format.equals("text")) {
+                    options.syntaxTreeFormat = SyntaxTreePrinter.Format.TEXT;
+                } else if (format.equals("json")) {
+                    options.syntaxTreeFormat = SyntaxTreePrinter.Format.JSON;
+                } else {
+                    throw new IllegalArgumentException("--tree-format must be text or json.");
+                }
+            } else if (arg.startsWith("-")) {
+                throw new IllegalArgumentException("Unrecognized option " + arg + ".");
+            } else {
+                options.inputs.add(new File(arg));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Returns the value following an option that requires one.
+     * @param args The command line arguments.
+     * @param index The index of the value.
+     * @param option The option expecting a value.
+     * @return The value of the option.
+     */
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Option " + option + " requires a value.");
+        }
+        return args[index];
+    }
+
+    /**
+     * Returns true if more than one file is to be compiled, so that each file
+     * needs its own output directory.
+     * @return True if the compiler should run in batch mode.
+     */
+    public boolean isBatch() {
+        return inputs.size() > 1 || (inputs.size() == 1 && inputs.get(0).isDirectory());
+    }
+
+    /**
+     * Returns the files and directories to be compiled.
+     * @return The input files and directories.
+     */
+    public ArrayList<File> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Returns the directory that compiler output is written to.
+     * @return The output directory.
+     */
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Returns the number of files compiled concurrently in batch mode.
+     * @return The number of worker threads.
+     */
+    public int getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Returns true if the compiler should run as a resident compile daemon.
+     * @return True if the daemon should be started.
+     */
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    /**
+     * Returns true if files should be sent to a running compile daemon.
+     * @return True if the compiler should run as a daemon client.
+     */
+    public boolean isClient() {
+        return client;
+    }
+
+    /**
+     * Returns true if a running compile daemon should be stopped.
+     * @return True if the daemon should be stopped.
+     */
+    public boolean isStopDaemon() {
+        return stopDaemon;
+    }
+
+    /**
+     * Returns the loopback port of the compile daemon.
+     * @return The daemon port.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns true if each file is scanned into a token buffer before it is parsed.
+     * @return True if files are pre-scanned.
+     */
+    public boolean isPrescan() {
+        return prescan;
+    }
+
+    /**
+     * Returns true if ASCII source files are memory-mapped instead of read through a Reader.
+     * @return True if source files are memory-mapped.
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Returns true if the syntax tree of each file is built into a flat tree instead of node objects.
+     * @return True if the parser builds a flat tree.
+     */
+    public boolean isFlatTree() {
+        return flatTree;
+    }
+
+    /**
+     * Returns true if files are only checked for syntax errors, without writing any output.
+     * @return True if the compiler should run in check mode.
+     */
+    public boolean isCheck() {
+        return check;
+    }
+
+    /**
+     * Returns true if the intermediate representation of each program is written to ir.txt.
+     * @return True if the intermediate representation is written.
+     */
+    public boolean isEmitIr() {
+        return emitIr;
+    }
+
+    /**
+     * Returns the format the syntax tree output file is written in.
+     * @return The syntax tree format.
+     */
+    public SyntaxTreePrinter.Format getSyntaxTreeFormat() {
+        return syntaxTreeFormat;
+    }
+
+    /**
+     * Returns the format the per-phase timings are printed in.
+     * @return "table" or "json", or null if timings are not printed.
+     */
+    public String getTimings() {
+        return timings;
+    }
+
+    /**
+     * Opens the build cache named on the command line.
+     * @return The build cache, or null if no cache directory was given.
+     */
+    public BuildCache openCache() {
+        if (cacheDirectory == null) {
+            return null;
+        }
+        return new BuildCache(cacheDirectory, cacheSize * 1024 * 1024);
+    }
+
+    /**
+     * Returns the options which affect how each file is read, compiled and reported as
+     * command line arguments, so that a compile daemon can compile a file as this
+     * command line would.
+     * @return The arguments, which {@link #parse(String[])} reads back.
+     */
+    public ArrayList<String> getCompileArguments() {
+        ArrayList<String> arguments = new ArrayList<>();
+        arguments.add("--tree-format");
+        arguments.add(syntaxTreeFormat == SyntaxTreePrinter.Format.JSON ? "json" : "text");
+        if (prescan) {
+            arguments.add("--prescan");
+        }
+        if (mapped) {
+            arguments.add("--mmap");
+        }
+        if (flatTree) {
+            arguments.add("--flat-tree");
+        }
+        if (emitIr) {
+            arguments.add("--emit-ir");
+        }
+        if (timings != null) {
+            arguments.add(timings.equals("json") ? "--timings=json" : "--timings");
+        }
+        return arguments;
+    }
+
+    /**
+     * Describes the options which affect the compiler output, so that output
+     * compiled with different options is cached separately.
+     * @return A key describing the output options.
+     */
+    public String getOutputKey() {
+        return "tree-format=" + syntaxTreeFormat + (emitIr ? ",emit-ir" : "");
+    }
+}
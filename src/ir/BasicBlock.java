@@ -0,0 +1,130 @@
+package ir;
+
+import java.util.ArrayList;
+
+/**
+ * A basic block of the intermediate representation: a run of instructions which is
+ * only entered at its first instruction and ends with a single terminator, a jump,
+ * branch or exit. The blocks it may go to are its successors, and the blocks which
+ * may go to it are its predecessors.
+ *
+ * @author William Mork
+ */
+public class BasicBlock {
+
+    /** The label of the block, unique within its graph. */
+    private final String label;
+
+    /** The instructions of the block, the last of which is its terminator once it is ended. */
+    private final ArrayList<Instruction> instructions = new ArrayList<>();
+
+    /** The blocks the terminator may go to. */
+    private final ArrayList<BasicBlock> successors = new ArrayList<>(2);
+
+    /** The blocks which may go to this block. */
+    private final ArrayList<BasicBlock> predecessors = new ArrayList<>(2);
+
+    /**
+     * Creates an empty block.
+     * @param label The label of the block.
+     */
+    public BasicBlock(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Adds an instruction to the end of the block. A terminator ends the block and
+     * links it to the blocks it goes to.
+     * @param instruction The instruction.
+     * @throws IllegalStateException If the block has already ended.
+     */
+    public void add(Instruction instruction) {
+        if (isEnded()) {
+            throw new IllegalStateException("Block " + label + " has already ended.");
+        }
+        instructions.add(instruction);
+        if (instruction.getTarget() != null) {
+            link(instruction.getTarget());
+        }
+        if (instruction.getOtherTarget() != null && instruction.getOtherTarget() != instruction.getTarget()) {
+            link(instruction.getOtherTarget());
+        }
+    }
+
+    /**
+     * Adds an edge from this block to another.
+     * @param successor The block this block may go to.
+     */
+    private void link(BasicBlock successor) {
+        successors.add(successor);
+        successor.predecessors.add(this);
+    }
+
+    /**
+     * Returns true if the block ends with a terminator.
+     * @return True if the block has ended.
+     */
+    public boolean isEnded() {
+        return !instructions.isEmpty() && instructions.get(instructions.size() - 1).getOpcode().isTerminator();
+    }
+
+    /**
+     * Returns the label of the block.
+     * @return The label.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the instructions of the block, in order.
+     * @return The instructions.
+     */
+    public ArrayList<Instruction> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Returns the terminator of the block.
+     * @return The last instruction, or null if the block has not ended.
+     */
+    public Instruction getTerminator() {
+        return isEnded() ? instructions.get(instructions.size() - 1) : null;
+    }
+
+    /**
+     * Returns the blocks the terminator may go to.
+     * @return The successors.
+     */
+    public ArrayList<BasicBlock> getSuccessors() {
+        return successors;
+    }
+
+    /**
+     * Returns the blocks which may go to this block.
+     * @return The predecessors.
+     */
+    public ArrayList<BasicBlock> getPredecessors() {
+        return predecessors;
+    }
+
+    /**
+     * Drops the instructions and edges of a block which has been written, so that the
+     * blocks it was linked to do not keep them reachable.
+     */
+    void discard() {
+        instructions.clear();
+        instructions.trimToSize();
+        successors.clear();
+        predecessors.clear();
+    }
+
+    /**
+     * Returns the label of the block.
+     * @return The label.
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
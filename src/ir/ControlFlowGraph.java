@@ -0,0 +1,243 @@
+package ir;
+
+import scanner.TokenType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+/**
+ * The intermediate representation of a program: its global variables, and the basic
+ * blocks of its main program linked by their control flow.
+ * <p>
+ * The blocks are kept in the order they are laid out in the assembly, the entry block
+ * first and the block which exits the program last, so a block may fall through to the
+ * block after it. A program which is written as it is lowered retires its blocks once
+ * they are written, so that the graph only holds the blocks of the statement being
+ * lowered. The dump lists the variables, then each block under its label with its
+ * predecessors, one instruction per line:
+ * </p>
+ * <pre>
+ * var fo: integer
+ *
+ * entry:
+ *     t0 = load integer fo
+ *     t1 = const integer 13
+ *     t2 = lt integer t0, t1
+ *     branch t2, then0, else0
+ * then0:    ; from entry
+ * </pre>
+ *
+ * @author William Mork
+ */
+public class ControlFlowGraph {
+
+    /** The names of the global variables and arrays. */
+    private final ArrayList<String> variables = new ArrayList<>();
+
+    /** The type of each global variable, or the element type of each array. */
+    private final ArrayList<TokenType> types = new ArrayList<>();
+
+    /** The lower bound of the index of each array, or null for each variable. */
+    private final ArrayList<Integer> lowerBounds = new ArrayList<>();
+
+    /** The upper bound of the index of each array, or null for each variable. */
+    private final ArrayList<Integer> upperBounds = new ArrayList<>();
+
+    /** The blocks, in the order they are laid out. */
+    private final ArrayList<BasicBlock> blocks = new ArrayList<>();
+
+    /** Number of virtual registers used, numbered from 0. */
+    private int registerCount;
+
+    /**
+     * Adds a global variable.
+     * @param name The name of the variable.
+     * @param type The type of the variable.
+     */
+    public void addVariable(String name, TokenType type) {
+        variables.add(name);
+        types.add(type);
+        lowerBounds.add(null);
+        upperBounds.add(null);
+    }
+
+    /**
+     * Adds a global array, whose elements are numbered from its lower bound to its
+     * upper bound.
+     * @param name The name of the array.
+     * @param type The type of the elements of the array.
+     * @param lowerBound The lowest index of the array.
+     * @param upperBound The highest index of the array.
+     */
+    public void addArray(String name, TokenType type, int lowerBound, int upperBound) {
+        variables.add(name);
+        types.add(type);
+        lowerBounds.add(lowerBound);
+        upperBounds.add(upperBound);
+    }
+
+    /**
+     * Lays out a block after the blocks added before it.
+     * @param block The block.
+     */
+    public void addBlock(BasicBlock block) {
+        blocks.add(block);
+    }
+
+    /**
+     * Returns a new virtual register.
+     * @return The number of the register.
+     */
+    public int newRegister() {
+        return registerCount++;
+    }
+
+    /**
+     * Returns the names of the global variables and arrays.
+     * @return The names, in the order they were declared.
+     */
+    public ArrayList<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Returns true if a global is an array.
+     * @param index The index of the global in the order they were declared.
+     * @return True for an array, false for a variable.
+     */
+    public boolean isArray(int index) {
+        return lowerBounds.get(index) != null;
+    }
+
+    /**
+     * Returns the lowest index of an array.
+     * @param index The index of the array in the order the globals were declared.
+     * @return The lower bound.
+     */
+    public int getLowerBound(int index) {
+        return lowerBounds.get(index);
+    }
+
+    /**
+     * Returns the highest index of an array.
+     * @param index The index of the array in the order the globals were declared.
+     * @return The upper bound.
+     */
+    public int getUpperBound(int index) {
+        return upperBounds.get(index);
+    }
+
+    /**
+     * Returns the blocks, in the order they are laid out.
+     * @return The blocks, the entry block first.
+     */
+    public ArrayList<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Drops the blocks and instructions of the graph once they have been written. Every
+     * ended block is removed, and its instructions and edges are dropped. The
+     * instructions of a last block which has not ended are dropped too, but the block
+     * is kept with its label and predecessors, as the next statement continues it.
+     */
+    public void retire() {
+        int count = blocks.size();
+        if (count > 0 && !blocks.get(count - 1).isEnded()) {
+            count--;
+        }
+        for (int i = 0; i < count; i++) {
+            blocks.get(i).discard();
+        }
+        blocks.subList(0, count).clear();
+        if (!blocks.isEmpty()) {
+            blocks.get(0).getInstructions().clear();
+        }
+    }
+
+    /**
+     * Returns the entry block of the main program.
+     * @return The first block, until it is retired.
+     */
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    /**
+     * Returns the number of virtual registers used.
+     * @return The register count; registers are numbered from 0.
+     */
+    public int getRegisterCount() {
+        return registerCount;
+    }
+
+    /**
+     * Writes the dump of the representation to an output.
+     * @param out The output.
+     * @throws IOException If the output can not be written.
+     */
+    public void print(Appendable out) throws IOException {
+        printVariables(out);
+        for (BasicBlock block : blocks) {
+            printBlock(out, block, true);
+        }
+    }
+
+    /**
+     * Writes the variables of the dump of the representation to an output, followed by
+     * the empty line before the blocks.
+     * @param out The output.
+     * @throws IOException If the output can not be written.
+     */
+    public void printVariables(Appendable out) throws IOException {
+        for (int i = 0; i < variables.size(); i++) {
+            out.append("var ").append(variables.get(i)).append(": ");
+            if (isArray(i)) {
+                out.append("array[").append(String.valueOf(getLowerBound(i))).append(':')
+                        .append(String.valueOf(getUpperBound(i))).append("] of ");
+            }
+            out.append(types.get(i) == null ? "?" : types.get(i).getLexeme()).append('\n');
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Writes a block of the dump of the representation to an output.
+     * @param out The output.
+     * @param block A block of the graph.
+     * @param label True to write the label and predecessors of the block before its
+     *              instructions, or false if they were written with its earlier instructions.
+     * @throws IOException If the output can not be written.
+     */
+    public void printBlock(Appendable out, BasicBlock block, boolean label) throws IOException {
+        if (label) {
+            out.append(block.getLabel()).append(':');
+            String separator = "    ; from ";
+            for (BasicBlock predecessor : block.getPredecessors()) {
+                out.append(separator).append(predecessor.getLabel());
+                separator = ", ";
+            }
+            out.append('\n');
+        }
+        for (Instruction instruction : block.getInstructions()) {
+            out.append("    ").append(instruction.toString()).append('\n');
+        }
+    }
+
+    /**
+     * Returns the dump of the representation.
+     * @return The variables and blocks of the program.
+     */
+    @Override
+    public String toString() {
+        StringBuilder dump = new StringBuilder();
+        try {
+            print(dump);
+        } catch (IOException e) {
+            // A StringBuilder never throws.
+            throw new UncheckedIOException(e);
+        }
+        return dump.toString();
+    }
+}
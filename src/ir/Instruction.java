@@ -0,0 +1,200 @@
+package ir;
+
+import scanner.TokenType;
+
+/**
+ * A three-address instruction of the intermediate representation.
+ * <p>
+ * Values are held in numbered virtual registers, each written by exactly one
+ * instruction. An instruction writes at most one register, its result, from at most
+ * two registers, its left and right operands, and names a variable or array or holds
+ * the text of a constant. Each value has the type of the expression it computes,
+ * INTEGER or REAL. Jumps and branches name the basic blocks they go to:
+ * </p>
+ * <pre>
+ * t0 = load integer fee
+ * t1 = const integer 13
+ * t2 = lt integer t0, t1
+ * branch t2, then0, else0
+ * </pre>
+ *
+ * @author William Mork
+ */
+public class Instruction {
+
+    /** Marks an unused register operand. */
+    public static final int NONE = -1;
+
+    /** The operation. */
+    private final Opcode opcode;
+
+    /** The type of the value computed, stored or loaded, or of the operands of a comparison, or null. */
+    private final TokenType type;
+
+    /** The register written, or NONE. */
+    private final int result;
+
+    /** The first register read, or NONE. */
+    private final int left;
+
+    /** The second register read, or NONE. */
+    private final int right;
+
+    /** The variable or array named, or the text of a constant, or null. */
+    private final String name;
+
+    /** The block a jump goes to, or a branch goes to if its operand is not 0. */
+    private final BasicBlock target;
+
+    /** The block a branch goes to if its operand is 0. */
+    private final BasicBlock otherTarget;
+
+    /**
+     * Creates an instruction which computes, loads or stores a value.
+     * @param opcode The operation.
+     * @param type The type of the value, INTEGER or REAL.
+     * @param result The register written, or NONE.
+     * @param left The first register read, or NONE.
+     * @param right The second register read, or NONE.
+     * @param name The variable or array named, or the text of a constant, or null.
+     */
+    public Instruction(Opcode opcode, TokenType type, int result, int left, int right, String name) {
+        this(opcode, type, result, left, right, name, null, null);
+    }
+
+    /**
+     * Creates a terminator.
+     * @param opcode JUMP, BRANCH or EXIT.
+     * @param left The register a branch tests, or NONE.
+     * @param target The block a jump goes to, or a branch goes to if its operand is not 0.
+     * @param otherTarget The block a branch goes to if its operand is 0, or null.
+     */
+    public Instruction(Opcode opcode, int left, BasicBlock target, BasicBlock otherTarget) {
+        this(opcode, null, NONE, left, NONE, null, target, otherTarget);
+    }
+
+    /**
+     * Creates an instruction.
+     * @param opcode The operation.
+     * @param type The type of the value, or null for terminators.
+     * @param result The register written, or NONE.
+     * @param left The first register read, or NONE.
+     * @param right The second register read, or NONE.
+     * @param name The variable or array named, or the text of a constant, or null.
+     * @param target The block a jump or branch goes to, or null.
+     * @param otherTarget The block a branch goes to if its operand is 0, or null.
+     */
+    private Instruction(Opcode opcode, TokenType type, int result, int left, int right, String name,
+                        BasicBlock target, BasicBlock otherTarget) {
+        this.opcode = opcode;
+        this.type = type;
+        this.result = result;
+        this.left = left;
+        this.right = right;
+        this.name = name;
+        this.target = target;
+        this.otherTarget = otherTarget;
+    }
+
+    /**
+     * Returns the operation.
+     * @return The opcode.
+     */
+    public Opcode getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * Returns the type of the value computed, stored or loaded, or of the operands of
+     * a comparison, whose value is always 0 or 1.
+     * @return INTEGER or REAL, or null for terminators.
+     */
+    public TokenType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the register written.
+     * @return The register, or NONE.
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the first register read.
+     * @return The register, or NONE.
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * Returns the second register read.
+     * @return The register, or NONE.
+     */
+    public int getRight() {
+        return right;
+    }
+
+    /**
+     * Returns the variable or array named, or the text of a constant.
+     * @return The name or text, or null.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the block a jump goes to, or a branch goes to if its operand is not 0.
+     * @return The block, or null.
+     */
+    public BasicBlock getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the block a branch goes to if its operand is 0.
+     * @return The block, or null.
+     */
+    public BasicBlock getOtherTarget() {
+        return otherTarget;
+    }
+
+    /**
+     * Returns the instruction as a line of the dump of the representation.
+     * @return The instruction, without indentation or a newline.
+     */
+    @Override
+    public String toString() {
+        StringBuilder line = new StringBuilder();
+        if (result != NONE) {
+            line.append('t').append(result).append(" = ");
+        }
+        line.append(opcode.getMnemonic());
+        if (type != null) {
+            line.append(' ').append(type.getLexeme());
+        }
+        String separator = " ";
+        if (name != null) {
+            line.append(separator).append(name);
+            separator = ", ";
+        }
+        if (left != NONE) {
+            line.append(separator).append('t').append(left);
+            separator = ", ";
+        }
+        if (right != NONE) {
+            line.append(separator).append('t').append(right);
+            separator = ", ";
+        }
+        if (target != null) {
+            line.append(separator).append(target.getLabel());
+            separator = ", ";
+        }
+        if (otherTarget != null) {
+            line.append(separator).append(otherTarget.getLabel());
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,418 @@
+package ir;
+
+import scanner.TokenType;
+import symboltable.Kind;
+import symboltable.Symbol;
+import symboltable.SymbolTable;
+import syntaxtree.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lowers the syntax tree of a program to its intermediate representation, a
+ * {@link ControlFlowGraph} of basic blocks of three-address instructions.
+ * <p>
+ * Each expression is computed into fresh virtual registers, and integer expressions
+ * made only of constants are folded into a single constant. Every assignment stores
+ * its value to memory, so no register is read outside the block that writes it. An
+ * if statement ends its block with a branch on its test to a then block and an else
+ * block, which both go to an endIf block; a while statement goes to a block which
+ * tests its condition and branches to its body, which goes back to the test, or to
+ * an endWhile block. Statements with no code, such as procedure calls, are lowered to
+ * an unsupported instruction.
+ * </p>
+ * <p>
+ * A program may be lowered whole, or one statement of its main program at a time,
+ * so that a backend can write and then drop the blocks of each statement before the
+ * next is lowered. Only the block which the next statement continues is still open
+ * after each statement, as no jump goes back into the blocks of an earlier statement.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class IrGenerator implements SyntaxTreeVisitor<Integer, RuntimeException> {
+
+    // The program being lowered.
+    private final ProgramNode programNode;
+
+    // The symbol table of the parser which built the syntax tree.
+    private final SymbolTable symbolTable;
+
+    // The graph being built.
+    private ControlFlowGraph graph;
+
+    // The block instructions are added to.
+    private BasicBlock current;
+
+    // The number of the next if statement and while statement.
+    private int ifIndex;
+    private int loopIndex;
+
+    // The statements of the main program, and the index of the next to be lowered.
+    private List<StatementNode> statements;
+    private int nextStatement;
+
+    /**
+     * Creates a generator for a program.
+     * @param programNode The root program node of the syntax tree.
+     * @param symbolTable The symbol table generated by the parser.
+     */
+    public IrGenerator(ProgramNode programNode, SymbolTable symbolTable) {
+        this.programNode = programNode;
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Lowers the program. The address of each global variable is set to its name, and
+     * each array takes the bounds of its symbol.
+     * @return The intermediate representation of the program.
+     */
+    public ControlFlowGraph generate() {
+        ControlFlowGraph lowered = start();
+        while (lowerNext()) {
+            // The blocks of each statement are kept in the graph.
+        }
+        return lowered;
+    }
+
+    /**
+     * Starts lowering the program, adding its variables and its empty entry block to a
+     * new graph. The address of each global variable is set to its name, and each array
+     * takes the bounds of its symbol.
+     * @return The graph, which each call to {@link #lowerNext()} adds to.
+     */
+    public ControlFlowGraph start() {
+        graph = new ControlFlowGraph();
+        ifIndex = 0;
+        loopIndex = 0;
+        for (VariableNode variable : programNode.getDeclarations().getVariables()) {
+            Symbol symbol = symbol(variable);
+            if (symbol != null && symbol.getKind() == Kind.ARRAY) {
+                graph.addArray(variable.getName(), symbol.getType(), symbol.getStartIndex(), symbol.getStopIndex());
+            } else {
+                graph.addVariable(variable.getName(), symbol == null ? null : symbol.getType());
+            }
+            if (symbol != null) {
+                symbol.setAddress(variable.getName());
+            }
+        }
+        start(new BasicBlock("entry"));
+        statements = programNode.getCompoundStatement().getStatements();
+        nextStatement = 0;
+        return graph;
+    }
+
+    /**
+     * Lowers the next statement of the main program, after which every block of the
+     * graph but the last has ended. Once every statement is lowered, the exit is added
+     * to the last block and the program is finished.
+     * @return True if a statement was lowered, or false once the program is finished.
+     */
+    public boolean lowerNext() {
+        if (graph == null) {
+            return false;
+        }
+        if (nextStatement < statements.size()) {
+            statement(statements.get(nextStatement++));
+            return true;
+        }
+        current.add(new Instruction(Opcode.EXIT, Instruction.NONE, null, null));
+        graph = null;
+        current = null;
+        statements = null;
+        return false;
+    }
+
+    /**
+     * Lays out a block after the blocks before it and adds the instructions that
+     * follow to it.
+     * @param block The block.
+     */
+    private void start(BasicBlock block) {
+        graph.addBlock(block);
+        current = block;
+    }
+
+    /**
+     * Lowers a statement into the current block and the blocks it starts.
+     * @param statementNode A statement node, or null.
+     */
+    private void statement(StatementNode statementNode) {
+        if (statementNode == null) {
+            current.add(new Instruction(Opcode.UNSUPPORTED, null, Instruction.NONE, Instruction.NONE, Instruction.NONE, null));
+        } else {
+            statementNode.accept(this);
+        }
+    }
+
+    /**
+     * Lowers an expression into the current block.
+     * @param expressionNode An expression node.
+     * @return The register holding the value of the expression.
+     */
+    private int expression(ExpressionNode expressionNode) {
+        Integer constant = expressionNode.accept(ConstantFolder.INSTANCE);
+        if (constant != null) {
+            return constant(TokenType.INTEGER, String.valueOf(constant));
+        }
+        return expressionNode.accept(this);
+    }
+
+    /**
+     * Adds an instruction which writes a new register to the current block.
+     * @param opcode The operation.
+     * @param type The type of the value.
+     * @param left The first register read, or NONE.
+     * @param right The second register read, or NONE.
+     * @param name The variable or array named, or the text of a constant, or null.
+     * @return The register written.
+     */
+    private int add(Opcode opcode, TokenType type, int left, int right, String name) {
+        int result = graph.newRegister();
+        current.add(new Instruction(opcode, type, result, left, right, name));
+        return result;
+    }
+
+    /**
+     * Adds a constant to the current block.
+     * @param type The type of the constant.
+     * @param text The text of the constant.
+     * @return The register written.
+     */
+    private int constant(TokenType type, String text) {
+        return add(Opcode.CONST, type, Instruction.NONE, Instruction.NONE, text);
+    }
+
+    /**
+     * Returns the type of an expression, as set by semantic analysis, or else
+     * INTEGER for any expression but a real constant.
+     * @param expressionNode An expression node.
+     * @return INTEGER or REAL.
+     */
+    private static TokenType type(ExpressionNode expressionNode) {
+        if (expressionNode.getType() != null) {
+            return expressionNode.getType();
+        }
+        if (expressionNode instanceof ValueNode && !((ValueNode) expressionNode).isInteger()) {
+            return TokenType.REAL;
+        }
+        return TokenType.INTEGER;
+    }
+
+    /**
+     * Returns the symbol of a variable, as bound by name resolution, or else found by
+     * the id of its name for a tree which has not been analyzed.
+     * @param variableNode A variable, array or function node.
+     * @return The symbol, or null if the name is not declared.
+     */
+    private Symbol symbol(VariableNode variableNode) {
+        Symbol symbol = variableNode.getSymbol();
+        return symbol != null ? symbol : symbolTable.getSymbol(variableNode.getNameId(), variableNode.getName());
+    }
+
+    /**
+     * Returns the address of a variable.
+     * @param variableNode A variable, array or function node.
+     * @return The address of its symbol, or its name if it has none.
+     */
+    private String address(VariableNode variableNode) {
+        Symbol symbol = symbol(variableNode);
+        return symbol != null && symbol.getAddress() != null ? symbol.getAddress() : variableNode.getName();
+    }
+
+    /**
+     * Returns the operation of an operator.
+     * @param operation The operator of an operation node.
+     * @return The opcode.
+     */
+    private static Opcode opcode(TokenType operation) {
+        switch (operation) {
+            case PLUS:
+                return Opcode.ADD;
+            case MINUS:
+                return Opcode.SUB;
+            case MULTIPLY:
+                return Opcode.MUL;
+            case DIVIDE:
+            case DIV:
+                return Opcode.DIV;
+            case MOD:
+                return Opcode.MOD;
+            case AND:
+                return Opcode.AND;
+            case OR:
+                return Opcode.OR;
+            case LTHAN:
+                return Opcode.LT;
+            case GTHAN:
+                return Opcode.GT;
+            case LTHANEQ:
+                return Opcode.LE;
+            case GTHANEQ:
+                return Opcode.GE;
+            case EQUAL:
+                return Opcode.EQ;
+            case NOTEQ:
+                return Opcode.NE;
+            default:
+                throw new IllegalArgumentException("No code for the operation " + operation + ".");
+        }
+    }
+
+    @Override
+    public Integer visit(ValueNode node) {
+        return constant(type(node), node.getAttribute());
+    }
+
+    @Override
+    public Integer visit(OperationNode node) {
+        int left = expression(node.getLeft());
+        int right = expression(node.getRight());
+        // A comparison has the type of its operands.
+        TokenType type = opcode(node.getOperation()).isComparison() ? type(node.getLeft()) : type(node);
+        return add(opcode(node.getOperation()), type, left, right, null);
+    }
+
+    @Override
+    public Integer visit(UnaryOperationNode node) {
+        int operand = expression(node.getOperand());
+        Opcode opcode = node.getOperation() == TokenType.NOT ? Opcode.NOT : Opcode.NEG;
+        return add(opcode, type(node), operand, Instruction.NONE, null);
+    }
+
+    @Override
+    public Integer visit(VariableNode node) {
+        return add(Opcode.LOAD, type(node), Instruction.NONE, Instruction.NONE, address(node));
+    }
+
+    @Override
+    public Integer visit(ArrayNode node) {
+        int index = expression(node.getExpressionNode());
+        return add(Opcode.ALOAD, type(node), index, Instruction.NONE, address(node));
+    }
+
+    @Override
+    public Integer visit(AssignmentStatementNode node) {
+        VariableNode lvalue = node.getLvalue();
+        TokenType type = type(lvalue);
+        int value = expression(node.getExpression());
+        if (lvalue instanceof ArrayNode) {
+            int index = expression(((ArrayNode) lvalue).getExpressionNode());
+            current.add(new Instruction(Opcode.ASTORE, type, Instruction.NONE, index, value, address(lvalue)));
+        } else {
+            current.add(new Instruction(Opcode.STORE, type, Instruction.NONE, value, Instruction.NONE, address(lvalue)));
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visit(IfStatementNode node) {
+        int index = ifIndex++;
+        BasicBlock thenBlock = new BasicBlock("then" + index);
+        BasicBlock elseBlock = new BasicBlock("else" + index);
+        BasicBlock endBlock = new BasicBlock("endIf" + index);
+        int test = expression(node.getTest());
+        current.add(new Instruction(Opcode.BRANCH, test, thenBlock, elseBlock));
+
+        start(thenBlock);
+        statement(node.getThenStatement());
+        current.add(new Instruction(Opcode.JUMP, Instruction.NONE, endBlock, null));
+
+        start(elseBlock);
+        statement(node.getElseStatement());
+        current.add(new Instruction(Opcode.JUMP, Instruction.NONE, endBlock, null));
+
+        start(endBlock);
+        return null;
+    }
+
+    @Override
+    public Integer visit(WhileStatementNode node) {
+        int index = loopIndex++;
+        BasicBlock testBlock = new BasicBlock("while" + index);
+        BasicBlock bodyBlock = new BasicBlock("do" + index);
+        BasicBlock endBlock = new BasicBlock("endWhile" + index);
+        current.add(new Instruction(Opcode.JUMP, Instruction.NONE, testBlock, null));
+
+        start(testBlock);
+        int test = expression(node.getTest());
+        current.add(new Instruction(Opcode.BRANCH, test, bodyBlock, endBlock));
+
+        start(bodyBlock);
+        statement(node.getDoStatement());
+        current.add(new Instruction(Opcode.JUMP, Instruction.NONE, testBlock, null));
+
+        start(endBlock);
+        return null;
+    }
+
+    @Override
+    public Integer visit(CompoundStatementNode node) {
+        for (StatementNode statement : node.getStatements()) {
+            statement(statement);
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visitStatement(StatementNode node) {
+        current.add(new Instruction(Opcode.UNSUPPORTED, null, Instruction.NONE, Instruction.NONE, Instruction.NONE, null));
+        return null;
+    }
+
+    /**
+     * Evaluates integer expressions made only of constants, so that their value can be
+     * loaded instead of computed at run time. Any other node has no value, and an
+     * operation is not folded if it would overflow or divide by zero, leaving the
+     * error to the program.
+     */
+    private static class ConstantFolder implements SyntaxTreeVisitor<Integer, RuntimeException> {
+
+        /** The folder, which holds no state. */
+        static final ConstantFolder INSTANCE = new ConstantFolder();
+
+        @Override
+        public Integer visit(ValueNode valueNode) {
+            return valueNode.isInteger() ? valueNode.getIntValue() : null;
+        }
+
+        @Override
+        public Integer visit(UnaryOperationNode unaryOperationNode) {
+            Integer operand = unaryOperationNode.getOperand().accept(this);
+            if (operand == null || unaryOperationNode.getOperation() != TokenType.MINUS || operand == Integer.MIN_VALUE) {
+                return null;
+            }
+            return -operand;
+        }
+
+        @Override
+        public Integer visit(OperationNode operationNode) {
+            Integer left = operationNode.getLeft().accept(this);
+            Integer right = left == null ? null : operationNode.getRight().accept(this);
+            if (right == null) {
+                return null;
+            }
+            try {
+                switch (operationNode.getOperation()) {
+                    case PLUS:
+                        return Math.addExact(left, right);
+                    case MINUS:
+                        return Math.subtractExact(left, right);
+                    case MULTIPLY:
+                        return Math.multiplyExact(left, right);
+                    case DIVIDE:
+                        return right == 0 || (left == Integer.MIN_VALUE && right == -1) ? null : left / right;
+                    case AND:
+                        return left & right;
+                    case OR:
+                        return left | right;
+                    default:
+                        return null;
+                }
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+    }
+}
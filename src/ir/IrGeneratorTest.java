@@ -0,0 +1,92 @@
+package ir;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+import java.io.IOException;
+
+/**
+ * This class contains JUnit testing for the intermediate representation.
+ *
+ * @author William Mork
+ */
+public class IrGeneratorTest {
+
+    /**
+     * Tests that a program with a while statement around an if statement is lowered
+     * to blocks of three-address instructions linked by their control flow.
+     *
+     * @result The test passes if the dump of the representation and the edges of its blocks are correct.
+     */
+    @Test
+    public void controlFlowTest() {
+        System.out.println("IR: Testing lowering of if and while statements");
+        Parser testParser = new Parser("program foo;\nvar fee, fi: integer;\nvar fo: array[0:3] of integer;\nbegin\nfee := 0;\nwhile fee < 4 do\nbegin\nif fee = 2 then fo[fee] := 2 * 3 else fi := -fee;\nfee := fee + 1\nend\nend\n.\n");
+        ProgramNode testRoot = testParser.program();
+
+        ControlFlowGraph graph = new IrGenerator(testRoot, testParser.getSymbolTable()).generate();
+
+        String expected = "var fee: integer\nvar fi: integer\nvar fo: array[0:3] of integer\n\n"
+                + "entry:\n    t0 = const integer 0\n    store integer fee, t0\n    jump while0\n"
+                + "while0:    ; from entry, endIf0\n    t1 = load integer fee\n    t2 = const integer 4\n    t3 = lt integer t1, t2\n    branch t3, do0, endWhile0\n"
+                + "do0:    ; from while0\n    t4 = load integer fee\n    t5 = const integer 2\n    t6 = eq integer t4, t5\n    branch t6, then0, else0\n"
+                + "then0:    ; from do0\n    t7 = const integer 6\n    t8 = load integer fee\n    astore integer fo, t8, t7\n    jump endIf0\n"
+                + "else0:    ; from do0\n    t9 = load integer fee\n    t10 = neg integer t9\n    store integer fi, t10\n    jump endIf0\n"
+                + "endIf0:    ; from then0, else0\n    t11 = load integer fee\n    t12 = const integer 1\n    t13 = add integer t11, t12\n    store integer fee, t13\n    jump while0\n"
+                + "endWhile0:    ; from while0\n    exit\n";
+        Assertions.assertEquals(expected, graph.toString());
+
+        Assertions.assertEquals(14, graph.getRegisterCount());
+        Assertions.assertEquals("entry", graph.getEntry().getLabel());
+        BasicBlock test = graph.getBlocks().get(1);
+        Assertions.assertEquals("[do0, endWhile0]", test.getSuccessors().toString());
+        Assertions.assertEquals(Opcode.BRANCH, test.getTerminator().getOpcode());
+        BasicBlock exit = graph.getBlocks().get(graph.getBlocks().size() - 1);
+        Assertions.assertTrue(exit.getSuccessors().isEmpty());
+        for (BasicBlock block : graph.getBlocks()) {
+            Assertions.assertTrue(block.isEnded());
+        }
+        System.out.println("Success.");
+    }
+
+    /**
+     * Tests that a program lowered one statement at a time, retiring the blocks of each
+     * statement once they are dumped, gives the same dump as the whole program, while
+     * the graph never holds more than the blocks of one statement.
+     *
+     * @result The test passes if the dumps are equal and only the open block is kept after each statement.
+     */
+    @Test
+    public void streamingTest() throws IOException {
+        System.out.println("IR: Testing lowering one statement at a time");
+        String program = "program foo;\nvar fee, fi: integer;\nbegin\nfee := 0;\nif fee < 1 then fi := 1 else fi := 2;\nfi := fi + 1;\nwhile fee < 4 do fee := fee + fi\nend\n.\n";
+        Parser wholeParser = new Parser(program);
+        String expected = new IrGenerator(wholeParser.program(), wholeParser.getSymbolTable()).generate().toString();
+
+        Parser testParser = new Parser(program);
+        IrGenerator generator = new IrGenerator(testParser.program(), testParser.getSymbolTable());
+        ControlFlowGraph graph = generator.start();
+        StringBuilder dump = new StringBuilder();
+        graph.printVariables(dump);
+        BasicBlock previous = null;
+        boolean lowering = true;
+        while (lowering) {
+            lowering = generator.lowerNext();
+            Assertions.assertTrue(graph.getBlocks().size() <= 4);
+            for (BasicBlock block : graph.getBlocks()) {
+                graph.printBlock(dump, block, block != previous);
+                previous = block;
+            }
+            graph.retire();
+            if (lowering) {
+                Assertions.assertEquals(1, graph.getBlocks().size());
+                Assertions.assertTrue(graph.getBlocks().get(0).getInstructions().isEmpty());
+            }
+        }
+        Assertions.assertTrue(graph.getBlocks().isEmpty());
+        Assertions.assertEquals(expected, dump.toString());
+        System.out.println("Success.");
+    }
+}
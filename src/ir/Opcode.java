@@ -0,0 +1,59 @@
+package ir;
+
+/**
+ * This class enumerates the operations of the three-address intermediate representation.
+ *
+ * @author William Mork
+ */
+public enum Opcode {
+
+    // Values
+    CONST("const"), LOAD("load"), STORE("store"), ALOAD("aload"), ASTORE("astore"),
+
+    // Arithmetic and logic
+    ADD("add"), SUB("sub"), MUL("mul"), DIV("div"), MOD("mod"), AND("and"), OR("or"), NEG("neg"), NOT("not"),
+
+    // Comparisons, which give 1 if they hold and 0 if they do not
+    LT("lt"), GT("gt"), LE("le"), GE("ge"), EQ("eq"), NE("ne"),
+
+    // Terminators, one at the end of each basic block
+    JUMP("jump"), BRANCH("branch"), EXIT("exit"),
+
+    // A statement which could not be lowered
+    UNSUPPORTED("unsupported");
+
+    /** The name of the operation in the dump of the representation. */
+    private final String mnemonic;
+
+    /**
+     * Creates an opcode.
+     * @param mnemonic The name of the operation in the dump of the representation.
+     */
+    Opcode(String mnemonic) {
+        this.mnemonic = mnemonic;
+    }
+
+    /**
+     * Returns the name of the operation in the dump of the representation.
+     * @return The mnemonic.
+     */
+    public String getMnemonic() {
+        return mnemonic;
+    }
+
+    /**
+     * Returns true if the operation is a comparison.
+     * @return True for lt, gt, le, ge, eq and ne.
+     */
+    public boolean isComparison() {
+        return compareTo(LT) >= 0 && compareTo(NE) <= 0;
+    }
+
+    /**
+     * Returns true if the operation ends a basic block.
+     * @return True for jump, branch and exit.
+     */
+    public boolean isTerminator() {
+        return this == JUMP || this == BRANCH || this == EXIT;
+    }
+}
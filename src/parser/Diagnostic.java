@@ -0,0 +1,67 @@
+package parser;
+
+/**
+ * An error found in a Micro-Pascal program, with the position in the source
+ * at which it was found.
+ *
+ * @author William Mork
+ */
+public class Diagnostic {
+
+    /** The line of the error, counting from 1, or 0 if it is not known. */
+    private final int line;
+
+    /** The column of the error, counting from 1, or 0 if it is not known. */
+    private final int column;
+
+    /** The description of the error. */
+    private final String message;
+
+    /**
+     * Creates a diagnostic.
+     * @param line The line of the error, counting from 1, or 0 if it is not known.
+     * @param column The column of the error, counting from 1, or 0 if it is not known.
+     * @param message The description of the error.
+     */
+    public Diagnostic(int line, int column, String message) {
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    /**
+     * Returns the line of the error.
+     * @return The line number, counting from 1, or 0 if it is not known.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the column of the error.
+     * @return The column number, counting from 1, or 0 if it is not known.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the description of the error.
+     * @return The error message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the position and description of the error.
+     * @return The diagnostic as "line:column: message", or only the message if its line is not known.
+     */
+    @Override
+    public String toString() {
+        if (line == 0) {
+            return message;
+        }
+        return line + ":" + column + ": " + message;
+    }
+}
@@ -0,0 +1,61 @@
+package parser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a Micro-Pascal program can not be parsed. Within the parser it
+ * unwinds a production rule to the nearest point at which parsing can resume;
+ * outside the parser it carries every error found in the program.
+ *
+ * @author William Mork
+ */
+public class ParseException extends RuntimeException {
+
+    /** Version of the serialized form of the exception. */
+    private static final long serialVersionUID = 1L;
+
+    /** The errors found in the program. */
+    private final List<Diagnostic> diagnostics;
+
+    /**
+     * Creates a parse exception for a single error.
+     * @param diagnostic The error.
+     */
+    public ParseException(Diagnostic diagnostic) {
+        this(Collections.singletonList(diagnostic));
+    }
+
+    /**
+     * Creates a parse exception for the errors of a program.
+     * @param diagnostics The errors found in the program.
+     */
+    public ParseException(List<Diagnostic> diagnostics) {
+        super(join(diagnostics));
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns the errors found in the program.
+     * @return The diagnostics.
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Joins diagnostics into a message, one per line.
+     * @param diagnostics The diagnostics.
+     * @return The message.
+     */
+    private static String join(List<Diagnostic> diagnostics) {
+        StringBuilder message = new StringBuilder();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(diagnostic);
+        }
+        return message.toString();
+    }
+}
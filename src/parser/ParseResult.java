@@ -0,0 +1,80 @@
+package parser;
+
+import syntaxtree.FlatTree;
+import syntaxtree.ProgramNode;
+
+import java.util.List;
+
+/**
+ * The outcome of parsing a program: the syntax tree, which is partial if
+ * parsing stopped early, and every error found along the way.
+ *
+ * @author William Mork
+ */
+public class ParseResult {
+
+    /** The root of the syntax tree, or null if no program heading was parsed. */
+    private final ProgramNode program;
+
+    /** The flat tree the program was parsed into, or null if it was parsed into node objects. */
+    private final FlatTree flatTree;
+
+    /** The errors found in the program. */
+    private final List<Diagnostic> diagnostics;
+
+    /**
+     * Creates a parse result.
+     * @param program The root of the syntax tree, or null if no program heading was parsed.
+     * @param diagnostics The errors found in the program.
+     */
+    public ParseResult(ProgramNode program, List<Diagnostic> diagnostics) {
+        this.program = program;
+        this.flatTree = null;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Creates the parse result of a program parsed into a flat tree, whose syntax
+     * tree is read through the program node of the flat tree.
+     * @param flatTree The flat tree of the program.
+     * @param diagnostics The errors found in the program.
+     */
+    public ParseResult(FlatTree flatTree, List<Diagnostic> diagnostics) {
+        this.program = flatTree.program();
+        this.flatTree = flatTree;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Returns the root of the syntax tree. The tree of a program with errors is
+     * missing the statements and declarations that could not be parsed.
+     * @return The program node, or null if no program heading was parsed.
+     */
+    public ProgramNode getProgram() {
+        return program;
+    }
+
+    /**
+     * Returns the flat tree the program was parsed into.
+     * @return The flat tree, or null if the program was parsed into node objects.
+     */
+    public FlatTree getFlatTree() {
+        return flatTree;
+    }
+
+    /**
+     * Returns the errors found in the program, in the order they were found.
+     * @return The diagnostics.
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Returns true if the program was parsed without errors.
+     * @return True if there are no diagnostics.
+     */
+    public boolean isSuccess() {
+        return diagnostics.isEmpty();
+    }
+}
@@ -1,14 +1,21 @@
 package parser;
 
+import scanner.IdentifierToken;
+import scanner.LineIndex;
+import scanner.NameTable;
+import scanner.NumberToken;
 import scanner.Scanner;
+import scanner.SourceInput;
 import scanner.Token;
+import scanner.TokenBuffer;
 import scanner.TokenType;
 import symboltable.*;
 import syntaxtree.*;
 
-import java.beans.Expression;
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 
 /**
  * The parser class uses an instance of the scanner class to
@@ -17,68 +24,135 @@ import java.util.ArrayList;
  * is added to a symbol table.
  * <p>
  * To use a parser, create an instance pointing at a file or
- * input stream and call the top-level function, <code>program()</code>.
- * If the function returns without an error, the file
- * contains an acceptable expression.
+ * input stream and call <code>parse()</code>. If the result holds
+ * no diagnostics, the file contains an acceptable program.
+ * </p>
+ * <p>
+ * A syntax error does not stop the parser. The error is recorded and the
+ * parser skips ahead to a token it can resume at, such as the semicolon
+ * ending a statement or declaration, so that a single pass finds every error
+ * in the program. Characters which begin no token are reported and skipped.
  * </p>
  *
  * @author William Mork
  */
 public class Parser {
 
-    /** The next token in the input stream. */
+    /** Precedence of the relational operators. */
+    private static final int RELATIONAL = 1;
+
+    /** Precedence of the addition operators. */
+    private static final int ADDITIVE = 2;
+
+    /** Precedence of the multiplication operators. */
+    private static final int MULTIPLICATIVE = 3;
+
+    /** Tokens at which parsing resumes after an error in the declarations. */
+    private static final EnumSet<TokenType> DECLARATION_SYNC = EnumSet.of(TokenType.SEMI, TokenType.VAR,
+            TokenType.FUNCTION, TokenType.PROCEDURE, TokenType.BEGIN);
+
+    /** Tokens at which parsing resumes after an error in a subprogram head. */
+    private static final EnumSet<TokenType> SUBPROGRAM_SYNC = EnumSet.of(TokenType.SEMI, TokenType.VAR,
+            TokenType.BEGIN);
+
+    /** Tokens at which parsing resumes after an error in the body of a subprogram. */
+    private static final EnumSet<TokenType> SUBPROGRAMS_SYNC = EnumSet.of(TokenType.SEMI, TokenType.FUNCTION,
+            TokenType.PROCEDURE, TokenType.BEGIN);
+
+    /** Tokens at which parsing resumes after an error in a statement. */
+    private static final EnumSet<TokenType> STATEMENT_SYNC = EnumSet.of(TokenType.SEMI, TokenType.END,
+            TokenType.BEGIN);
+
+    /** Tokens which begin a statement. */
+    private static final EnumSet<TokenType> STATEMENT_START = EnumSet.of(TokenType.ID, TokenType.BEGIN,
+            TokenType.IF, TokenType.WHILE, TokenType.READ, TokenType.WRITE, TokenType.RETURN);
+
+    /** The next token in the input stream, when reading from a scanner. */
     private Token lookahead;
 
+    /** The pre-scanned tokens, or null when reading from a scanner. */
+    private TokenBuffer tokens;
+
+    /** Index of the next token in the token buffer. */
+    private int position = 0;
+
     /** Scanner, reads input stream. */
     private Scanner inputStreamScanner;
 
     /** Symbol table, stores unique identifiers and related information. */
     private SymbolTable symbolTable;
 
+    /** Number of tokens matched so far. */
+    private int tokenCount = 0;
+
+    /** Offset of the lookahead token within the source, when reading from a scanner. */
+    private int lookaheadOffset;
+
+    /** Length of the lookahead token, when reading from a scanner. */
+    private int lookaheadLength;
+
+    /** Offset just past the last token matched, where the span of a finished node ends. */
+    private int previousEnd;
+
+    /** Line numbers of the source, or null if the source is read through a reader. */
+    private LineIndex lineIndex;
+
+    /** The errors found so far, in the order they were found. */
+    private ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+
+    /** Token count at the last syntax error, so that an error is reported once per token. */
+    private int errorTokenCount = -1;
+
+    /** The flat tree the program is built into, or null if the parser builds node objects. */
+    private FlatTree flatTree;
+
+    /** True if the next statement list is that of the main program, whose statements go straight into the flat tree. */
+    private boolean mainStatements = false;
+
     /**
      * Creates a Parser using an input String as a parameter.
      * @param inputString Input String to be parsed.
      */
     public Parser(String inputString) {
-        // Create input stream reader in the case of a String
-        inputStreamScanner = new Scanner(new StringReader(inputString));
-
-        try {
-            lookahead = inputStreamScanner.nextToken();
-        } catch (IOException e) {
-            error("Start token not recognized in input stream.");
-        }
-
-        // Create symbol table
-        symbolTable = new SymbolTable();
+        this(SourceInput.open(inputString));
     }
 
     /**
      * Creates a Parser using an input file as a parameter.
      * @param inputFile Input file to be parsed.
+     * @throws IOException If the file can not be read.
      */
-    public Parser(File inputFile) {
+    public Parser(File inputFile) throws IOException {
+        this(SourceInput.scan(SourceInput.decode(inputFile)));
+    }
 
-        InputStreamReader inputStreamReader;
-        FileInputStream fileInputStream = null;
+    /**
+     * Creates a Parser reading from a scanner, such as one created by
+     * {@link scanner.SourceInput#open(File)}.
+     * @param scanner The scanner positioned at the start of the input.
+     */
+    public Parser(Scanner scanner) {
+        inputStreamScanner = scanner;
+        lineIndex = scanner.getLineIndex();
 
-        try {
-            fileInputStream = new FileInputStream(inputFile);
-        } catch (FileNotFoundException ex) {
-            error("Input file could not be located. Please confirm that the input file is a valid Micro-Pascal program or correct the file location.");
-        }
+        advance();
 
-        inputStreamReader = new InputStreamReader(fileInputStream);
-        inputStreamScanner = new Scanner(inputStreamReader);
+        // Create symbol table
+        symbolTable = new SymbolTable(scanner.getNameTable());
+    }
 
-        try {
-            lookahead = inputStreamScanner.nextToken();
-        } catch (IOException e) {
-            error("Start token not recognized in input stream.");
-        }
+    /**
+     * Creates a Parser over a pre-scanned token buffer. Lexemes are only copied
+     * out of the source when the parser needs them.
+     * @param tokens The tokens of the program to be parsed.
+     */
+    public Parser(TokenBuffer tokens) {
+        this.tokens = tokens;
+        lineIndex = tokens.getLineIndex();
+        skipInvalid();
 
         // Create symbol table
-        symbolTable = new SymbolTable();
+        symbolTable = new SymbolTable(tokens.getNameTable());
     }
 
     /**
@@ -90,21 +164,66 @@ public class Parser {
      * @return The main, top-level ProgramNode containing all other nodes.
      */
     public ProgramNode program() {
-        match(TokenType.PROGRAM);
-        String lex = lookahead.getLexeme();
-        ProgramNode program = new ProgramNode(lex);
-        // Semantic Analysis flag
-        if (symbolTable.isProgram(lex)) {
-            error("PROGRAM with lexeme " + lex + " already exists in symbol table.");
-        }
-        symbolTable.addProgram(lex);
-        match(TokenType.ID);
-        match(TokenType.SEMI);
+        int start = lookaheadOffset();
+        ProgramNode program = null;
+        try {
+            match(TokenType.PROGRAM);
+            String lex = lookaheadLexeme();
+            program = new ProgramNode(lex);
+            // Semantic Analysis flag
+            if (symbolTable.isProgram(lex)) {
+                error("PROGRAM with lexeme " + lex + " already exists in symbol table.");
+            }
+            symbolTable.addProgram(lex);
+            match(TokenType.ID);
+            match(TokenType.SEMI);
+        } catch (ParseException e) {
+            synchronize(DECLARATION_SYNC);
+            if (lookaheadType() == TokenType.SEMI) {
+                match(TokenType.SEMI);
+            }
+        }
+        if (program == null) {
+            program = new ProgramNode(null);
+        }
         program.setDeclarations(declarations());
         program.setSubprogramDeclarations(subprogram_declarations());
-        program.setCompoundStatement(compound_statement());
-        match(TokenType.PERIOD);
-        return program;
+        mainStatements = flatTree != null;
+        try {
+            program.setCompoundStatement(compound_statement());
+            match(TokenType.PERIOD);
+        } catch (ParseException e) {
+            // Nothing follows the main compound statement to resume at.
+        }
+        mainStatements = false;
+        return span(program, start);
+    }
+
+    /**
+     * Parses a whole program, recovering from errors so that every error in the
+     * program is found in a single pass.
+     * @return The syntax tree of the program and the errors found in it.
+     */
+    public ParseResult parse() {
+        ProgramNode program = program();
+        return new ParseResult(program, diagnostics);
+    }
+
+    /**
+     * Parses a whole program into a {@link FlatTree}, recovering from errors as
+     * {@link #parse()} does. Each statement of the main program is appended to the
+     * flat tree as soon as it is parsed, so that the node objects of the statements
+     * are not kept, and the declarations and program node are appended at the end.
+     * @return The flat tree of the program, read through its program node, and the errors found in it.
+     */
+    public ParseResult parseFlat() {
+        flatTree = new FlatTree(symbolTable.getNameTable());
+        try {
+            flatTree.setProgram(program());
+            return new ParseResult(flatTree, diagnostics);
+        } finally {
+            flatTree = null;
+        }
     }
 
     /**
@@ -119,11 +238,13 @@ public class Parser {
      */
     public ArrayList<String> identifier_list() {
         ArrayList<String> identifierList = new ArrayList<>();
-        identifierList.add(this.lookahead.getLexeme());
+        identifierList.add(lookaheadLexeme());
         match(TokenType.ID);
-        if (this.lookahead.getType() == TokenType.COMMA) {
+        // The recursion of rule b.b is applied as a loop.
+        while (lookaheadType() == TokenType.COMMA) {
             match(TokenType.COMMA);
-            identifierList.addAll(identifier_list());
+            identifierList.add(lookaheadLexeme());
+            match(TokenType.ID);
         }
         return identifierList;
     }
@@ -138,20 +259,31 @@ public class Parser {
      * @return A DeclarationsNode containing declared variables.
      */
     public DeclarationsNode declarations() {
+        int start = lookaheadOffset();
         DeclarationsNode declarations = new DeclarationsNode();
-        if (this.lookahead.getType() == TokenType.VAR) {
-            match(TokenType.VAR);
-            ArrayList<String> identifierList = identifier_list();
-            match(TokenType.COLON);
-            TokenType type = type(identifierList);
-            for (String identifier : identifierList) {
-                declarations.addVariable(new VariableNode(identifier, type));
+        // The recursion of rule c.a is applied as a loop.
+        while (lookaheadType() == TokenType.VAR) {
+            try {
+                int declarationStart = lookaheadOffset();
+                match(TokenType.VAR);
+                ArrayList<String> identifierList = identifier_list();
+                match(TokenType.COLON);
+                TokenType type = type(identifierList);
+                for (String identifier : identifierList) {
+                    VariableNode variable = new VariableNode(identifier, type);
+                    variable.setNameId(symbolTable.getNameTable().find(identifier));
+                    declarations.addVariable(span(variable, declarationStart));
+                }
+                match(TokenType.SEMI);
+            } catch (ParseException e) {
+                synchronize(DECLARATION_SYNC);
+                if (lookaheadType() == TokenType.SEMI) {
+                    match(TokenType.SEMI);
+                }
             }
-            match(TokenType.SEMI);
-            declarations.addDeclarations(declarations());
         }
         // lambda case
-        return declarations;
+        return span(declarations, start);
     }
 
     /**
@@ -167,33 +299,27 @@ public class Parser {
     public TokenType type(ArrayList<String> identifierList) {
         TokenType type = null;
         int startIndex, stopIndex;
-        if (this.lookahead.getType() == TokenType.ARRAY) {
+        if (lookaheadType() == TokenType.ARRAY) {
             match(TokenType.ARRAY);
             match(TokenType.LBRACE);
-            startIndex = Integer.parseInt(lookahead.getLexeme());
-            match(TokenType.NUMBER);
+            startIndex = arrayBound();
             match(TokenType.COLON);
-            stopIndex = Integer.parseInt(lookahead.getLexeme());
-            match(TokenType.NUMBER);
+            stopIndex = arrayBound();
             match(TokenType.RBRACE);
             match(TokenType.OF);
             type = standard_type();
             for (String identifier : identifierList) {
-                // Semantic Analysis flag
-                if (symbolTable.isArray(identifier)){
+                // Semantic Analysis flag, raised for a name already declared in this scope
+                if (!symbolTable.addArray(identifier, type, startIndex, stopIndex)) {
                     error("ARRAY with lexeme " + identifier + " already exists in symbol table.");
-                } else {
-                    symbolTable.addArray(identifier, type, startIndex, stopIndex);
                 }
             }
-        } else if (this.lookahead.getType() == TokenType.INTEGER || this.lookahead.getType() == TokenType.REAL) {
+        } else if (lookaheadType() == TokenType.INTEGER || lookaheadType() == TokenType.REAL) {
             type = standard_type();
             for (String identifier : identifierList) {
-                // Semantic Analysis flag
-                if (symbolTable.isVariable(identifier)){
+                // Semantic Analysis flag, raised for a name already declared in this scope
+                if (!symbolTable.addVariable(identifier, type)) {
                     error("VARIABLE with lexeme " + identifier + " already exists in symbol table.");
-                } else {
-                    symbolTable.addVariable(identifier, type);
                 }
             }
         } else {
@@ -211,10 +337,10 @@ public class Parser {
      * @return A token type, either INTEGER or REAL.
      */
     public TokenType standard_type() {
-        if (this.lookahead.getType() == TokenType.INTEGER) {
+        if (lookaheadType() == TokenType.INTEGER) {
             match(TokenType.INTEGER);
             return TokenType.INTEGER;
-        } else if (this.lookahead.getType() == TokenType.REAL) {
+        } else if (lookaheadType() == TokenType.REAL) {
             match(TokenType.REAL);
             return TokenType.REAL;
         } else {
@@ -234,16 +360,29 @@ public class Parser {
      * @return A SubProgramDeclarationsNode containing declared functions and procedures.
      */
     public SubProgramDeclarationsNode subprogram_declarations() {
+        int start = lookaheadOffset();
         SubProgramDeclarationsNode subProgramDeclarationsNode = new SubProgramDeclarationsNode();
-        if (this.lookahead.getType() == TokenType.FUNCTION || this.lookahead.getType() == TokenType.PROCEDURE) {
-            subProgramDeclarationsNode.addSubProgramDeclaration(subprogram_declaration());
-            if (this.lookahead.getType() == TokenType.SEMI) {
-                match(TokenType.SEMI);
-                subProgramDeclarationsNode.addSubProgramDeclarations(subprogram_declarations().getProcs());
+        // The recursion of rule f.a is applied as a loop.
+        while (lookaheadType() == TokenType.FUNCTION || lookaheadType() == TokenType.PROCEDURE) {
+            try {
+                SubProgramNode subProgramNode = subprogram_declaration();
+                if (subProgramNode != null) {
+                    subProgramDeclarationsNode.addSubProgramDeclaration(subProgramNode);
+                }
+            } catch (ParseException e) {
+                synchronize(SUBPROGRAMS_SYNC);
+                // Recovery may stop at the head of the next subprogram, past the semicolon.
+                if (lookaheadType() == TokenType.FUNCTION || lookaheadType() == TokenType.PROCEDURE) {
+                    continue;
+                }
+            }
+            if (lookaheadType() != TokenType.SEMI) {
+                break;
             }
-            // lambda case
+            match(TokenType.SEMI);
         }
-        return subProgramDeclarationsNode;
+        // lambda case
+        return span(subProgramDeclarationsNode, start);
     }
 
     /**
@@ -252,14 +391,36 @@ public class Parser {
      *
      * Production Rules:
      * RULE g.a:    subprogram_declaration → subprogram_head declarations compound_statement
+     *
+     * The declarations and statements of the subprogram are parsed in a scope of
+     * their own, entered by subprogram_head and left here.
      * @return A SubProgramNode for a declared function or procedure.
      */
     public SubProgramNode subprogram_declaration() {
-        SubProgramNode subProgramNode = subprogram_head();
-        declarations();
-        subprogram_declarations();
-        compound_statement();
-        return subProgramNode;
+        int start = lookaheadOffset();
+        int depth = symbolTable.getDepth();
+        SubProgramNode subProgramNode = null;
+        try {
+            subProgramNode = subprogram_head();
+        } catch (ParseException e) {
+            synchronize(SUBPROGRAM_SYNC);
+            if (lookaheadType() == TokenType.SEMI) {
+                match(TokenType.SEMI);
+            }
+        }
+        if (symbolTable.getDepth() == depth) {
+            symbolTable.addNewScope();
+        }
+        try {
+            declarations();
+            subprogram_declarations();
+            compound_statement();
+        } finally {
+            while (symbolTable.getDepth() > depth) {
+                symbolTable.removeScope();
+            }
+        }
+        return subProgramNode == null ? null : span(subProgramNode, start);
     }
 
     /**
@@ -269,27 +430,36 @@ public class Parser {
      * Production Rules:
      * RULE h.a:    subprogram_head → function ID arguments : standard_type ;
      * RULE h.b:    subprogram_head → procedure ID arguments ;
+     *
+     * The subprogram is declared in the enclosing scope, and a scope is entered for
+     * its arguments, so that it may be called after its declaration and from itself.
      * @return A SubProgramNode for a declared function or procedure.
      */
     public SubProgramNode subprogram_head() {
         SubProgramNode subProgramNode = null;
-        if (this.lookahead.getType() == TokenType.FUNCTION) {
+        if (lookaheadType() == TokenType.FUNCTION) {
             match(TokenType.FUNCTION);
-            String functionIdentifier = this.lookahead.getLexeme();
+            String functionIdentifier = lookaheadLexeme();
             subProgramNode = new SubProgramNode(functionIdentifier);
             match(TokenType.ID);
+            // The result type follows the arguments, so it is set once it is known.
+            Symbol function = symbolTable.addFunction(functionIdentifier, null) ? symbolTable.getSymbol(functionIdentifier) : null;
+            symbolTable.addNewScope();
             arguments();
             match(TokenType.COLON);
             TokenType type = standard_type();
-            symbolTable.addFunction(functionIdentifier, type);
+            if (function != null) {
+                function.setType(type);
+            }
             match(TokenType.SEMI);
-        } else if (this.lookahead.getType() == TokenType.PROCEDURE) {
+        } else if (lookaheadType() == TokenType.PROCEDURE) {
             match(TokenType.PROCEDURE);
-            String procedureIdentifier = this.lookahead.getLexeme();
+            String procedureIdentifier = lookaheadLexeme();
             subProgramNode = new SubProgramNode(procedureIdentifier);
             match(TokenType.ID);
-            arguments();
             symbolTable.addProcedure(procedureIdentifier);
+            symbolTable.addNewScope();
+            arguments();
             match(TokenType.SEMI);
         } else {
             error("SUBPROGRAM_HEAD: TokenType FUNCTION or PROCEDURE not matched.");
@@ -307,7 +477,7 @@ public class Parser {
      */
     public ArrayList<VariableNode> arguments() {
         ArrayList<VariableNode> args = new ArrayList<>();
-        if (this.lookahead.getType() == TokenType.LPAREN) {
+        if (lookaheadType() == TokenType.LPAREN) {
             match(TokenType.LPAREN);
             parameter_list();
             match(TokenType.RPAREN);
@@ -325,18 +495,22 @@ public class Parser {
      * @return The arguments declared in a parameter list.
      */
     public ArrayList<VariableNode> parameter_list() {
-        ArrayList<String> identifierList = identifier_list();
         ArrayList<VariableNode> args = new ArrayList<>();
-        if (this.lookahead.getType() == TokenType.COLON) {
+        // The recursion of rule j.b is applied as a loop.
+        while (true) {
+            ArrayList<String> identifierList = identifier_list();
+            if (lookaheadType() != TokenType.COLON) {
+                break;
+            }
             match(TokenType.COLON);
             TokenType type = type(identifierList);
             for (String identifier : identifierList) {
                 args.add(new VariableNode(identifier, type));
             }
-            if (this.lookahead.getType() == TokenType.SEMI) {
-                match(TokenType.SEMI);
-                args.addAll(parameter_list());
+            if (lookaheadType() != TokenType.SEMI) {
+                break;
             }
+            match(TokenType.SEMI);
         }
         return args;
     }
@@ -350,11 +524,11 @@ public class Parser {
      * @return A CompoundStatementNode.
      */
     public CompoundStatementNode compound_statement() {
-        CompoundStatementNode compoundStatementNode = new CompoundStatementNode();
+        int start = lookaheadOffset();
         match(TokenType.BEGIN);
-        compoundStatementNode = optional_statements();
+        CompoundStatementNode compoundStatementNode = optional_statements();
         match(TokenType.END);
-        return compoundStatementNode;
+        return span(compoundStatementNode, start);
     }
 
     /**
@@ -367,10 +541,10 @@ public class Parser {
      */
     public CompoundStatementNode optional_statements() {
         CompoundStatementNode compoundStatementNode = new CompoundStatementNode();
-        if (this.lookahead.getType() == TokenType.ID ||
-                this.lookahead.getType() == TokenType.BEGIN ||
-                this.lookahead.getType() == TokenType.IF ||
-                this.lookahead.getType() == TokenType.WHILE) {
+        if (lookaheadType() == TokenType.ID ||
+                lookaheadType() == TokenType.BEGIN ||
+                lookaheadType() == TokenType.IF ||
+                lookaheadType() == TokenType.WHILE) {
             compoundStatementNode.addStatement(statement_list());
         }
         // lambda case
@@ -387,12 +561,33 @@ public class Parser {
      */
     public ArrayList<StatementNode> statement_list() {
         ArrayList<StatementNode> statementNodeList = new ArrayList<>();
-        statementNodeList.add(statement());
-        if (this.lookahead.getType() == TokenType.SEMI) {
-            match(TokenType.SEMI);
-            statementNodeList.addAll(statement_list());
+        // Only the outermost statement list of the main program goes into the flat tree.
+        boolean flat = mainStatements;
+        mainStatements = false;
+        // The recursion of rule m.b is applied as a loop.
+        while (true) {
+            boolean recovered = false;
+            try {
+                if (flat) {
+                    flatTree.addStatement(statement());
+                } else {
+                    statementNodeList.add(statement());
+                }
+            } catch (ParseException e) {
+                synchronize(STATEMENT_SYNC);
+                recovered = true;
+            }
+            if (lookaheadType() == TokenType.SEMI) {
+                match(TokenType.SEMI);
+            } else if (STATEMENT_START.contains(lookaheadType())) {
+                // A missing semicolon is reported and parsing goes on with the next statement.
+                if (!recovered) {
+                    report("expected: " + TokenType.SEMI + ". look-ahead: " + lookaheadType() + ".");
+                }
+            } else {
+                break;
+            }
         }
-        // lambda case
         return statementNodeList;
     }
 
@@ -411,22 +606,24 @@ public class Parser {
      * @return A StatementNode.
      */
     public StatementNode statement() {
+        int start = lookaheadOffset();
         StatementNode statementNode = null;
-        if (this.lookahead.getType() == TokenType.ID) {
-            if (symbolTable.isVariable(this.lookahead.getLexeme()) || symbolTable.isArray(this.lookahead.getLexeme())) {
+        if (lookaheadType() == TokenType.ID) {
+            int id = lookaheadId();
+            if (symbolTable.isVariable(id) || symbolTable.isArray(id)) {
                 AssignmentStatementNode assignmentStatementNode = new AssignmentStatementNode();
                 assignmentStatementNode.setLvalue(variable());
                 match(TokenType.ASSIGN);
                 assignmentStatementNode.setExpression(expression());
-                return assignmentStatementNode;
-            } else if (symbolTable.isProcedure(this.lookahead.getLexeme())) {
+                return span(assignmentStatementNode, start);
+            } else if (symbolTable.isProcedure(id)) {
                 procedure_statement();
             } else {
                 error("STATEMENT: Variable or Procedure identifier does not exist in symbol table.");
             }
-        } else if (this.lookahead.getType() == TokenType.BEGIN) {
+        } else if (lookaheadType() == TokenType.BEGIN) {
             statementNode = compound_statement();
-        } else if (this.lookahead.getType() == TokenType.IF) {
+        } else if (lookaheadType() == TokenType.IF) {
             IfStatementNode ifStatementNode = new IfStatementNode();
             match(TokenType.IF);
             ifStatementNode.setTest(expression());
@@ -434,25 +631,25 @@ public class Parser {
             ifStatementNode.setThenStatement(statement());
             match(TokenType.ELSE);
             ifStatementNode.setElseStatement(statement());
-            return ifStatementNode;
-        } else if (this.lookahead.getType() == TokenType.WHILE) {
+            return span(ifStatementNode, start);
+        } else if (lookaheadType() == TokenType.WHILE) {
             WhileStatementNode whileStatementNode = new WhileStatementNode();
             match(TokenType.WHILE);
             whileStatementNode.setTest(expression());
             match(TokenType.DO);
             whileStatementNode.setDoStatement(statement());
-            return whileStatementNode;
-        } else if (this.lookahead.getType() == TokenType.READ) {
+            return span(whileStatementNode, start);
+        } else if (lookaheadType() == TokenType.READ) {
             match(TokenType.READ);
             match(TokenType.LPAREN);
             match(TokenType.ID);
             match(TokenType.RPAREN);
-        } else if (this.lookahead.getType() == TokenType.WRITE) {
+        } else if (lookaheadType() == TokenType.WRITE) {
             match(TokenType.WRITE);
             match(TokenType.LPAREN);
             expression();
             match(TokenType.RPAREN);
-        } else if (this.lookahead.getType() == TokenType.RETURN) {
+        } else if (lookaheadType() == TokenType.RETURN) {
             match(TokenType.RETURN);
             expression();
         } else {
@@ -471,23 +668,29 @@ public class Parser {
      * @return A VariableNode.
      */
     public VariableNode variable() {
-        String lex = this.lookahead.getLexeme();
-        if (!symbolTable.isArray(lex)) {
-            VariableNode variableNode = new VariableNode(lex, symbolTable.getType(lex));
+        int start = lookaheadOffset();
+        String lex = lookaheadLexeme();
+        int id = lookaheadId();
+        if (!symbolTable.isArray(id)) {
+            VariableNode variableNode = new VariableNode(lex, symbolTable.getType(id));
+            variableNode.setNameId(id);
             match(TokenType.ID);
-            return variableNode;
+            return span(variableNode, start);
         } else {
             VariableNode variableNode = new VariableNode(lex);
-            variableNode.setType(symbolTable.getType(lex));
+            variableNode.setType(symbolTable.getType(id));
+            variableNode.setNameId(id);
             match(TokenType.ID);
-            if (this.lookahead.getType() == TokenType.LBRACE) {
+            span(variableNode, start);
+            if (lookaheadType() == TokenType.LBRACE) {
                 ArrayNode arrayNode = new ArrayNode(lex);
-                arrayNode.setType(symbolTable.getType(lex));
+                arrayNode.setType(symbolTable.getType(id));
+                arrayNode.setNameId(id);
 
                 match(TokenType.LBRACE);
                 arrayNode.setExpressionNode(expression());
                 match(TokenType.RBRACE);
-                return arrayNode;
+                return span(arrayNode, start);
             }
             return variableNode;
         }
@@ -505,7 +708,7 @@ public class Parser {
     public ProcedureStatementNode procedure_statement() {
         ProcedureStatementNode procedureStatementNode = null;
         match(TokenType.ID);
-        if (this.lookahead.getType() == TokenType.LPAREN) {
+        if (lookaheadType() == TokenType.LPAREN) {
             match(TokenType.LPAREN);
             expression_list();
             match(TokenType.RPAREN);
@@ -524,9 +727,10 @@ public class Parser {
     public ArrayList<ExpressionNode> expression_list() {
         ArrayList<ExpressionNode> expressionNodeList = new ArrayList<>();
         expressionNodeList.add(expression());
-        if (this.lookahead.getType() == TokenType.COMMA) {
+        // The recursion of rule q.b is applied as a loop.
+        while (lookaheadType() == TokenType.COMMA) {
             match(TokenType.COMMA);
-            expressionNodeList.addAll(expression_list());
+            expressionNodeList.add(expression());
         }
         return expressionNodeList;
     }
@@ -540,21 +744,7 @@ public class Parser {
      * @return An ExpressionNode.
      */
     public ExpressionNode expression() {
-        ExpressionNode leftExpressionNode = simple_expression();
-        TokenType type = leftExpressionNode.getType();
-        if (isRelOp(this.lookahead.getType())) {
-            OperationNode operationNode = new OperationNode(this.lookahead.getType());
-            if (type.equals(TokenType.REAL)) {
-                operationNode.setType(TokenType.REAL);
-            } else {
-                operationNode.setType(TokenType.INTEGER);
-            }
-            operationNode.setLeft(leftExpressionNode);
-            match(this.lookahead.getType());
-            operationNode.setLeft(simple_expression());
-            return operationNode;
-        }
-        return leftExpressionNode;
+        return climb(operand(RELATIONAL), RELATIONAL);
     }
 
     /**
@@ -567,20 +757,7 @@ public class Parser {
      * @return An ExpressionNode.
      */
     public ExpressionNode simple_expression() {
-        ExpressionNode expressionNode = null;
-        if (this.lookahead.getType() == TokenType.ID ||
-                this.lookahead.getType() == TokenType.NUMBER ||
-                this.lookahead.getType() == TokenType.LPAREN ||
-                this.lookahead.getType() == TokenType.NOT) {
-            expressionNode = term();
-            expressionNode = simple_prime(expressionNode);
-        } else if (sign()) {
-            expressionNode = term();
-            expressionNode = simple_prime(expressionNode);
-        } else {
-            error("SIMPLE_EXPRESSION: TERM or SIGN can not be called.");
-        }
-        return expressionNode;
+        return climb(operand(ADDITIVE), ADDITIVE);
     }
 
     /**
@@ -589,19 +766,11 @@ public class Parser {
      * Production Rules:
      * RULE t.a:    simple_prime → addop term simple_prime
      * RULE t.b:    simple_prime → λ
+     * @param leftExpressionNode The term preceding the first addop.
      * @return An ExpressionNode.
      */
     public ExpressionNode simple_prime(ExpressionNode leftExpressionNode) {
-        if (isAddOp(this.lookahead.getType())) {
-            OperationNode operationNode = new OperationNode(this.lookahead.getType());
-            match(lookahead.getType());
-            ExpressionNode rightExpressionNode = term();
-            operationNode.setLeft(leftExpressionNode);
-            operationNode.setRight(rightExpressionNode);
-            return simple_prime(operationNode);
-        }
-        // lambda case
-        return leftExpressionNode;
+        return climb(leftExpressionNode, ADDITIVE);
     }
 
     /**
@@ -612,8 +781,7 @@ public class Parser {
      * @return An ExpressionNode.
      */
     public ExpressionNode term() {
-        ExpressionNode leftNode = factor();
-        return term_prime(leftNode);
+        return climb(factor(), MULTIPLICATIVE);
     }
 
     /**
@@ -622,23 +790,90 @@ public class Parser {
      * Production Rules:
      * RULE v.a:    term_prime → mulop factor term_prime
      * RULE v.b:    term_prime → λ
+     * @param expressionNode The factor preceding the first mulop.
+     * @return An ExpressionNode.
      */
     public ExpressionNode term_prime(ExpressionNode expressionNode) {
-        if (isMulOp(this.lookahead.getType())) {
-            OperationNode operationNode = new OperationNode(this.lookahead.getType());
-            match(this.lookahead.getType());
-            ExpressionNode rightNode = factor();
-            operationNode.setLeft(expressionNode);
-            operationNode.setRight(term_prime(rightNode));
-            return operationNode;
+        return climb(expressionNode, MULTIPLICATIVE);
+    }
+
+    /**
+     * Parses the operators of an expression by precedence climbing, replacing the
+     * recursion through expression, simple_expression and term with a loop per
+     * precedence level. Each operator takes an operand parsed at the next higher
+     * level as its right operand, so operators of equal precedence associate to the
+     * left, and a simple_expression is followed by at most one relop.
+     * @param leftExpressionNode The first operand of the expression.
+     * @param minPrecedence The lowest precedence of an operator to be parsed.
+     * @return An ExpressionNode.
+     */
+    private ExpressionNode climb(ExpressionNode leftExpressionNode, int minPrecedence) {
+        int start = leftExpressionNode.getOffset();
+        int precedence;
+        while ((precedence = precedence(lookaheadType())) >= minPrecedence) {
+            TokenType operation = lookaheadType();
+            match(operation);
+            ExpressionNode rightExpressionNode = climb(operand(precedence + 1), precedence + 1);
+            leftExpressionNode = span(operation(operation, leftExpressionNode, rightExpressionNode), start);
+            if (precedence == RELATIONAL) {
+                break;
+            }
         }
-        // lambda case
-        return expressionNode;
+        return leftExpressionNode;
+    }
+
+    /**
+     * Parses the first operand of an expression at a precedence level. A
+     * simple_expression may begin with a sign, which applies to its first term.
+     * @param minPrecedence The precedence level of the expression.
+     * @return An ExpressionNode.
+     */
+    private ExpressionNode operand(int minPrecedence) {
+        if (minPrecedence > ADDITIVE) {
+            return factor();
+        }
+        int start = lookaheadOffset();
+        TokenType sign = lookaheadType();
+        if (!sign()) {
+            return factor();
+        }
+        ExpressionNode termNode = climb(factor(), MULTIPLICATIVE);
+        if (sign == TokenType.PLUS) {
+            return termNode;
+        }
+        UnaryOperationNode negation = new UnaryOperationNode(TokenType.MINUS, termNode);
+        negation.setType(termNode.getType());
+        return span(negation, start);
+    }
+
+    /**
+     * Creates an operation node and assigns its result type. A relational operation
+     * has the type of its left operand; any other operation is REAL if either
+     * operand is REAL, and INTEGER if both are INTEGER.
+     * @param operation The operator.
+     * @param leftExpressionNode The left operand.
+     * @param rightExpressionNode The right operand.
+     * @return An OperationNode.
+     */
+    private static OperationNode operation(TokenType operation, ExpressionNode leftExpressionNode, ExpressionNode rightExpressionNode) {
+        OperationNode operationNode = new OperationNode(operation);
+        operationNode.setLeft(leftExpressionNode);
+        operationNode.setRight(rightExpressionNode);
+        TokenType leftType = leftExpressionNode.getType();
+        TokenType rightType = rightExpressionNode.getType();
+        if (isRelOp(operation)) {
+            operationNode.setType(leftType == TokenType.REAL ? TokenType.REAL : TokenType.INTEGER);
+        } else if (leftType == TokenType.REAL || rightType == TokenType.REAL) {
+            operationNode.setType(TokenType.REAL);
+        } else if (leftType == TokenType.INTEGER && rightType == TokenType.INTEGER) {
+            operationNode.setType(TokenType.INTEGER);
+        }
+        return operationNode;
     }
 
     /**
      * Executes the rule for sign in the expression grammar.
-     * Because sign() is only called by the parent function
+     * Because sign() is only called when parsing the first operand of a
      * simple_expression, the lookahead token can both be checked
      * and matched in the same function.
      *
@@ -647,12 +882,11 @@ public class Parser {
      * RULE w.b:    sign → -
      * @return true if lookahead token is a sign and is properly matched.
      */
-    // Unary operator node?
     public boolean sign() {
-        if (this.lookahead.getType() == TokenType.PLUS) {
+        if (lookaheadType() == TokenType.PLUS) {
             match(TokenType.PLUS);
             return true;
-        } else if (this.lookahead.getType() == TokenType.MINUS) {
+        } else if (lookaheadType() == TokenType.MINUS) {
             match(TokenType.MINUS);
             return true;
         } else {
@@ -673,61 +907,67 @@ public class Parser {
      * @return A Node whose type is dependent upon the production path of factor().
      */
     public ExpressionNode factor() {
+        int start = lookaheadOffset();
         ExpressionNode expressionNode = null;
-        if (this.lookahead.getType() == TokenType.ID) {
-            String lex = this.lookahead.getLexeme();
+        if (lookaheadType() == TokenType.ID) {
+            String lex = lookaheadLexeme();
+            int id = lookaheadId();
             match(TokenType.ID);
             TokenType type;
-            if (symbolTable.exists(lex)) {
-                type = symbolTable.getType(lex);
+            if (symbolTable.exists(id)) {
+                type = symbolTable.getType(id);
             } else {
                 type = null;
             }
-            if (this.lookahead.getType() == TokenType.LBRACE) {
+            if (lookaheadType() == TokenType.LBRACE) {
                 ArrayNode arrayNode = new ArrayNode(lex);
-                arrayNode.setType(symbolTable.getType(lex));
+                arrayNode.setType(type);
+                arrayNode.setNameId(id);
                 match(TokenType.LBRACE);
                 expressionNode = expression();
                 arrayNode.setExpressionNode(expressionNode);
                 match(TokenType.RBRACE);
-                return arrayNode;
-            } else if (this.lookahead.getType() == TokenType.LPAREN) {
+                return span(arrayNode, start);
+            } else if (lookaheadType() == TokenType.LPAREN) {
                 FunctionNode functionNode = new FunctionNode(lex);
                 functionNode.setType(type);
+                functionNode.setNameId(id);
                 match(TokenType.LPAREN);
                 ArrayList<ExpressionNode> arguments = expression_list();
                 functionNode.setArgs(arguments);
                 match(TokenType.RPAREN);
-                return functionNode;
+                return span(functionNode, start);
             } else {
                 VariableNode variableNode;
-                if (symbolTable.isVariable(lex)) {
-                    variableNode = new VariableNode(lex, symbolTable.getType(lex));
+                if (symbolTable.isVariable(id)) {
+                    variableNode = new VariableNode(lex, symbolTable.getType(id));
                 } else {
                     variableNode = new VariableNode(lex, null);
-                    return variableNode;
                 }
-                return variableNode;
+                variableNode.setNameId(id);
+                return span(variableNode, start);
             }
-        } else if (this.lookahead.getType() == TokenType.NUMBER) {
-            TokenType type;
-            String number = this.lookahead.getLexeme();
-            ValueNode valueNode = new ValueNode(number);
-            if (number.contains(".")) {
-                type = TokenType.REAL;
+        } else if (lookaheadType() == TokenType.NUMBER) {
+            NumberToken number = lookaheadNumber();
+            ValueNode valueNode;
+            if (number.isReal()) {
+                valueNode = new ValueNode(number.getLexeme(), number.getRealValue());
             } else {
-                type = TokenType.INTEGER;
+                valueNode = new ValueNode(number.getLexeme(), number.getIntValue());
             }
-            valueNode.setType(type);
             match(TokenType.NUMBER);
-            return valueNode;
-        } else if (this.lookahead.getType() == TokenType.LPAREN) {
+            return span(valueNode, start);
+        } else if (lookaheadType() == TokenType.LPAREN) {
             match(TokenType.LPAREN);
             expressionNode = expression();
             match(TokenType.RPAREN);
-        } else if (this.lookahead.getType() == TokenType.NOT) {
+            // A parenthesized expression has no node of its own, so its node spans the parentheses.
+            span(expressionNode, start);
+        } else if (lookaheadType() == TokenType.NOT) {
             match(TokenType.NOT);
-            factor();
+            ExpressionNode operandNode = factor();
+            expressionNode = span(new UnaryOperationNode(TokenType.NOT, operandNode), start);
+            expressionNode.setType(operandNode.getType());
         } else {
             error("FACTOR: TokenType ID, NUMBER, LPAREN or NOT not matched.");
         }
@@ -740,28 +980,209 @@ public class Parser {
      * If the current token in the input stream from the scanner
      * matches the token that is expected, the current token is
      * consumed and the scanner will move on to the next token
-     * in the input. The null pointer at the end of the scanned
-     * file is replaced with a placeholder token containing no type.
+     * in the input.
      * </p>
      * @param expected The expected token type.
      */
     private void match(TokenType expected) {
-        if (this.lookahead.getType() == expected) {
-            // comment for troubleshooting \\
-            System.out.println("expected: " + expected + ". look-ahead: " + this.lookahead.getType() + ".");
+        if (lookaheadType() == expected) {
+            tokenCount++;
+            previousEnd = lookaheadOffset() + lookaheadLength();
+            advance();
+        } else {
+            error("expected: " + expected + ". look-ahead: " + lookaheadType() + ".");
+        }
+    }
+
+    /**
+     * Moves on to the next valid token in the input.
+     */
+    private void advance() {
+        read();
+        skipInvalid();
+    }
+
+    /**
+     * Moves on to the next token in the input. The null pointer at the end of
+     * the scanned file is replaced with a placeholder token containing no type.
+     */
+    private void read() {
+        if (tokens != null) {
+            position++;
+        } else {
             try {
                 this.lookahead = inputStreamScanner.nextToken();
-                if (this.lookahead == null) {
-                    this.lookahead = new Token("End of file.", null);
-                }
             } catch (IOException ex) {
-                error("scanner exception.");
+                this.lookahead = null;
+                report("scanner exception.");
             }
-        } else {
-            error("expected: " + expected + ". look-ahead: " + this.lookahead.getType() + ".");
+            if (this.lookahead == null) {
+                this.lookahead = new Token("End of file.", null);
+            }
+            lookaheadOffset = inputStreamScanner.getOffset();
+            lookaheadLength = inputStreamScanner.yylength();
+        }
+    }
+
+    /**
+     * Reports and skips any characters which the scanner could not turn into a token,
+     * so that the production rules only ever see valid tokens.
+     */
+    private void skipInvalid() {
+        while (lookaheadType() == TokenType.ERROR) {
+            report("Invalid character '" + lookaheadLexeme() + "'.");
+            read();
         }
     }
 
+    /**
+     * Skips tokens until the lookahead token is one of the given types, a period
+     * or the end of the input, so that parsing can resume after an error.
+     * @param types The types of the tokens parsing can resume at.
+     */
+    private void synchronize(EnumSet<TokenType> types) {
+        while (lookaheadType() != null && lookaheadType() != TokenType.PERIOD && !types.contains(lookaheadType())) {
+            tokenCount++;
+            advance();
+        }
+    }
+
+    /**
+     * Returns the type of the next token.
+     * @return The type of the lookahead token, or null at the end of the input.
+     */
+    private TokenType lookaheadType() {
+        return tokens != null ? tokens.type(position) : lookahead.getType();
+    }
+
+    /**
+     * Returns the offset of the next token within the source.
+     * @return The offset of the lookahead token, or the length of the source at the end of the input.
+     */
+    private int lookaheadOffset() {
+        if (tokens != null) {
+            return position < tokens.size() ? tokens.start(position) : tokens.getLineIndex().length();
+        }
+        return lookaheadOffset;
+    }
+
+    /**
+     * Returns the length of the next token.
+     * @return The length of the lookahead token, or 0 at the end of the input.
+     */
+    private int lookaheadLength() {
+        if (tokens != null) {
+            return position < tokens.size() ? tokens.length(position) : 0;
+        }
+        return lookaheadLength;
+    }
+
+    /**
+     * Sets the span of a node to run from the given offset to the end of the last
+     * token matched.
+     * @param node The node.
+     * @param start The offset of the first token of the node.
+     * @param <T> The type of the node.
+     * @return The node.
+     */
+    private <T extends SyntaxTreeNode> T span(T node, int start) {
+        node.setSpan(start, Math.max(previousEnd - start, 0));
+        return node;
+    }
+
+    /**
+     * Returns the line numbers of the source, for turning the spans of the syntax
+     * tree into lines and columns.
+     * @return The line index, or null if the source is read through a reader.
+     */
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Returns the lexeme of the next token.
+     * @return The lexeme of the lookahead token.
+     */
+    private String lookaheadLexeme() {
+        if (tokens != null) {
+            return position < tokens.size() ? tokens.lexeme(position) : "End of file.";
+        }
+        return lookahead.getLexeme();
+    }
+
+    /**
+     * Returns the id of the identifier of the next token.
+     * @return The id of the lookahead identifier, or NameTable.NO_ID if the next token is not an identifier.
+     */
+    private int lookaheadId() {
+        if (tokens != null) {
+            return tokens.id(position);
+        }
+        return lookahead instanceof IdentifierToken ? ((IdentifierToken) lookahead).getId() : NameTable.NO_ID;
+    }
+
+    /**
+     * Returns the value of the next token, which must be a number literal within
+     * the range of its type.
+     * @return The number token of the lookahead token.
+     */
+    private NumberToken lookaheadNumber() {
+        if (lookaheadType() != TokenType.NUMBER) {
+            error("expected: " + TokenType.NUMBER + ". look-ahead: " + lookaheadType() + ".");
+        }
+        NumberToken number = tokens != null ? tokens.number(position) : (NumberToken) lookahead;
+        if (!number.isInRange()) {
+            error("NUMBER " + number.getLexeme() + " is out of range.");
+        }
+        return number;
+    }
+
+    /**
+     * Matches an array bound, which must be an integer literal.
+     * @return The value of the bound.
+     */
+    private int arrayBound() {
+        NumberToken number = lookaheadNumber();
+        if (number.isReal()) {
+            error("ARRAY bound " + number.getLexeme() + " is not an integer.");
+        }
+        match(TokenType.NUMBER);
+        return number.getIntValue();
+    }
+
+    /**
+     * Returns the type of a token further ahead in the input. Looking past the next
+     * token requires a parser created over a token buffer.
+     * @param distance The number of tokens past the next token; 0 for the next token.
+     * @return The type of the token, or null past the end of the input.
+     * @throws UnsupportedOperationException If the parser reads from a scanner and distance is not 0.
+     */
+    public TokenType peek(int distance) {
+        if (tokens != null) {
+            return tokens.type(position + distance);
+        }
+        if (distance != 0) {
+            throw new UnsupportedOperationException("Lookahead past the next token requires a token buffer.");
+        }
+        return lookaheadType();
+    }
+
+    /**
+     * Returns the precedence of a binary operator.
+     * @param type The type of a token.
+     * @return The precedence of the operator, or 0 if the token is not a binary operator.
+     */
+    private static int precedence(TokenType type) {
+        if (isMulOp(type)) {
+            return MULTIPLICATIVE;
+        } else if (isAddOp(type)) {
+            return ADDITIVE;
+        } else if (isRelOp(type)) {
+            return RELATIONAL;
+        }
+        return 0;
+    }
+
     /**
      * Checks if a given token is a multiplication operator as defined in the grammar.
      * @param type The type of the mulop token.
@@ -809,12 +1230,51 @@ public class Parser {
     }
 
     /**
-     * Errors out of the parser.
-     * Prints an error message and then exits the program.
-     * @param message The error message to print.
+     * Returns the number of tokens matched by the parser.
+     * @return The token count.
      */
-    private void error(String message) {
-        System.out.println("Parse error: " + message);
-        System.exit(1);
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Returns the errors found so far, in the order they were found.
+     * @return The diagnostics.
+     */
+    public ArrayList<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Records an error at the lookahead token without leaving the current rule.
+     * @param message The error message.
+     * @return The recorded diagnostic.
+     */
+    private Diagnostic report(String message) {
+        Diagnostic diagnostic;
+        if (lineIndex == null) {
+            diagnostic = new Diagnostic(0, 0, message);
+        } else {
+            int offset = Math.min(lookaheadOffset(), lineIndex.length());
+            diagnostic = new Diagnostic(lineIndex.line(offset), lineIndex.column(offset), message);
+        }
+        diagnostics.add(diagnostic);
+        return diagnostic;
+    }
+
+    /**
+     * Errors out of the current production rule.
+     * The error is recorded, unless no token has been matched since the last one,
+     * and a ParseException unwinds the parser to the nearest rule which can
+     * resume parsing after it.
+     * @param message The error message.
+     * @throws ParseException Always.
+     */
+    void error(String message) {
+        if (errorTokenCount == tokenCount) {
+            throw new ParseException(diagnostics.get(diagnostics.size() - 1));
+        }
+        errorTokenCount = tokenCount;
+        throw new ParseException(report(message));
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,9 @@ import scanner.TokenType;
 import symboltable.SymbolTable;
 import syntaxtree.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This class contains JUnit testing for the high-level production rules of
  * the pascal Grammar.
@@ -147,4 +150,200 @@ public class ParserTest {
         Assertions.assertEquals(true, result);
         System.out.println("Success!");
     }
+
+    /**
+     * Tests that a program of 100,000 statements and 10,000 declarations parses in
+     * linear time and constant stack depth, on a thread with a small stack and
+     * within a fixed time and allocation budget.
+     *
+     * @result The test fails if the parser overflows the stack, runs past 10 seconds or
+     * allocates more than 512 MB.
+     */
+    @Test
+    public void largeProgramTest() throws InterruptedException {
+        System.out.println("Testing a program of 100000 statements...");
+        StringBuilder input = new StringBuilder("program big;\nvar a0");
+        for (int i = 1; i < 10000; i++) {
+            input.append(", a").append(i);
+        }
+        input.append(": integer;\nbegin\n");
+        for (int i = 0; i < 100000; i++) {
+            input.append(i == 0 ? "" : ";\n").append("a").append(i % 10000).append(" := a").append((i + 1) % 10000).append(" + ").append(i);
+        }
+        input.append("\nend\n.\n");
+
+        ProgramNode[] root = new ProgramNode[1];
+        long[] allocated = new long[1];
+        Thread thread = new Thread(null, () -> {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            root[0] = new Parser(input.toString()).program();
+            allocated[0] = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        }, "parser", 256 * 1024);
+        long start = System.nanoTime();
+        thread.start();
+        thread.join(10000);
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        Assertions.assertFalse(thread.isAlive(), "Parsing took longer than 10 seconds.");
+        Assertions.assertNotNull(root[0], "Parsing failed.");
+        Assertions.assertEquals(10000, root[0].getDeclarations().getVariables().size());
+        Assertions.assertEquals(100000, root[0].getCompoundStatement().getStatements().size());
+        Assertions.assertTrue(allocated[0] < 512L * 1024 * 1024, "Parsing allocated " + allocated[0] + " bytes.");
+        System.out.println("Parsed in " + elapsed + " ms, allocating " + allocated[0] / (1024 * 1024) + " MB.");
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that expressions are parsed by precedence, with operators of equal
+     * precedence associating to the left and a sign applying to the first term.
+     *
+     * @result The test fails if the expression tree does not follow operator precedence.
+     */
+    @Test
+    public void precedenceTest() {
+        System.out.println("Testing operator precedence...");
+        Parser testParser = new Parser("- a * b - c - d / 2 < not e");
+        ExpressionNode result = testParser.expression();
+        String expected = "Operation: LTHAN\n"
+                + "|-- Operation: MINUS\n"
+                + "|-- --- Operation: MINUS\n"
+                + "|-- --- --- Unary Operation: MINUS\n"
+                + "|-- --- --- --- Operation: MULTIPLY\n"
+                + "|-- --- --- --- --- Name: a, Type: null\n"
+                + "|-- --- --- --- --- Name: b, Type: null\n"
+                + "|-- --- --- Name: c, Type: null\n"
+                + "|-- --- Operation: DIVIDE\n"
+                + "|-- --- --- Name: d, Type: null\n"
+                + "|-- --- --- Value: 2, Type: INTEGER\n"
+                + "|-- Unary Operation: NOT\n"
+                + "|-- --- Name: e, Type: null\n";
+        Assertions.assertEquals(expected, result.indentedToString(0));
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that the parser recovers from syntax errors and invalid characters,
+     * reporting each with its position and keeping the statements around them.
+     *
+     * @result The test fails if an error is missed or misplaced, or a valid statement is lost.
+     */
+    @Test
+    public void recoveryTest() {
+        System.out.println("Testing error recovery...");
+        Parser testParser = new Parser("program foo;\nvar a, b: integer;\nbegin\n"
+                + "  a := * 1;\n  b := 2;\n  a := b @ ;\n  b := )\nend\n.\n");
+        ParseResult result = testParser.parse();
+        Assertions.assertFalse(result.isSuccess());
+        List<Diagnostic> diagnostics = result.getDiagnostics();
+        Assertions.assertEquals(3, diagnostics.size());
+        Assertions.assertEquals("4:8: FACTOR: TokenType ID, NUMBER, LPAREN or NOT not matched.", diagnostics.get(0).toString());
+        Assertions.assertEquals("6:10: Invalid character '@'.", diagnostics.get(1).toString());
+        Assertions.assertEquals(7, diagnostics.get(2).getLine());
+        Assertions.assertEquals(8, diagnostics.get(2).getColumn());
+        List<StatementNode> statements = result.getProgram().getCompoundStatement().getStatements();
+        Assertions.assertEquals(2, statements.size());
+        Assertions.assertEquals("Assignment\n"
+                + "|-- Name: b, Type: INTEGER\n"
+                + "|-- Value: 2, Type: INTEGER\n", statements.get(0).indentedToString(0));
+        Assertions.assertEquals("Assignment\n"
+                + "|-- Name: a, Type: INTEGER\n"
+                + "|-- Name: b, Type: INTEGER\n", statements.get(1).indentedToString(0));
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that the parser recovers from a syntax error in a subprogram at the head
+     * of the next subprogram, keeping the subprograms after it.
+     *
+     * @result The test fails if the error cascades or a later subprogram is lost.
+     */
+    @Test
+    public void subprogramRecoveryTest() {
+        System.out.println("Testing error recovery between subprograms...");
+        Parser testParser = new Parser("program foo;\nvar a: integer;\n"
+                + "procedure p(x: integer);\nbegin\n  a := x\n"
+                + "procedure q;\nbegin a := 2 end;\n"
+                + "begin\n  q\nend\n.\n");
+        ParseResult result = testParser.parse();
+        Assertions.assertFalse(result.isSuccess());
+        List<Diagnostic> diagnostics = result.getDiagnostics();
+        Assertions.assertEquals(1, diagnostics.size(), diagnostics::toString);
+        Assertions.assertEquals("6:1: expected: END. look-ahead: PROCEDURE.", diagnostics.get(0).toString());
+        ArrayList<SubProgramNode> subprograms = result.getProgram().getSubProgramDeclarations().getProcs();
+        Assertions.assertEquals(1, subprograms.size());
+        Assertions.assertEquals("q", subprograms.get(0).getName());
+        Assertions.assertTrue(testParser.getSymbolTable().isProcedure("q"));
+        Assertions.assertEquals(1, result.getProgram().getCompoundStatement().getStatements().size());
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that syntax tree nodes record the span of their source text, and that
+     * the line index of the parser turns an offset into its line and column.
+     *
+     * @result The test fails if a span does not cover the source of its node.
+     */
+    @Test
+    public void spanTest() {
+        System.out.println("Testing source spans...");
+        String source = "program foo;\nvar a, b: integer;\nbegin\n  a := 1;\n  b := (a + 2) * 3\nend\n.\n";
+        Parser testParser = new Parser(source);
+        ProgramNode program = testParser.parse().getProgram();
+        Assertions.assertEquals(0, program.getOffset());
+        Assertions.assertEquals(source.length() - 1, program.getLength());
+
+        AssignmentStatementNode assignment = (AssignmentStatementNode) program.getCompoundStatement().getStatements().get(1);
+        Assertions.assertEquals("b := (a + 2) * 3", text(source, assignment));
+        OperationNode multiply = (OperationNode) assignment.getExpression();
+        Assertions.assertEquals("(a + 2) * 3", text(source, multiply));
+        Assertions.assertEquals("(a + 2)", text(source, multiply.getLeft()));
+        Assertions.assertEquals("a", text(source, ((OperationNode) multiply.getLeft()).getLeft()));
+        Assertions.assertEquals("3", text(source, multiply.getRight()));
+
+        Assertions.assertEquals(5, testParser.getLineIndex().line(multiply.getRight().getOffset()));
+        Assertions.assertEquals(18, testParser.getLineIndex().column(multiply.getRight().getOffset()));
+        System.out.println("Success!");
+    }
+
+    /**
+     * Tests that subprograms are parsed in scopes of their own, whose declarations
+     * may shadow those of the main program and are gone once the subprogram ends.
+     *
+     * @result The test fails if a subprogram declaration is seen outside its scope or clashes with an outer one.
+     */
+    @Test
+    public void scopeTest() {
+        System.out.println("Testing subprogram scopes...");
+        Parser testParser = new Parser("program foo;\nvar a: integer;\n"
+                + "procedure p(b: real);\nvar a: real;\n"
+                + "  procedure q;\n  var c: integer;\n  begin c := 1; a := b end;\n"
+                + "begin a := b; q end;\n"
+                + "function f(a: integer): real;\nbegin a := 2 end;\n"
+                + "begin\n  a := 3;\n  p\nend\n.\n");
+        ParseResult result = testParser.parse();
+        Assertions.assertTrue(result.isSuccess(), () -> result.getDiagnostics().toString());
+        SymbolTable symbolTable = testParser.getSymbolTable();
+        Assertions.assertEquals(0, symbolTable.getDepth());
+        Assertions.assertEquals(TokenType.INTEGER, symbolTable.getType("a"));
+        Assertions.assertEquals(TokenType.REAL, symbolTable.getType("f"));
+        Assertions.assertTrue(symbolTable.isProcedure("p"));
+        Assertions.assertFalse(symbolTable.exists("b"));
+        Assertions.assertFalse(symbolTable.exists("q"));
+        Assertions.assertFalse(symbolTable.exists("c"));
+
+        Parser duplicateParser = new Parser("program foo;\nprocedure p(b: real);\nvar b: integer;\nbegin end;\nbegin end\n.\n");
+        Assertions.assertFalse(duplicateParser.parse().isSuccess());
+        System.out.println("Success!");
+    }
+
+    /**
+     * Returns the source text covered by the span of a node.
+     * @param source The source of the program.
+     * @param node A node of the program.
+     * @return The text of the node.
+     */
+    private static String text(String source, SyntaxTreeNode node) {
+        return source.substring(node.getOffset(), node.getOffset() + node.getLength());
+    }
 }
@@ -61,7 +61,7 @@ public class RecognizerTest {
     public void subProgramTest() {
         System.out.println("Testing subprogram_declaration...");
         boolean result = true;
-        String input = "function func(foo: integer): integer;";
+        String input = "function func(foo: integer): integer; begin end";
         Recognizer testRecognizer = new Recognizer(input, false);
         try {
             testRecognizer.subprogram_declaration();
@@ -83,9 +83,10 @@ public class RecognizerTest {
     public void statementTest() {
         System.out.println("Testing statement...");
         boolean result = true;
-        String input = "foo := 1";
+        String input = "var foo: integer; foo := 1";
         Recognizer testRecognizer = new Recognizer(input, false);
         try {
+            testRecognizer.declarations();
             testRecognizer.statement();
         } catch (Exception e){
             System.out.println("test failed. A known valid statement was parsed as invalid.");
@@ -136,4 +137,18 @@ public class RecognizerTest {
         Assertions.assertEquals(true, result);
         System.out.println("Success!");
     }
+
+    /**
+     * Tests that an invalid program is rejected with a diagnostic instead of ending the program.
+     *
+     * @result The test fails if the invalid program is accepted or no error is reported.
+     */
+    @Test
+    public void rejectTest() {
+        System.out.println("Testing rejection of an invalid program...");
+        Recognizer testRecognizer = new Recognizer("program foo;\nbegin\nfoo := \nend\n.\n", false);
+        Assertions.assertFalse(testRecognizer.recognize());
+        Assertions.assertNotNull(testRecognizer.getError());
+        System.out.println("Success!");
+    }
 }
@@ -0,0 +1,34 @@
+package scanner;
+
+/**
+ * An ID token carrying the id its identifier was given by the {@link NameTable} of
+ * the scanner. The lexeme of the token is the interned name, shared by every
+ * occurrence of the identifier.
+ *
+ * @author William Mork
+ */
+public class IdentifierToken extends Token {
+
+    /** The id of the identifier. */
+    private final int id;
+
+    /**
+     * Creates an identifier token.
+     * @param lex The interned name of the identifier.
+     * @param id The id of the identifier.
+     * @param offset The offset of the identifier within the source, or -1 if it is not known.
+     * @param length The length of the identifier within the source.
+     */
+    public IdentifierToken(String lex, int id, int offset, int length) {
+        super(lex, TokenType.ID, offset, length);
+        this.id = id;
+    }
+
+    /**
+     * Returns the id of the identifier.
+     * @return The id given to the identifier by the name table of the scanner.
+     */
+    public int getId() {
+        return id;
+    }
+}
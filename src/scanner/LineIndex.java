@@ -0,0 +1,94 @@
+package scanner;
+
+import java.util.Arrays;
+
+/**
+ * Maps character offsets within a source to line and column numbers.
+ * <p>
+ * Tokens and syntax tree nodes only record the offset and length of their text,
+ * so the scanner does no per-character line bookkeeping. The offset of the start
+ * of each line is found the first time a position is asked for, which is usually
+ * only when an error is reported, and each lookup is then a binary search.
+ * </p>
+ * <p>
+ * An index is built lazily without synchronization, so it belongs to a single
+ * compilation and must not be shared between threads.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class LineIndex {
+
+    /** The indexed source. */
+    private final char[] source;
+
+    /** The number of characters in the source. */
+    private final int length;
+
+    /** The offset of the start of each line, or null until the index is first used. */
+    private int[] lineStarts;
+
+    /** The number of lines in the source. */
+    private int lineCount;
+
+    /**
+     * Creates a line index over a source. No work is done until a position is asked for.
+     * @param source The characters of the source.
+     * @param length The number of characters in the source.
+     */
+    public LineIndex(char[] source, int length) {
+        this.source = source;
+        this.length = length;
+    }
+
+    /**
+     * Returns the number of characters in the source.
+     * @return The length of the source.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the line of a character.
+     * @param offset The offset of the character within the source.
+     * @return The line number, counting from 1.
+     */
+    public int line(int offset) {
+        build();
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        // A miss returns the insertion point, which is one past the line holding the offset.
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Returns the column of a character.
+     * @param offset The offset of the character within the source.
+     * @return The column number, counting from 1.
+     */
+    public int column(int offset) {
+        int line = line(offset);
+        return offset - lineStarts[line - 1] + 1;
+    }
+
+    /**
+     * Finds the start of each line, if it has not been done already.
+     */
+    private void build() {
+        if (lineStarts != null) {
+            return;
+        }
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (source[i] == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        lineCount = count;
+        lineStarts = starts;
+    }
+}
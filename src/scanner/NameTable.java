@@ -0,0 +1,189 @@
+package scanner;
+
+import java.util.Arrays;
+
+/**
+ * Interns the identifiers of a program, giving each distinct identifier a dense
+ * integer id, counting from 0 in the order the identifiers are first seen.
+ * <p>
+ * The scanner interns each identifier straight out of its buffer, so an identifier
+ * used many times is copied into a String once, and every later phase can key on
+ * its id, for example by indexing an array, instead of hashing its name again.
+ * Names are held in an open addressing hash table of ids, probed linearly.
+ * </p>
+ * <p>
+ * A name table belongs to a single compilation and must not be shared between threads.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class NameTable {
+
+    /** Marks an identifier which has not been interned. */
+    public static final int NO_ID = -1;
+
+    /** Initial number of hash slots, a power of two. */
+    private static final int INITIAL_SLOTS = 64;
+
+    /** The names, by id. */
+    private String[] names = new String[INITIAL_SLOTS / 2];
+
+    /** The hash of each name, by id. */
+    private int[] hashes = new int[INITIAL_SLOTS / 2];
+
+    /** The hash slots, each holding an id plus one, or 0 if it is empty. */
+    private int[] slots = new int[INITIAL_SLOTS];
+
+    /** Number of names interned. */
+    private int size = 0;
+
+    /**
+     * Interns an identifier held in a character array.
+     * @param chars The array holding the identifier.
+     * @param start The offset of the identifier within the array.
+     * @param length The length of the identifier.
+     * @return The id of the identifier.
+     */
+    public int intern(char[] chars, int start, int length) {
+        int hash = hash(chars, start, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id == NO_ID) {
+                return add(new String(chars, start, length), hash, slot);
+            }
+            if (hashes[id] == hash && matches(names[id], chars, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Interns an identifier.
+     * @param name The identifier.
+     * @return The id of the identifier.
+     */
+    public int intern(String name) {
+        int hash = name.hashCode();
+        int slot = find(name, hash);
+        int id = slots[slot] - 1;
+        return id == NO_ID ? add(name, hash, slot) : id;
+    }
+
+    /**
+     * Returns the id of an identifier without interning it.
+     * @param name The identifier.
+     * @return The id of the identifier, or NO_ID if it has not been interned.
+     */
+    public int find(String name) {
+        return slots[find(name, name.hashCode())] - 1;
+    }
+
+    /**
+     * Returns the name of an id.
+     * @param id The id of an identifier.
+     * @return The identifier.
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns the number of identifiers interned, which is one more than the largest id.
+     * @return The name count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot of a name, which is either the slot holding its id or the empty
+     * slot where it would be added.
+     * @param name The identifier.
+     * @param hash The hash of the identifier.
+     * @return The slot.
+     */
+    private int find(String name, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id == NO_ID || (hashes[id] == hash && names[id].equals(name))) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Adds a name in an empty slot, growing the table once it is half full.
+     * @param name The identifier.
+     * @param hash The hash of the identifier.
+     * @param slot The empty slot found for the name.
+     * @return The id of the name.
+     */
+    private int add(String name, int hash, int slot) {
+        int id = size++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Rebuilds the hash slots at a new size.
+     * @param capacity The number of slots, a power of two.
+     */
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Hashes characters as String.hashCode would, so that names interned from arrays
+     * and from Strings share their slots.
+     * @param chars The array holding the identifier.
+     * @param start The offset of the identifier within the array.
+     * @param length The length of the identifier.
+     * @return The hash.
+     */
+    private static int hash(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Tests whether characters spell a name.
+     * @param name The name.
+     * @param chars The array holding the characters.
+     * @param start The offset of the characters within the array.
+     * @param length The number of characters.
+     * @return True if the characters equal the name.
+     */
+    private static boolean matches(String name, char[] chars, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
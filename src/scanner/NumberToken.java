@@ -0,0 +1,140 @@
+package scanner;
+
+/**
+ * A NUMBER token carrying the value of its literal, parsed once by the scanner so
+ * that the parser and code generator never re-parse the lexeme.
+ * <p>
+ * A literal without a fraction or an exponent is an integer literal and must fit in
+ * a 32-bit signed integer; any other literal is a real literal and must be finite.
+ * A literal outside its range is still returned as a token, marked as out of range,
+ * so that the parser can report it with the position of the token.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class NumberToken extends Token {
+
+    /** True if the literal is a real literal. */
+    private final boolean real;
+
+    /** The value of an integer literal. */
+    private final int intValue;
+
+    /** The value of the literal as a real. */
+    private final double realValue;
+
+    /** True if the value of the literal is within the range of its type. */
+    private final boolean inRange;
+
+    /**
+     * Creates a number token.
+     * @param lex The lexeme of the literal.
+     * @param real True if the literal is a real literal.
+     * @param intValue The value of an integer literal.
+     * @param realValue The value of the literal as a real.
+     * @param inRange True if the value is within the range of its type.
+     * @param offset The offset of the literal within the source, or -1 if it is not known.
+     */
+    private NumberToken(String lex, boolean real, int intValue, double realValue, boolean inRange, int offset) {
+        super(lex, TokenType.NUMBER, offset, lex.length());
+        this.real = real;
+        this.intValue = intValue;
+        this.realValue = realValue;
+        this.inRange = inRange;
+    }
+
+    /**
+     * Parses a number literal matched by the scanner.
+     * @param lex The lexeme of the literal.
+     * @return The number token of the literal.
+     */
+    public static NumberToken parse(String lex) {
+        return parse(lex, -1);
+    }
+
+    /**
+     * Parses a number literal matched by the scanner at a known offset.
+     * @param lex The lexeme of the literal.
+     * @param offset The offset of the literal within the source.
+     * @return The number token of the literal.
+     */
+    public static NumberToken parse(String lex, int offset) {
+        return parse(lex, lex.toCharArray(), 0, lex.length(), offset);
+    }
+
+    /**
+     * Parses a number literal held in a source array, without copying integer literals.
+     * @param source The source holding the literal.
+     * @param start The offset of the literal within the source.
+     * @param length The length of the literal.
+     * @return The number token of the literal.
+     */
+    public static NumberToken parse(char[] source, int start, int length) {
+        return parse(null, source, start, length, start);
+    }
+
+    /**
+     * Parses a number literal.
+     * @param lex The lexeme of the literal, or null to copy it out of the source.
+     * @param source The source holding the literal.
+     * @param start The offset of the literal within the source.
+     * @param length The length of the literal.
+     * @param offset The offset of the literal within the whole source, or -1 if it is not known.
+     * @return The number token of the literal.
+     */
+    private static NumberToken parse(String lex, char[] source, int start, int length, int offset) {
+        long value = 0;
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            char c = source[i];
+            if (c < '0' || c > '9') {
+                // A fraction or an exponent makes a real literal.
+                if (lex == null) {
+                    lex = new String(source, start, length);
+                }
+                double realValue = Double.parseDouble(lex);
+                return new NumberToken(lex, true, 0, realValue, !Double.isInfinite(realValue), offset);
+            }
+            if (value <= Integer.MAX_VALUE) {
+                value = value * 10 + (c - '0');
+            }
+        }
+        if (lex == null) {
+            lex = new String(source, start, length);
+        }
+        boolean inRange = value <= Integer.MAX_VALUE;
+        return new NumberToken(lex, false, (int) value, value, inRange, offset);
+    }
+
+    /**
+     * Returns whether the literal is a real literal.
+     * @return True for a real literal, false for an integer literal.
+     */
+    public boolean isReal() {
+        return real;
+    }
+
+    /**
+     * Returns the value of an integer literal.
+     * @return The integer value, or 0 for a real literal.
+     */
+    public int getIntValue() {
+        return intValue;
+    }
+
+    /**
+     * Returns the value of the literal as a real.
+     * @return The real value.
+     */
+    public double getRealValue() {
+        return realValue;
+    }
+
+    /**
+     * Returns whether the value of the literal is within the range of its type.
+     * @return False if an integer literal does not fit in 32 bits or a real literal is infinite.
+     */
+    public boolean isInRange() {
+        return inRange;
+    }
+}
@@ -2,8 +2,6 @@
 
 package scanner;
 
-import java.util.HashMap;
-
 
 /**
  * This class is a scanner generated by 
@@ -35,10 +33,13 @@ public class Scanner {
    * Translates characters to character classes
    */
   private static final String ZZ_CMAP_PACKED = 
-    "\11\0\1\15\1\15\1\16\1\15\1\15\22\0\1\15\7\0\3\6"+
-    "\1\5\1\6\1\5\1\3\1\6\12\2\1\7\1\6\1\11\1\10"+
-    "\1\12\2\0\4\1\1\4\25\1\1\6\1\0\1\6\3\0\32\1"+
-    "\1\14\1\0\1\13\7\0\1\16\u1fa2\0\1\16\1\16\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\udfe6\0";
+    "\11\0\1\10\1\10\1\11\1\10\1\10\22\0\1\10\7\0\1\44"+
+    "\1\45\1\52\1\46\1\40\1\5\1\3\1\53\12\2\1\41\1\37"+
+    "\1\50\1\47\1\51\2\0\4\1\1\4\25\1\1\42\1\0\1\43"+
+    "\3\0\1\12\1\17\1\31\1\14\1\20\1\27\1\21\1\35\1\22"+
+    "\2\1\1\25\1\33\1\13\1\24\1\34\1\1\1\15\1\26\1\32"+
+    "\1\30\1\23\1\36\1\1\1\16\1\1\1\7\1\0\1\6\7\0"+
+    "\1\11\u1fa2\0\1\11\1\11\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\udfe6\0";
 
   /** 
    * Translates characters to character classes
@@ -51,11 +52,18 @@ public class Scanner {
   private static final int [] ZZ_ACTION = zzUnpackAction();
 
   private static final String ZZ_ACTION_PACKED_0 =
-    "\1\0\1\1\1\2\1\3\3\4\1\1\1\5\3\0"+
-    "\2\3\1\0";
+    "\1\0\1\1\1\2\1\3\1\4\1\5\1\1\1\6"+
+    "\16\2\1\7\1\10\1\11\1\12\1\13\1\14\1\15"+
+    "\1\16\1\17\1\20\1\21\1\22\1\23\3\0\4\2"+
+    "\1\24\5\2\1\25\1\2\1\26\1\27\6\2\1\30"+
+    "\1\31\1\32\1\33\2\3\1\0\1\34\1\2\1\35"+
+    "\1\36\3\2\1\37\2\2\1\40\2\2\1\41\4\2"+
+    "\1\42\1\43\2\2\1\44\2\2\1\45\4\2\1\46"+
+    "\1\2\1\47\4\2\1\50\1\51\1\52\4\2\1\53"+
+    "\1\2\1\54\1\2\1\55\1\2\1\56";
 
   private static int [] zzUnpackAction() {
-    int [] result = new int[15];
+    int [] result = new int[116];
     int offset = 0;
     offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
     return result;
@@ -80,11 +88,24 @@ public class Scanner {
   private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
 
   private static final String ZZ_ROWMAP_PACKED_0 =
-    "\0\0\0\17\0\36\0\55\0\17\0\74\0\113\0\132"+
-    "\0\17\0\151\0\170\0\132\0\207\0\226\0\226";
+    "\0\0\0\54\0\130\0\204\0\54\0\54\0\260\0\54"+
+    "\0\334\0\u0108\0\u0134\0\u0160\0\u018c\0\u01b8\0\u01e4\0\u0210"+
+    "\0\u023c\0\u0268\0\u0294\0\u02c0\0\u02ec\0\u0318\0\54\0\54"+
+    "\0\u0344\0\54\0\54\0\54\0\54\0\54\0\54\0\u0370"+
+    "\0\u039c\0\54\0\54\0\u03c8\0\u03f4\0\260\0\u0420\0\u044c"+
+    "\0\u0478\0\u04a4\0\130\0\u04d0\0\u04fc\0\u0528\0\u0554\0\u0580"+
+    "\0\130\0\u05ac\0\130\0\130\0\u05d8\0\u0604\0\u0630\0\u065c"+
+    "\0\u0688\0\u06b4\0\54\0\54\0\54\0\54\0\u06e0\0\u070c"+
+    "\0\u070c\0\130\0\u0738\0\130\0\130\0\u0764\0\u0790\0\u07bc"+
+    "\0\130\0\u07e8\0\u0814\0\130\0\u0840\0\u086c\0\130\0\u0898"+
+    "\0\u08c4\0\u08f0\0\u091c\0\130\0\130\0\u0948\0\u0974\0\130"+
+    "\0\u09a0\0\u09cc\0\130\0\u09f8\0\u0a24\0\u0a50\0\u0a7c\0\130"+
+    "\0\u0aa8\0\130\0\u0ad4\0\u0b00\0\u0b2c\0\u0b58\0\130\0\130"+
+    "\0\130\0\u0b84\0\u0bb0\0\u0bdc\0\u0c08\0\130\0\u0c34\0\130"+
+    "\0\u0c60\0\130\0\u0c8c\0\130";
 
   private static int [] zzUnpackRowMap() {
-    int [] result = new int[15];
+    int [] result = new int[116];
     int offset = 0;
     offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
     return result;
@@ -107,15 +128,83 @@ public class Scanner {
   private static final int [] ZZ_TRANS = zzUnpackTrans();
 
   private static final String ZZ_TRANS_PACKED_0 =
-    "\1\2\1\3\1\4\1\5\1\3\2\5\1\6\1\5"+
-    "\1\7\1\6\1\2\1\10\1\11\21\0\2\3\1\0"+
-    "\1\3\14\0\1\4\1\12\1\13\22\0\1\5\16\0"+
-    "\1\5\1\0\1\5\4\0\13\14\1\11\1\0\2\14"+
-    "\2\0\1\15\16\0\1\16\2\0\1\17\13\0\1\15"+
-    "\1\0\1\13\14\0\1\16\14\0";
+    "\1\2\1\3\1\4\1\5\1\3\1\6\1\2\1\7"+
+    "\1\10\1\0\1\11\1\12\1\13\1\14\1\3\1\15"+
+    "\1\16\1\3\1\17\1\20\1\21\2\3\1\22\2\3"+
+    "\1\23\1\24\1\25\1\3\1\26\1\27\1\30\1\31"+
+    "\1\32\1\33\1\34\1\35\1\36\1\37\1\40\1\41"+
+    "\1\42\1\43\55\0\2\3\1\0\1\3\5\0\25\3"+
+    "\17\0\1\4\1\44\1\45\47\0\6\46\1\10\1\0"+
+    "\44\46\1\0\2\3\1\0\1\3\5\0\1\3\1\47"+
+    "\1\3\1\50\21\3\16\0\2\3\1\0\1\3\5\0"+
+    "\12\3\1\51\12\3\16\0\2\3\1\0\1\3\5\0"+
+    "\10\3\1\52\1\3\1\53\12\3\16\0\2\3\1\0"+
+    "\1\3\5\0\6\3\1\54\16\3\16\0\2\3\1\0"+
+    "\1\3\5\0\6\3\1\55\16\3\16\0\2\3\1\0"+
+    "\1\3\5\0\1\3\1\56\11\3\1\57\11\3\16\0"+
+    "\2\3\1\0\1\3\5\0\1\3\1\60\13\3\1\61"+
+    "\7\3\16\0\2\3\1\0\1\3\5\0\1\62\24\3"+
+    "\16\0\2\3\1\0\1\3\5\0\3\3\1\63\11\3"+
+    "\1\64\7\3\16\0\2\3\1\0\1\3\5\0\16\3"+
+    "\1\65\6\3\16\0\2\3\1\0\1\3\5\0\23\3"+
+    "\1\66\1\3\16\0\2\3\1\0\1\3\5\0\12\3"+
+    "\1\67\12\3\16\0\2\3\1\0\1\3\5\0\3\3"+
+    "\1\70\21\3\16\0\2\3\1\0\1\3\5\0\3\3"+
+    "\1\71\17\3\1\72\1\3\64\0\1\73\53\0\1\74"+
+    "\1\0\1\75\51\0\1\76\6\0\1\77\53\0\1\100"+
+    "\2\0\1\101\40\0\1\101\6\0\2\3\1\0\1\3"+
+    "\5\0\2\3\1\102\22\3\16\0\2\3\1\0\1\3"+
+    "\5\0\3\3\1\103\21\3\16\0\2\3\1\0\1\3"+
+    "\5\0\20\3\1\104\4\3\16\0\2\3\1\0\1\3"+
+    "\5\0\11\3\1\105\13\3\16\0\2\3\1\0\1\3"+
+    "\5\0\1\106\17\3\1\107\4\3\16\0\2\3\1\0"+
+    "\1\3\5\0\7\3\1\110\15\3\16\0\2\3\1\0"+
+    "\1\3\5\0\2\3\1\111\22\3\16\0\2\3\1\0"+
+    "\1\3\5\0\14\3\1\112\10\3\16\0\2\3\1\0"+
+    "\1\3\5\0\20\3\1\113\4\3\16\0\2\3\1\0"+
+    "\1\3\5\0\3\3\1\114\21\3\16\0\2\3\1\0"+
+    "\1\3\5\0\1\3\1\115\23\3\16\0\2\3\1\0"+
+    "\1\3\5\0\6\3\1\116\16\3\16\0\2\3\1\0"+
+    "\1\3\5\0\2\3\1\117\22\3\16\0\2\3\1\0"+
+    "\1\3\5\0\12\3\1\120\12\3\16\0\2\3\1\0"+
+    "\1\3\5\0\10\3\1\121\14\3\16\0\2\3\1\0"+
+    "\1\3\5\0\10\3\1\122\14\3\17\0\1\77\1\0"+
+    "\1\45\51\0\1\100\52\0\2\3\1\0\1\3\5\0"+
+    "\1\123\24\3\16\0\2\3\1\0\1\3\5\0\2\3"+
+    "\1\124\10\3\1\125\11\3\16\0\2\3\1\0\1\3"+
+    "\5\0\16\3\1\126\6\3\16\0\2\3\1\0\1\3"+
+    "\5\0\10\3\1\127\14\3\16\0\2\3\1\0\1\3"+
+    "\5\0\6\3\1\130\16\3\16\0\2\3\1\0\1\3"+
+    "\5\0\6\3\1\131\16\3\16\0\2\3\1\0\1\3"+
+    "\5\0\17\3\1\132\5\3\16\0\2\3\1\0\1\3"+
+    "\5\0\1\3\1\133\23\3\16\0\2\3\1\0\1\3"+
+    "\5\0\7\3\1\134\7\3\1\135\5\3\16\0\2\3"+
+    "\1\0\1\3\5\0\20\3\1\136\4\3\16\0\2\3"+
+    "\1\0\1\3\5\0\13\3\1\137\11\3\16\0\2\3"+
+    "\1\0\1\3\5\0\4\3\1\140\20\3\16\0\2\3"+
+    "\1\0\1\3\5\0\3\3\1\141\21\3\16\0\2\3"+
+    "\1\0\1\3\5\0\1\3\1\142\23\3\16\0\2\3"+
+    "\1\0\1\3\5\0\7\3\1\143\15\3\16\0\2\3"+
+    "\1\0\1\3\5\0\20\3\1\144\4\3\16\0\2\3"+
+    "\1\0\1\3\5\0\3\3\1\145\21\3\16\0\2\3"+
+    "\1\0\1\3\5\0\6\3\1\146\16\3\16\0\2\3"+
+    "\1\0\1\3\5\0\6\3\1\147\16\3\16\0\2\3"+
+    "\1\0\1\3\5\0\6\3\1\150\16\3\16\0\2\3"+
+    "\1\0\1\3\5\0\1\3\1\151\23\3\16\0\2\3"+
+    "\1\0\1\3\5\0\6\3\1\152\16\3\16\0\2\3"+
+    "\1\0\1\3\5\0\10\3\1\153\14\3\16\0\2\3"+
+    "\1\0\1\3\5\0\1\154\24\3\16\0\2\3\1\0"+
+    "\1\3\5\0\2\3\1\155\22\3\16\0\2\3\1\0"+
+    "\1\3\5\0\3\3\1\156\21\3\16\0\2\3\1\0"+
+    "\1\3\5\0\12\3\1\157\12\3\16\0\2\3\1\0"+
+    "\1\3\5\0\21\3\1\160\3\3\16\0\2\3\1\0"+
+    "\1\3\5\0\16\3\1\161\6\3\16\0\2\3\1\0"+
+    "\1\3\5\0\1\3\1\162\23\3\16\0\2\3\1\0"+
+    "\1\3\5\0\3\3\1\163\21\3\16\0\2\3\1\0"+
+    "\1\3\5\0\6\3\1\164\16\3\15\0";
 
   private static int [] zzUnpackTrans() {
-    int [] result = new int[165];
+    int [] result = new int[3256];
     int offset = 0;
     offset = zzUnpackTrans(ZZ_TRANS_PACKED_0, offset, result);
     return result;
@@ -153,11 +242,12 @@ public class Scanner {
   private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
 
   private static final String ZZ_ATTRIBUTE_PACKED_0 =
-    "\1\0\1\11\2\1\1\11\3\1\1\11\3\0\2\1"+
-    "\1\0";
+    "\1\0\1\11\2\1\2\11\1\1\1\11\16\1\2\11"+
+    "\1\1\6\11\2\1\2\11\3\0\24\1\4\11\2\1"+
+    "\1\0\63\1";
 
   private static int [] zzUnpackAttribute() {
-    int [] result = new int[15];
+    int [] result = new int[116];
     int offset = 0;
     offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
     return result;
@@ -233,7 +323,65 @@ public class Scanner {
   private int zzFinalHighSurrogate = 0;
 
   /* user code: */
-    private HashMap<String, TokenType> tokenTypes;
+    /** True if identifiers and numbers return their shared token instead of copying their lexeme. */
+    private boolean lexemesDeferred = false;
+
+    /** Line numbers of a source scanned in memory, or null. */
+    private LineIndex lineIndex;
+
+    /** The ids of the identifiers scanned. */
+    private NameTable names = new NameTable();
+
+    /**
+     * Sets whether identifiers and numbers return their shared token, which has no lexeme,
+     * so that a caller holding the source can read the lexeme from the token offset itself.
+     * @param deferred True to defer reading the lexemes of identifiers and numbers.
+     */
+    public void setLexemesDeferred(boolean deferred) {
+        lexemesDeferred = deferred;
+    }
+
+    /**
+     * Scans a whole source held in memory. The source becomes the scanner buffer,
+     * so it is neither copied nor refilled from the reader. The array must have room
+     * for one character past the source, which is overwritten with a newline so that
+     * the last token always ends before the end of the buffer.
+     * @param source The characters of the source, followed by one spare character.
+     * @param length The number of characters in the source.
+     */
+    public void setInput(char[] source, int length) {
+        yyreset(zzReader);
+        source[length] = '\n';
+        zzBuffer = source;
+        zzEndRead = length + 1;
+        zzAtEOF = true;
+        lineIndex = new LineIndex(source, length);
+    }
+
+    /**
+     * Returns the line numbers of a source scanned in memory. The index is only
+     * built when a line is first asked for.
+     * @return The line index, or null if the source is read through a reader.
+     */
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Returns the name table the identifiers scanned are interned in.
+     * @return The name table.
+     */
+    public NameTable getNameTable() {
+        return names;
+    }
+
+    /**
+     * Returns the offset of the last token scanned from the start of the input.
+     * @return The offset in characters.
+     */
+    public int getOffset() {
+        return yychar;
+    }
 
 
   /**
@@ -242,49 +390,6 @@ public class Scanner {
    * @param   in  the java.io.Reader to read input from.
    */
   public Scanner(java.io.Reader in) {
-      tokenTypes = new HashMap<>();
-    tokenTypes.put("and", TokenType.AND);
-    tokenTypes.put("array", TokenType.ARRAY);
-    tokenTypes.put("begin", TokenType.BEGIN);
-    tokenTypes.put("div", TokenType.DIV);
-    tokenTypes.put("do", TokenType.DO);
-    tokenTypes.put("else", TokenType.ELSE);
-    tokenTypes.put("end", TokenType.END);
-    tokenTypes.put("function", TokenType.FUNCTION);
-    tokenTypes.put("if", TokenType.IF);
-    tokenTypes.put("integer", TokenType.INTEGER);
-    tokenTypes.put("mod", TokenType.MOD);
-    tokenTypes.put("not", TokenType.NOT);
-    tokenTypes.put("of", TokenType.OF);
-    tokenTypes.put("or", TokenType.OR);
-    tokenTypes.put("procedure", TokenType.PROCEDURE);
-    tokenTypes.put("program", TokenType.PROGRAM);
-    tokenTypes.put("real", TokenType.REAL);
-    tokenTypes.put("then", TokenType.THEN);
-    tokenTypes.put("var", TokenType.VAR);
-    tokenTypes.put("while", TokenType.WHILE);
-    tokenTypes.put("read", TokenType.READ);
-    tokenTypes.put("write", TokenType.WRITE);
-    tokenTypes.put("return", TokenType.RETURN);
-    tokenTypes.put(";", TokenType.SEMI);
-    tokenTypes.put(",", TokenType.COMMA);
-    tokenTypes.put(".", TokenType.PERIOD);
-    tokenTypes.put(":", TokenType.COLON);
-    tokenTypes.put("[", TokenType.LBRACE);
-    tokenTypes.put("]", TokenType.RBRACE);
-    tokenTypes.put("(", TokenType.LPAREN);
-    tokenTypes.put(")", TokenType.RPAREN);
-    tokenTypes.put("+", TokenType.PLUS);
-    tokenTypes.put("-", TokenType.MINUS);
-    tokenTypes.put("=", TokenType.EQUAL);
-    tokenTypes.put("<>", TokenType.NOTEQ);
-    tokenTypes.put("<", TokenType.LTHAN);
-    tokenTypes.put("<=", TokenType.LTHANEQ);
-    tokenTypes.put(">", TokenType.GTHAN);
-    tokenTypes.put(">=", TokenType.GTHANEQ);
-    tokenTypes.put("*", TokenType.MULTIPLY);
-    tokenTypes.put("/", TokenType.DIVIDE);
-    tokenTypes.put(":=", TokenType.ASSIGN);
     this.zzReader = in;
   }
 
@@ -299,7 +404,7 @@ public class Scanner {
     char [] map = new char[0x110000];
     int i = 0;  /* index in packed string  */
     int j = 0;  /* index in unpacked array */
-    while (i < 110) {
+    while (i < 162) {
       int  count = packed.charAt(i++);
       char value = packed.charAt(i++);
       do map[j++] = value; while (--count > 0);
@@ -527,6 +632,8 @@ public class Scanner {
     while (true) {
       zzMarkedPosL = zzMarkedPos;
 
+      yychar+= zzMarkedPosL-zzStartRead;
+
       zzAction = -1;
 
       zzCurrentPosL = zzCurrentPos = zzStartRead = zzMarkedPosL;
@@ -595,41 +702,249 @@ public class Scanner {
       else {
         switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
           case 1: 
-            { System.out.println("Invalid syntax.");
-	System.exit(1);
+            { /* The parser reports the character and skips it. */
+    if (lexemesDeferred)
+    {
+        return Token.of(TokenType.ERROR);
+    }
+    return new Token(yytext(), TokenType.ERROR, yychar, yylength());
             } 
             // fall through
-          case 6: break;
+          case 47: break;
           case 2: 
-            { String lexeme = yytext();
-    TokenType type = tokenTypes.get(lexeme);
-
-    if (type != null)
-    {
-        return (new Token(lexeme, type));
-    }
-    else
+            { if (lexemesDeferred)
     {
-        return (new Token(lexeme, TokenType.ID));
+        return Token.of(TokenType.ID);
     }
+    int id = names.intern(zzBuffer, zzStartRead, yylength());
+    return new IdentifierToken(names.name(id), id, yychar, yylength());
             } 
             // fall through
-          case 7: break;
+          case 48: break;
           case 3: 
-            { return(new Token(yytext(), TokenType.NUMBER));
+            { if (lexemesDeferred)
+    {
+        return Token.of(TokenType.NUMBER);
+    }
+	return NumberToken.parse(yytext(), yychar);
             } 
             // fall through
-          case 8: break;
+          case 49: break;
           case 4: 
-            { return(new Token(yytext(),  tokenTypes.get(yytext())));
+            { return Token.of(TokenType.PERIOD);
             } 
             // fall through
-          case 9: break;
+          case 50: break;
           case 5: 
+            { return Token.of(TokenType.MINUS);
+            } 
+            // fall through
+          case 51: break;
+          case 6: 
             { /* Ignore Whitespace */
             } 
             // fall through
-          case 10: break;
+          case 52: break;
+          case 7: 
+            { return Token.of(TokenType.SEMI);
+            } 
+            // fall through
+          case 53: break;
+          case 8: 
+            { return Token.of(TokenType.COMMA);
+            } 
+            // fall through
+          case 54: break;
+          case 9: 
+            { return Token.of(TokenType.COLON);
+            } 
+            // fall through
+          case 55: break;
+          case 10: 
+            { return Token.of(TokenType.LBRACE);
+            } 
+            // fall through
+          case 56: break;
+          case 11: 
+            { return Token.of(TokenType.RBRACE);
+            } 
+            // fall through
+          case 57: break;
+          case 12: 
+            { return Token.of(TokenType.LPAREN);
+            } 
+            // fall through
+          case 58: break;
+          case 13: 
+            { return Token.of(TokenType.RPAREN);
+            } 
+            // fall through
+          case 59: break;
+          case 14: 
+            { return Token.of(TokenType.PLUS);
+            } 
+            // fall through
+          case 60: break;
+          case 15: 
+            { return Token.of(TokenType.EQUAL);
+            } 
+            // fall through
+          case 61: break;
+          case 16: 
+            { return Token.of(TokenType.LTHAN);
+            } 
+            // fall through
+          case 62: break;
+          case 17: 
+            { return Token.of(TokenType.GTHAN);
+            } 
+            // fall through
+          case 63: break;
+          case 18: 
+            { return Token.of(TokenType.MULTIPLY);
+            } 
+            // fall through
+          case 64: break;
+          case 19: 
+            { return Token.of(TokenType.DIVIDE);
+            } 
+            // fall through
+          case 65: break;
+          case 20: 
+            { return Token.of(TokenType.DO);
+            } 
+            // fall through
+          case 66: break;
+          case 21: 
+            { return Token.of(TokenType.IF);
+            } 
+            // fall through
+          case 67: break;
+          case 22: 
+            { return Token.of(TokenType.OR);
+            } 
+            // fall through
+          case 68: break;
+          case 23: 
+            { return Token.of(TokenType.OF);
+            } 
+            // fall through
+          case 69: break;
+          case 24: 
+            { return Token.of(TokenType.ASSIGN);
+            } 
+            // fall through
+          case 70: break;
+          case 25: 
+            { return Token.of(TokenType.LTHANEQ);
+            } 
+            // fall through
+          case 71: break;
+          case 26: 
+            { return Token.of(TokenType.NOTEQ);
+            } 
+            // fall through
+          case 72: break;
+          case 27: 
+            { return Token.of(TokenType.GTHANEQ);
+            } 
+            // fall through
+          case 73: break;
+          case 28: 
+            { return Token.of(TokenType.AND);
+            } 
+            // fall through
+          case 74: break;
+          case 29: 
+            { return Token.of(TokenType.NOT);
+            } 
+            // fall through
+          case 75: break;
+          case 30: 
+            { return Token.of(TokenType.DIV);
+            } 
+            // fall through
+          case 76: break;
+          case 31: 
+            { return Token.of(TokenType.END);
+            } 
+            // fall through
+          case 77: break;
+          case 32: 
+            { return Token.of(TokenType.VAR);
+            } 
+            // fall through
+          case 78: break;
+          case 33: 
+            { return Token.of(TokenType.MOD);
+            } 
+            // fall through
+          case 79: break;
+          case 34: 
+            { return Token.of(TokenType.READ);
+            } 
+            // fall through
+          case 80: break;
+          case 35: 
+            { return Token.of(TokenType.REAL);
+            } 
+            // fall through
+          case 81: break;
+          case 36: 
+            { return Token.of(TokenType.ELSE);
+            } 
+            // fall through
+          case 82: break;
+          case 37: 
+            { return Token.of(TokenType.THEN);
+            } 
+            // fall through
+          case 83: break;
+          case 38: 
+            { return Token.of(TokenType.ARRAY);
+            } 
+            // fall through
+          case 84: break;
+          case 39: 
+            { return Token.of(TokenType.BEGIN);
+            } 
+            // fall through
+          case 85: break;
+          case 40: 
+            { return Token.of(TokenType.WRITE);
+            } 
+            // fall through
+          case 86: break;
+          case 41: 
+            { return Token.of(TokenType.WHILE);
+            } 
+            // fall through
+          case 87: break;
+          case 42: 
+            { return Token.of(TokenType.RETURN);
+            } 
+            // fall through
+          case 88: break;
+          case 43: 
+            { return Token.of(TokenType.INTEGER);
+            } 
+            // fall through
+          case 89: break;
+          case 44: 
+            { return Token.of(TokenType.PROGRAM);
+            } 
+            // fall through
+          case 90: break;
+          case 45: 
+            { return Token.of(TokenType.FUNCTION);
+            } 
+            // fall through
+          case 91: break;
+          case 46: 
+            { return Token.of(TokenType.PROCEDURE);
+            } 
+            // fall through
+          case 92: break;
           default:
             zzScanError(ZZ_NO_MATCH);
         }
@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 
 /**
  * This class contains JUnit testing for the scanner.
@@ -87,4 +88,126 @@ public class ScannerTest {
         }
         Assertions.assertEquals(true, result);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that keywords and symbols are returned as shared tokens, and that
+     * identifiers beginning with a keyword are still scanned as identifiers.
+     * @result Each token is scanned with the expected type and keywords share one instance.
+     */
+    @Test
+    public void testSharedTokens() throws IOException {
+        Scanner testScanner = new Scanner(new StringReader("begin beginning := end; begin"));
+        Token begin = testScanner.nextToken();
+        Token identifier = testScanner.nextToken();
+        Token assign = testScanner.nextToken();
+        Token end = testScanner.nextToken();
+        Token semi = testScanner.nextToken();
+        Token secondBegin = testScanner.nextToken();
+
+        Assertions.assertEquals(TokenType.BEGIN, begin.getType());
+        Assertions.assertEquals(TokenType.ID, identifier.getType());
+        Assertions.assertEquals("beginning", identifier.getLexeme());
+        Assertions.assertEquals(TokenType.ASSIGN, assign.getType());
+        Assertions.assertEquals(":=", assign.getLexeme());
+        Assertions.assertEquals(TokenType.END, end.getType());
+        Assertions.assertEquals(TokenType.SEMI, semi.getType());
+        Assertions.assertSame(begin, secondBegin);
+        Assertions.assertNull(testScanner.nextToken());
+    }
+
+    /**
+     * Tests that a token buffer records the type, offset, length and line of each token.
+     * @result Each token of the source is stored with its position and lexeme.
+     */
+    @Test
+    public void testTokenBuffer() throws IOException {
+        TokenBuffer tokens = new TokenBuffer("program foo;\n{ comment }\nbegin x := 42 end");
+
+        Assertions.assertEquals(8, tokens.size());
+        Assertions.assertEquals(TokenType.PROGRAM, tokens.type(0));
+        Assertions.assertEquals(TokenType.ID, tokens.type(1));
+        Assertions.assertEquals(8, tokens.start(1));
+        Assertions.assertEquals(3, tokens.length(1));
+        Assertions.assertEquals("foo", tokens.lexeme(1));
+        Assertions.assertEquals(1, tokens.line(2));
+        Assertions.assertEquals(TokenType.BEGIN, tokens.type(3));
+        Assertions.assertEquals(3, tokens.line(3));
+        Assertions.assertEquals(":=", tokens.lexeme(5));
+        Assertions.assertEquals("42", tokens.lexeme(6));
+        Assertions.assertNull(tokens.type(8));
+    }
+
+    /**
+     * Tests that scanning a memory-mapped file produces the same tokens as scanning
+     * the file through a Reader.
+     * @result Both scanners return the same sequence of token types and lexemes.
+     */
+    @Test
+    public void testMappedInput() throws IOException {
+        File money = new File("src/pascal/money.pas");
+        Scanner readerScanner = new Scanner(new FileReader(money));
+        Scanner mappedScanner = SourceInput.open(money);
+
+        Token expected;
+        do {
+            expected = readerScanner.nextToken();
+            Token actual = mappedScanner.nextToken();
+            if (expected == null) {
+                Assertions.assertNull(actual);
+            } else {
+                Assertions.assertEquals(expected.getType(), actual.getType());
+                Assertions.assertEquals(expected.getLexeme(), actual.getLexeme());
+            }
+        } while (expected != null);
+        readerScanner.yyclose();
+    }
+
+    /**
+     * Tests that identifiers are interned with dense ids, that every occurrence of
+     * an identifier shares its id and its lexeme, and that a token buffer gives the
+     * same ids as the scanner.
+     * @result Each identifier has one id, counting from 0 in the order first seen.
+     */
+    @Test
+    public void testNameTable() throws IOException {
+        String source = "program foo; var bar: integer; begin bar := bar + foo1 end .";
+        Scanner scanner = SourceInput.open(source);
+        Token foo = scanner.nextToken();
+        foo = scanner.nextToken();
+        scanner.nextToken();
+        scanner.nextToken();
+        Token bar = scanner.nextToken();
+        for (int i = 0; i < 4; i++) {
+            scanner.nextToken();
+        }
+        Token secondBar = scanner.nextToken();
+        Assertions.assertEquals(0, ((IdentifierToken) foo).getId());
+        Assertions.assertEquals(1, ((IdentifierToken) bar).getId());
+        Assertions.assertEquals(1, ((IdentifierToken) secondBar).getId());
+        Assertions.assertSame(bar.getLexeme(), secondBar.getLexeme());
+
+        NameTable names = scanner.getNameTable();
+        Assertions.assertEquals(1, names.find("bar"));
+        Assertions.assertEquals(NameTable.NO_ID, names.find("baz"));
+        Assertions.assertEquals(1, names.intern("bar"));
+        Assertions.assertEquals(2, names.intern("foo1".toCharArray(), 0, 4));
+        Assertions.assertEquals(3, names.intern("baz"));
+
+        TokenBuffer tokens = new TokenBuffer(source);
+        Assertions.assertEquals(0, tokens.id(1));
+        Assertions.assertEquals(1, tokens.id(4));
+        Assertions.assertEquals(NameTable.NO_ID, tokens.id(2));
+        Assertions.assertEquals(2, tokens.id(13));
+        Assertions.assertEquals("foo1", tokens.lexeme(13));
+
+        // Enough names to grow the hash table several times.
+        NameTable many = new NameTable();
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i, many.intern("v" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i, many.find("v" + i));
+            Assertions.assertEquals("v" + i, many.name(i));
+        }
+    }
+}
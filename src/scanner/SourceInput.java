@@ -0,0 +1,118 @@
+package scanner;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads Micro-Pascal source files for the scanner through a memory-mapped fast path.
+ * <p>
+ * Micro-Pascal programs are almost always plain ASCII. Such a file is memory-mapped
+ * and its bytes are widened straight into a char array, skipping charset decoding,
+ * and the scanner scans that array as its buffer without ever refilling it. A file
+ * containing any non-ASCII byte is decoded with the default charset into an array instead.
+ * </p>
+ * <p>
+ * The arrays returned here hold one spare character after the source, which the
+ * scanner needs when it scans an array in place; the source is the first
+ * <code>length - 1</code> characters.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class SourceInput {
+
+    /**
+     * Reads an ASCII source file into a char array through a memory map.
+     * @param inputFile The source file.
+     * @return The characters of the file followed by one spare character, or null if the
+     * file contains non-ASCII bytes or is too large to map.
+     * @throws IOException If the file can not be read.
+     */
+    public static char[] mapAscii(File inputFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            char[] chars = new char[(int) size + 1];
+            for (int i = 0; i < size; i++) {
+                byte b = bytes.get(i);
+                if (b < 0) {
+                    return null;
+                }
+                chars[i] = (char) b;
+            }
+            return chars;
+        }
+    }
+
+    /**
+     * Reads a source file into a char array, through the memory-mapped fast path if
+     * the file is ASCII, or by decoding it with the default charset otherwise.
+     * @param inputFile The source file.
+     * @return The characters of the file followed by one spare character.
+     * @throws IOException If the file can not be read.
+     */
+    public static char[] read(File inputFile) throws IOException {
+        char[] chars = mapAscii(inputFile);
+        if (chars != null) {
+            return chars;
+        }
+        return decode(inputFile);
+    }
+
+    /**
+     * Reads a source file into a char array by decoding it with the default charset.
+     * @param inputFile The source file.
+     * @return The characters of the file followed by one spare character.
+     * @throws IOException If the file can not be read.
+     */
+    public static char[] decode(File inputFile) throws IOException {
+        CharArrayWriter writer = new CharArrayWriter();
+        try (Reader reader = new InputStreamReader(new FileInputStream(inputFile))) {
+            char[] buffer = new char[8192];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                writer.write(buffer, 0, count);
+            }
+        }
+        writer.write('\n');
+        return writer.toCharArray();
+    }
+
+    /**
+     * Creates a scanner over a source file, scanning a memory-mapped copy of the
+     * file if it is ASCII, or a decoded copy otherwise.
+     * @param inputFile The source file.
+     * @return A scanner positioned at the start of the file.
+     * @throws IOException If the file can not be read.
+     */
+    public static Scanner open(File inputFile) throws IOException {
+        return scan(read(inputFile));
+    }
+
+    /**
+     * Creates a scanner over a source string.
+     * @param source The source.
+     * @return A scanner positioned at the start of the source.
+     */
+    public static Scanner open(String source) {
+        return scan(Arrays.copyOf(source.toCharArray(), source.length() + 1));
+    }
+
+    /**
+     * Creates a scanner which scans a source array in place, so that the scanner
+     * can give the line of any offset within it.
+     * @param chars The characters of the source followed by one spare character.
+     * @return A scanner positioned at the start of the source.
+     */
+    public static Scanner scan(char[] chars) {
+        Scanner scanner = new Scanner(new CharArrayReader(chars));
+        scanner.setInput(chars, chars.length - 1);
+        return scanner;
+    }
+}
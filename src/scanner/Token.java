@@ -2,25 +2,71 @@ package scanner;
 
 /**
  * The Token class defines a token object containing it's lexeme and type.
+ * Tokens are immutable, so every keyword and symbol of a type shares a single
+ * instance, returned by {@link #of(TokenType)}. Identifiers and numbers also have a
+ * shared token, without a lexeme, for callers which read lexemes from the source.
+ * <p>
+ * A token allocated by the scanner records its span, the offset and length of its
+ * lexeme within the source. A shared token has no span, since it stands for every
+ * occurrence of its type; callers holding shared tokens take spans from the scanner
+ * or the {@link TokenBuffer} instead.
+ * </p>
  *
  * @author William Mork
  */
 public class Token {
 
+    /** The shared token of each keyword and symbol type, by ordinal. */
+    private static final Token[] SHARED = new Token[TokenType.values().length];
+
+    static {
+        for (TokenType type : TokenType.values()) {
+            SHARED[type.ordinal()] = new Token(type.getLexeme(), type);
+        }
+    }
+
     /** lexeme, or name reference of the token. */
-    public String lexeme;
+    public final String lexeme;
 
     /** type of the token. */
-    public TokenType type;
+    public final TokenType type;
+
+    /** Offset of the token within the source, or -1 if it is not known. */
+    private final int offset;
+
+    /** Length of the token within the source. */
+    private final int length;
 
     /**
-     * Creates a token with the given lexeme and type.
+     * Creates a token with the given lexeme and type, without a span.
      * @param lex The lexeme for this token.
      * @param type The type for this token.
      */
     public Token(String lex, TokenType type) {
+        this(lex, type, -1, 0);
+    }
+
+    /**
+     * Creates a token with the given lexeme, type and span.
+     * @param lex The lexeme for this token.
+     * @param type The type for this token.
+     * @param offset The offset of the token within the source, or -1 if it is not known.
+     * @param length The length of the token within the source.
+     */
+    public Token(String lex, TokenType type, int offset, int length) {
         this.lexeme = lex;
         this.type = type;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the shared token of a type.
+     * @param type A token type.
+     * @return The shared token of the type. The shared identifier and number tokens have a null lexeme.
+     */
+    public static Token of(TokenType type) {
+        return SHARED[type.ordinal()];
     }
 
     /**
@@ -39,6 +85,22 @@ public class Token {
         return this.type;
     }
 
+    /**
+     * Returns the offset of the token within the source.
+     * @return The offset in characters, or -1 if it is not known.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the length of the token within the source.
+     * @return The length in characters.
+     */
+    public int getLength() {
+        return length;
+    }
+
     /**
      * Creates the String representation of this token including
      * the lexeme and type.
@@ -0,0 +1,242 @@
+package scanner;
+
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pre-scanned token stream holding every token of a source in parallel arrays.
+ * <p>
+ * Each token is stored as its type and the offset and length of its lexeme within
+ * the source, so scanning a file allocates no objects per token. Line and column
+ * numbers are computed from the offsets by a {@link LineIndex} when they are asked
+ * for. Each identifier is interned in a {@link NameTable} as it is scanned; any
+ * other lexeme is only copied out of the source when it is asked for. Any token
+ * may be looked at, allowing lookahead of more than one token.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class TokenBuffer {
+
+    /** Token types by ordinal. */
+    private static final TokenType[] TYPES = TokenType.values();
+
+    /** Initial capacity of the token arrays. */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** The scanned source. */
+    private char[] source;
+
+    /** The type ordinal of each token. */
+    private int[] types = new int[INITIAL_CAPACITY];
+
+    /** The offset of each token within the source. */
+    private int[] starts = new int[INITIAL_CAPACITY];
+
+    /** The length of each token. */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /** The id of each identifier token, or NameTable.NO_ID for other tokens. */
+    private int[] ids = new int[INITIAL_CAPACITY];
+
+    /** Line numbers of the source, built when a line is first asked for. */
+    private LineIndex lineIndex;
+
+    /** The ids of the identifiers in the source. */
+    private NameTable names;
+
+    /** Number of tokens in the buffer. */
+    private int size = 0;
+
+    /**
+     * Scans a whole source into a token buffer. The source is scanned in place.
+     * @param source The Micro-Pascal source, followed by one spare character for the scanner.
+     * @param length The number of characters in the source.
+     * @throws IOException If the source can not be scanned.
+     */
+    public TokenBuffer(char[] source, int length) throws IOException {
+        this.source = source;
+        Scanner scanner = new Scanner(new CharArrayReader(source));
+        scanner.setInput(source, length);
+        scanner.setLexemesDeferred(true);
+        lineIndex = scanner.getLineIndex();
+        names = scanner.getNameTable();
+        Token token;
+        while ((token = scanner.nextToken()) != null) {
+            add(token.getType(), scanner.getOffset(), scanner.yylength());
+        }
+    }
+
+    /**
+     * Scans a source string into a token buffer.
+     * @param source The Micro-Pascal source.
+     * @throws IOException If the source can not be scanned.
+     */
+    public TokenBuffer(String source) throws IOException {
+        this(Arrays.copyOf(source.toCharArray(), source.length() + 1), source.length());
+    }
+
+    /**
+     * Reads and scans a source file into a token buffer.
+     * @param inputFile The Micro-Pascal file.
+     * @return The token buffer of the file.
+     * @throws IOException If the file can not be read or scanned.
+     */
+    public static TokenBuffer read(File inputFile) throws IOException {
+        char[] source = SourceInput.read(inputFile);
+        return new TokenBuffer(source, source.length - 1);
+    }
+
+    /**
+     * Appends a token to the buffer, growing the arrays if they are full.
+     * @param type The type of the token.
+     * @param start The offset of the token within the source.
+     * @param length The length of the token.
+     */
+    private void add(TokenType type, int start, int length) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        types[size] = type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        ids[size] = type == TokenType.ID ? names.intern(source, start, length) : NameTable.NO_ID;
+        size++;
+    }
+
+    /**
+     * Returns the number of tokens in the buffer.
+     * @return The token count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of a token.
+     * @param index The index of the token.
+     * @return The type of the token, or null past the end of the buffer.
+     */
+    public TokenType type(int index) {
+        return index < size ? TYPES[types[index]] : null;
+    }
+
+    /**
+     * Returns the offset of a token within the source.
+     * @param index The index of the token.
+     * @return The offset in characters.
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the length of a token.
+     * @param index The index of the token.
+     * @return The length in characters.
+     */
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Returns the id of an identifier token.
+     * @param index The index of the token.
+     * @return The id of the identifier, or NameTable.NO_ID if the token is not an identifier.
+     */
+    public int id(int index) {
+        return index < size ? ids[index] : NameTable.NO_ID;
+    }
+
+    /**
+     * Returns the name table the identifiers of the source are interned in.
+     * @return The name table.
+     */
+    public NameTable getNameTable() {
+        return names;
+    }
+
+    /**
+     * Returns the line of a token.
+     * @param index The index of the token.
+     * @return The line number, counting from 1.
+     */
+    public int line(int index) {
+        return lineIndex.line(starts[index]);
+    }
+
+    /**
+     * Returns the column of a token.
+     * @param index The index of the token.
+     * @return The column number, counting from 1.
+     */
+    public int column(int index) {
+        return lineIndex.column(starts[index]);
+    }
+
+    /**
+     * Returns the line numbers of the source.
+     * @return The line index.
+     */
+    public LineIndex getLineIndex() {
+        return lineIndex;
+    }
+
+    /**
+     * Returns the lexeme of a token. Keywords and symbols return their shared
+     * lexeme and identifiers their interned name; numbers and invalid characters
+     * are copied out of the source.
+     * @param index The index of the token.
+     * @return The lexeme of the token, or null past the end of the buffer.
+     */
+    public String lexeme(int index) {
+        if (index >= size) {
+            return null;
+        }
+        if (ids[index] != NameTable.NO_ID) {
+            return names.name(ids[index]);
+        }
+        String lexeme = TYPES[types[index]].getLexeme();
+        if (lexeme == null) {
+            lexeme = new String(source, starts[index], lengths[index]);
+        }
+        return lexeme;
+    }
+
+    /**
+     * Parses the value of a NUMBER token out of the source.
+     * @param index The index of the token.
+     * @return The number token, or null if the token is not a number.
+     */
+    public NumberToken number(int index) {
+        if (index >= size || types[index] != TokenType.NUMBER.ordinal()) {
+            return null;
+        }
+        return NumberToken.parse(source, starts[index], lengths[index]);
+    }
+
+    /**
+     * Returns a token as a Token object.
+     * @param index The index of the token.
+     * @return The token, or null past the end of the buffer.
+     */
+    public Token token(int index) {
+        if (index >= size) {
+            return null;
+        }
+        TokenType type = TYPES[types[index]];
+        if (type == TokenType.NUMBER) {
+            return number(index);
+        }
+        if (type == TokenType.ID) {
+            return new IdentifierToken(lexeme(index), ids[index], starts[index], lengths[index]);
+        }
+        return type.getLexeme() != null ? Token.of(type) : new Token(lexeme(index), type);
+    }
+}
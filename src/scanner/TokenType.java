@@ -8,12 +8,38 @@ package scanner;
 public enum TokenType {
 
     // Types
-    ID, NUMBER,
+    ID(null), NUMBER(null),
+
+    // A character which begins no token, reported by the parser
+    ERROR(null),
 
     // Keywords
-    AND, ARRAY, BEGIN, DIV, DO, ELSE, END, FUNCTION, IF, INTEGER, MOD, NOT, OF, OR, PROCEDURE, PROGRAM, REAL, THEN, VAR, WHILE, READ, WRITE, RETURN,
+    AND("and"), ARRAY("array"), BEGIN("begin"), DIV("div"), DO("do"), ELSE("else"), END("end"),
+    FUNCTION("function"), IF("if"), INTEGER("integer"), MOD("mod"), NOT("not"), OF("of"), OR("or"),
+    PROCEDURE("procedure"), PROGRAM("program"), REAL("real"), THEN("then"), VAR("var"), WHILE("while"),
+    READ("read"), WRITE("write"), RETURN("return"),
 
     // Symbols
-    SEMI, COMMA, PERIOD, COLON, LBRACE, RBRACE, LPAREN, RPAREN, PLUS, MINUS, EQUAL, NOTEQ, LTHAN, LTHANEQ, GTHAN, GTHANEQ, MULTIPLY, DIVIDE, ASSIGN
+    SEMI(";"), COMMA(","), PERIOD("."), COLON(":"), LBRACE("["), RBRACE("]"), LPAREN("("), RPAREN(")"),
+    PLUS("+"), MINUS("-"), EQUAL("="), NOTEQ("<>"), LTHAN("<"), LTHANEQ("<="), GTHAN(">"), GTHANEQ(">="),
+    MULTIPLY("*"), DIVIDE("/"), ASSIGN(":=");
+
+    /** The fixed lexeme of a keyword or symbol, or null for identifiers and numbers. */
+    private final String lexeme;
+
+    /**
+     * Creates a token type.
+     * @param lexeme The fixed lexeme of the type, or null if the lexeme varies.
+     */
+    TokenType(String lexeme) {
+        this.lexeme = lexeme;
+    }
 
+    /**
+     * Returns the fixed lexeme of a keyword or symbol.
+     * @return The lexeme, or null for identifiers, numbers and invalid characters.
+     */
+    public String getLexeme() {
+        return lexeme;
+    }
 }
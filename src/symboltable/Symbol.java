@@ -17,6 +17,9 @@ public class Symbol {
     int startIndex;
     int stopIndex;
     ArrayList arguments;
+    int id = -1;
+    int depth;
+    Symbol shadowed;
     private String address;
 
     /**
@@ -79,12 +82,36 @@ public class Symbol {
         return lexeme;
     }
 
+    /**
+     * Returns the id of the Symbol's identifier, given by the name table of its symbol table.
+     * @return The id of the lexeme, or -1 if the symbol has not been added to a table.
+     */
+    public int getNameId() {
+        return id;
+    }
+
     /**
      * Returns the Symbol's token type.
      * @return The type of the symbol.
      */
     public TokenType getType() { return tokenType; }
 
+    /**
+     * Sets the Symbol's token type, as for a function whose result type follows its parameters.
+     * @param t The type of the symbol.
+     */
+    public void setType(TokenType t) {
+        tokenType = t;
+    }
+
+    /**
+     * Returns the depth of the scope the Symbol is declared in.
+     * @return The depth of the scope, 0 for the scope of the main program.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
     /**
      * Returns the Symbol's kind
      * @return The type of the symbol.
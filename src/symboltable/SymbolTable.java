@@ -1,48 +1,134 @@
 package symboltable;
 
+import scanner.NameTable;
 import scanner.TokenType;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Objects;
-import java.util.Stack;
 import java.util.Iterator;
 import java.util.Map;
 
-/** Constructs a hashmap of key-value pairs for each unique identifier used in a pascal program.
+/** Constructs a table of the symbols declared for each unique identifier used in a pascal program.
+ * <p>
+ * Symbols are keyed on the ids given to identifiers by a {@link NameTable}. The
+ * name table is the one hash table of names; the symbol table is an array indexed
+ * by id holding the innermost symbol of each identifier visible in the current
+ * scope, so a lookup by id is a single array access, and a lookup by name a single
+ * probe sequence of the name table followed by one. The parser shares the name
+ * table of its scanner with its symbol table, so that the ids of tokens and nodes
+ * can be used directly.
+ * </p>
+ * <p>
+ * Scopes nest lexically. Each symbol records the depth of its scope and the symbol
+ * of an enclosing scope it shadows, and every declaration is pushed on an undo log.
+ * Entering a scope records the length of the log; leaving it pops the declarations
+ * of the scope, restoring the symbols they shadowed. Entering a scope therefore
+ * takes constant time, and leaving it time proportional to its own declarations.
+ * </p>
  *
  * @author William Mork
  */
 public class SymbolTable {
 
-    private Stack<HashMap<String, Symbol>> symbolTable;
+    /** The innermost visible symbol of each identifier, by id. */
+    private Symbol[] visible = new Symbol[16];
+
+    /** The undo log: every symbol of the open scopes, in the order declared. */
+    private Symbol[] declared = new Symbol[16];
+
+    /** Number of symbols on the undo log. */
+    private int declaredCount = 0;
+
+    /** The length of the undo log when each open scope was entered, by depth. */
+    private int[] scopeStarts = new int[8];
+
+    /** The depth of the current scope, 0 for the scope of the main program. */
+    private int depth = 0;
+
+    private NameTable names;
     public String fileName = null;
 
     /**
-     * Constructs a symbol table.
+     * Constructs a symbol table with a name table of its own.
      */
     public SymbolTable() {
-        symbolTable = new Stack<>();
-        symbolTable.push(new HashMap<>());
+        this(new NameTable());
+    }
+
+    /**
+     * Constructs a symbol table keyed on the ids of a name table.
+     * @param names The name table giving the ids of identifiers.
+     */
+    public SymbolTable(NameTable names) {
+        this.names = names;
     }
 
     /**
-     * Adds a new HashMap to the stack to allow for function and procedure calls.
+     * Returns the name table giving the ids of the symbols.
+     * @return The name table.
+     */
+    public NameTable getNameTable() {
+        return names;
+    }
+
+    /**
+     * Enters a new scope nested in the current one, for the declarations of a function or procedure.
      */
     public void addNewScope() {
-        symbolTable.push(new HashMap<>());
+        if (++depth == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+        }
+        scopeStarts[depth] = declaredCount;
     }
 
     /**
-     * Removes a HashMap from the stack.
-     *
-     * @return Returns a reference to the removed HashMap.
+     * Leaves the current scope, so that the symbols it shadowed are visible again. The
+     * scope of the main program is never left.
      */
-    public HashMap<String, Symbol> removeScope() {
-        if (symbolTable.size() > 1) {
-            return symbolTable.pop();
+    public void removeScope() {
+        if (depth == 0) {
+            return;
+        }
+        int start = scopeStarts[depth--];
+        while (declaredCount > start) {
+            Symbol symbol = declared[--declaredCount];
+            declared[declaredCount] = null;
+            visible[symbol.id] = symbol.shadowed;
         }
-        return null;
+    }
+
+    /**
+     * Returns the depth of the current scope.
+     * @return The number of scopes entered and not left, 0 in the scope of the main program.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Adds a symbol to the current scope, unless its identifier is already declared
+     * there. A symbol of an enclosing scope with the same identifier is shadowed.
+     * @param symbol The symbol.
+     * @return True if the symbol was added to the table.
+     */
+    private boolean add(Symbol symbol) {
+        symbol.id = names.intern(symbol.lexeme);
+        Symbol outer = getSymbol(symbol.id);
+        if (outer != null && outer.depth == depth) {
+            return false;
+        }
+        if (symbol.id >= visible.length) {
+            visible = Arrays.copyOf(visible, Math.max(visible.length * 2, symbol.id + 1));
+        }
+        if (declaredCount == declared.length) {
+            declared = Arrays.copyOf(declared, declaredCount * 2);
+        }
+        symbol.depth = depth;
+        symbol.shadowed = outer;
+        visible[symbol.id] = symbol;
+        declared[declaredCount++] = symbol;
+        return true;
     }
 
     /**
@@ -51,15 +137,7 @@ public class SymbolTable {
      * @return True if the symbol was added to the table.
      */
     public boolean addProgram(String lexeme) {
-        HashMap<String, Symbol> subTable = symbolTable.pop();
-        if (subTable.containsKey(lexeme)) {
-            symbolTable.push(subTable);
-            return false;
-        } else {
-            subTable.put(lexeme, new Symbol(lexeme, Kind.PROGRAM));
-            symbolTable.push(subTable);
-            return true;
-        }
+        return add(new Symbol(lexeme, Kind.PROGRAM));
     }
 
     /**
@@ -69,15 +147,7 @@ public class SymbolTable {
      * @return True if the symbol was added to the table.
      */
     public boolean addVariable(String lexeme, TokenType tokenType) {
-        HashMap<String, Symbol> subTable = symbolTable.pop();
-        if (subTable.containsKey(lexeme)) {
-            symbolTable.push(subTable);
-            return false;
-        } else {
-            subTable.put(lexeme, new Symbol(lexeme, Kind.VARIABLE, tokenType));
-            symbolTable.push(subTable);
-            return true;
-        }
+        return add(new Symbol(lexeme, Kind.VARIABLE, tokenType));
     }
 
     /**
@@ -89,15 +159,7 @@ public class SymbolTable {
      * @return True if the symbol was added to the table.
      */
     public boolean addArray(String lexeme, TokenType tokenType, int start, int stop){
-        HashMap<String, Symbol> subTable = symbolTable.pop();
-        if (subTable.containsKey(lexeme)) {
-            symbolTable.push(subTable);
-            return false;
-        } else {
-            subTable.put(lexeme, new Symbol(lexeme, Kind.ARRAY, tokenType, start, stop));
-            symbolTable.push(subTable);
-            return true;
-        }
+        return add(new Symbol(lexeme, Kind.ARRAY, tokenType, start, stop));
     }
 
     /**
@@ -107,15 +169,7 @@ public class SymbolTable {
      * @return True if the symbol was added to the table.
      */
     public boolean addFunction(String lexeme, TokenType tokenType){
-        HashMap<String, Symbol> subTable = symbolTable.pop();
-        if (subTable.containsKey(lexeme)) {
-            symbolTable.push(subTable);
-            return false;
-        } else {
-            subTable.put(lexeme, new Symbol(lexeme, Kind.FUNCTION, tokenType));
-            symbolTable.push(subTable);
-            return true;
-        }
+        return add(new Symbol(lexeme, Kind.FUNCTION, tokenType));
     }
 
     /**
@@ -124,15 +178,7 @@ public class SymbolTable {
      * @return True if the symbol was added to the table.
      */
     public boolean addProcedure(String lexeme){
-        HashMap<String, Symbol> subTable = symbolTable.pop();
-        if (subTable.containsKey(lexeme)) {
-            symbolTable.push(subTable);
-            return false;
-        } else {
-            subTable.put(lexeme, new Symbol(lexeme, Kind.PROCEDURE));
-            symbolTable.push(subTable);
-            return true;
-        }
+        return add(new Symbol(lexeme, Kind.PROCEDURE));
     }
 
     /**
@@ -141,7 +187,16 @@ public class SymbolTable {
      * @return Token type of the symbol.
      */
     public TokenType getType(String name) {
-        return symbolTable.get(name).getType();
+        return getSymbol(name).getType();
+    }
+
+    /**
+     * Returns the token type of a symbol.
+     * @param id The id of the identifier of the symbol.
+     * @return Token type of the symbol.
+     */
+    public TokenType getType(int id) {
+        return getSymbol(id).getType();
     }
 
     /**
@@ -150,7 +205,7 @@ public class SymbolTable {
      * @return True if a program symbol with the given lexeme already exists in the table.
      */
     public boolean isProgram(String lexeme){
-        return symbolTable.containsKey(lexeme) && symbolTable.get(lexeme).getKind() == Kind.PROGRAM;
+        return isKind(getSymbol(lexeme), Kind.PROGRAM);
     }
 
     /**
@@ -159,7 +214,16 @@ public class SymbolTable {
      * @return True if a variable symbol with the given lexeme already exists in the table.
      */
     public boolean isVariable(String lexeme){
-        return symbolTable.containsKey(lexeme) && symbolTable.get(lexeme).getKind() == Kind.VARIABLE;
+        return isKind(getSymbol(lexeme), Kind.VARIABLE);
+    }
+
+    /**
+     * Checks if a variable symbol with a given id already exists in the symbol table.
+     * @param id The id of the identifier of the variable symbol.
+     * @return True if a variable symbol with the given id already exists in the table.
+     */
+    public boolean isVariable(int id){
+        return isKind(getSymbol(id), Kind.VARIABLE);
     }
 
     /**
@@ -168,7 +232,16 @@ public class SymbolTable {
      * @return True if an array symbol with the given lexeme already exists in the table.
      */
     public boolean isArray(String lexeme){
-        return symbolTable.containsKey(lexeme) && symbolTable.get(lexeme).getKind() == Kind.ARRAY;
+        return isKind(getSymbol(lexeme), Kind.ARRAY);
+    }
+
+    /**
+     * Checks if an array symbol with a given id already exists in the symbol table.
+     * @param id The id of the identifier of the array symbol.
+     * @return True if an array symbol with the given id already exists in the table.
+     */
+    public boolean isArray(int id){
+        return isKind(getSymbol(id), Kind.ARRAY);
     }
 
     /**
@@ -177,7 +250,7 @@ public class SymbolTable {
      * @return True if a function symbol with the given lexeme already exists in the table.
      */
     public boolean isFunction(String lexeme){
-        return symbolTable.containsKey(lexeme) && symbolTable.get(lexeme).getKind() == Kind.FUNCTION;
+        return isKind(getSymbol(lexeme), Kind.FUNCTION);
     }
 
     /**
@@ -186,22 +259,82 @@ public class SymbolTable {
      * @return True if a procedure symbol with the given lexeme already exists in the table.
      */
     public boolean isProcedure(String lexeme){
-        return symbolTable.containsKey(lexeme) && symbolTable.get(lexeme).getKind() == Kind.PROCEDURE;
+        return isKind(getSymbol(lexeme), Kind.PROCEDURE);
     }
 
+    /**
+     * Checks if a procedure symbol with a given id already exists in the symbol table.
+     * @param id The id of the identifier of the procedure symbol.
+     * @return True if a procedure symbol with the given id already exists in the table.
+     */
+    public boolean isProcedure(int id){
+        return isKind(getSymbol(id), Kind.PROCEDURE);
+    }
+
+    /**
+     * Checks whether a symbol is of a kind.
+     * @param symbol The symbol, or null.
+     * @param kind The kind.
+     * @return True if the symbol exists and is of the kind.
+     */
+    private static boolean isKind(Symbol symbol, Kind kind) {
+        return symbol != null && symbol.getKind() == kind;
+    }
+
+    /**
+     * Checks if a symbol with a given lexeme already exists in the symbol table.
+     * @param lexeme The lexeme of the symbol.
+     * @return True if a symbol of any kind exists with the lexeme.
+     */
     public boolean exists(String lexeme) {
-        if (isVariable(lexeme) || isProcedure(lexeme) || isArray(lexeme) || isProgram(lexeme) || isFunction(lexeme)) {
-            return true;
-        } else {
-            return false;
-        }
+        return getSymbol(lexeme) != null;
+    }
+
+    /**
+     * Checks if a symbol with a given id already exists in the symbol table.
+     * @param id The id of the identifier of the symbol.
+     * @return True if a symbol of any kind exists with the id.
+     */
+    public boolean exists(int id) {
+        return getSymbol(id) != null;
     }
 
+    /**
+     * Returns the innermost visible symbol of a lexeme.
+     * @param lexeme The lexeme of the symbol.
+     * @return The symbol, or null if no symbol exists with the lexeme.
+     */
     public Symbol getSymbol(String lexeme) {
-        if (symbolTable.containsKey(lexeme)) {
-            return symbolTable.get(lexeme);
-        }
-        return null;
+        int id = names.find(lexeme);
+        return id == NameTable.NO_ID ? null : getSymbol(id);
+    }
+
+    /**
+     * Returns the innermost visible symbol of an identifier.
+     * @param id The id of the identifier of the symbol.
+     * @return The symbol, or null if no symbol exists with the id.
+     */
+    public Symbol getSymbol(int id) {
+        return id >= 0 && id < visible.length ? visible[id] : null;
+    }
+
+    /**
+     * Returns the symbol of an identifier by its id, or by its lexeme if it has no id,
+     * as for a node which was not built by a parser.
+     * @param id The id of the identifier, or NameTable.NO_ID.
+     * @param lexeme The lexeme of the identifier.
+     * @return The symbol, or null if no symbol exists with the identifier.
+     */
+    public Symbol getSymbol(int id, String lexeme) {
+        return id != NameTable.NO_ID ? getSymbol(id) : getSymbol(lexeme);
+    }
+
+    /**
+     * Returns the number of symbols in the current scope.
+     * @return The number of symbols.
+     */
+    public int size() {
+        return declaredCount - scopeStarts[depth];
     }
 
     /**
@@ -217,7 +350,15 @@ public class SymbolTable {
         } else {
             tableBuilder = new StringBuilder("SYMBOL TABLE for " + fileName + ": \n");
         }
-        Iterator tableIterator = symbolTable.entrySet().iterator();
+        // Listed in the order of a hash map by lexeme, filled in the order of the ids,
+        // as the table was once kept, so that symbol table files do not change.
+        Symbol[] scope = Arrays.copyOfRange(declared, scopeStarts[depth], declaredCount);
+        Arrays.sort(scope, Comparator.comparingInt(Symbol::getNameId));
+        HashMap<String, Symbol> symbols = new HashMap<>();
+        for (Symbol symbol : scope) {
+            symbols.put(symbol.lexeme, symbol);
+        }
+        Iterator tableIterator = symbols.entrySet().iterator();
 
         while (tableIterator.hasNext()) {
             Map.Entry symbol = (Map.Entry)tableIterator.next();
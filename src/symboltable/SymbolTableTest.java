@@ -256,4 +256,52 @@ public class SymbolTableTest {
         Assertions.assertEquals(false, result);
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests nested scopes: lookups through enclosing scopes, shadowing, redeclaration
+     * within one scope and the symbols restored on leaving a scope.
+     * @result fails if a lookup does not find the innermost visible symbol of a name.
+     */
+    @Test
+    public void scopeTest() {
+        System.out.println("Testing nested scopes...");
+        Symbol outer = testSymbolTable.getSymbol("testVariable1");
+
+        testSymbolTable.addNewScope();
+        Assertions.assertEquals(1, testSymbolTable.getDepth());
+        Assertions.assertEquals(0, testSymbolTable.size());
+        Assertions.assertSame(outer, testSymbolTable.getSymbol("testVariable1"));
+        Assertions.assertTrue(testSymbolTable.isArray("testArray1"));
+
+        // Shadow a variable of the enclosing scope with an array, then redeclare it
+        Assertions.assertTrue(testSymbolTable.addArray("testVariable1", TokenType.REAL, 1, 3));
+        Assertions.assertFalse(testSymbolTable.addVariable("testVariable1", TokenType.REAL));
+        Assertions.assertTrue(testSymbolTable.isArray("testVariable1"));
+        Assertions.assertEquals(1, testSymbolTable.getSymbol("testVariable1").getDepth());
+        Assertions.assertTrue(testSymbolTable.addVariable("testLocal", TokenType.INTEGER));
+
+        // A thousand scopes deep, the outermost symbols are still a lookup away
+        for (int i = 0; i < 1000; i++) {
+            testSymbolTable.addNewScope();
+            Assertions.assertTrue(testSymbolTable.addVariable("testLocal", TokenType.REAL));
+        }
+        Assertions.assertEquals(1001, testSymbolTable.getDepth());
+        Assertions.assertEquals(TokenType.REAL, testSymbolTable.getType("testLocal"));
+        Assertions.assertTrue(testSymbolTable.isProcedure("testProcedure2"));
+        for (int i = 0; i < 1000; i++) {
+            testSymbolTable.removeScope();
+        }
+        Assertions.assertEquals(TokenType.INTEGER, testSymbolTable.getType("testLocal"));
+
+        testSymbolTable.removeScope();
+        Assertions.assertEquals(0, testSymbolTable.getDepth());
+        Assertions.assertSame(outer, testSymbolTable.getSymbol("testVariable1"));
+        Assertions.assertFalse(testSymbolTable.exists("testLocal"));
+        Assertions.assertFalse(testSymbolTable.toString().contains("testLocal"));
+
+        // The scope of the main program is never left
+        testSymbolTable.removeScope();
+        Assertions.assertEquals(0, testSymbolTable.getDepth());
+        Assertions.assertTrue(testSymbolTable.isProgram("testProgram1"));
+        System.out.println("Success.");
+    }
+}
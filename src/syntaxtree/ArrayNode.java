@@ -49,17 +49,15 @@ public class ArrayNode extends VariableNode {
     }
 
     /**
-     * Creates a string representation of this array node.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Array: " + super.getName() + ", Type: " + tokenType + "\n";
-        if (expressionNode != null) {
-            answer += this.expressionNode.indentedToString(level + 1);
-        }
-        return answer;
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package syntaxtree;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Syntax tree node which represents a compound statement.
@@ -12,7 +13,7 @@ import java.util.ArrayList;
 public class CompoundStatementNode extends StatementNode {
 
     /** Array of child statement nodes. */
-    public ArrayList<StatementNode> statements = new ArrayList<>();
+    private ArrayList<StatementNode> statements = new ArrayList<>();
     
     /**
      * Adds a child statement node to the array of statement nodes.
@@ -31,25 +32,23 @@ public class CompoundStatementNode extends StatementNode {
     }
 
     /**
-     * Returns the ArrayList of child statement nodes.
-     * @return The ArrayList of child statement nodes.
+     * Returns the list of child statement nodes.
+     * @return The list of child statement nodes.
      */
-    public ArrayList<StatementNode> getStatements() {
+    public List<StatementNode> getStatements() {
         return statements;
     }
-    
+
     /**
-     * Creates a String representation of this compound statement node and its children.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Compound Statement\n";
-        for(StatementNode statement : statements) {
-            answer += statement.indentedToString(level + 1);
-        }
-        return answer;
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
 }
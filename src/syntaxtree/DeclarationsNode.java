@@ -38,17 +38,15 @@ public class DeclarationsNode extends SyntaxTreeNode {
     }
 
     /**
-     * Creates a String representation of this declarations node and its children.
-     * @param level The level at which this node resides within the syntax tree.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Declarations\n";
-        for(VariableNode variable : variables) {
-            answer += variable.indentedToString(level + 1);
-        }
-        return answer;
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
 }
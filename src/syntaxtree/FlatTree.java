@@ -0,0 +1,713 @@
+package syntaxtree;
+
+import scanner.NameTable;
+import scanner.NumberToken;
+import scanner.TokenType;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact store for a syntax tree, holding every node in parallel arrays
+ * instead of as a separate object.
+ * <p>
+ * Each node is an index into the arrays, which hold its kind, its first child, its
+ * next sibling, its operator, its type, the id of its name and its span. The
+ * children of a node are linked through their next sibling, so lists of statements,
+ * declarations and arguments need no lists of their own. Names are stored by their
+ * id in the name table of the parser, and the lexemes of literals by their id in a
+ * table of the tree, so each is stored once however many nodes refer to it. A child
+ * which is missing from a partial tree is stored as a node of kind NONE so that the
+ * children of a node keep their positions.
+ * </p>
+ * <p>
+ * The parser builds a flat tree from {@link parser.Parser#parseFlat()}, appending
+ * each statement of the main program with {@link #addStatement(StatementNode)} as
+ * soon as it is parsed, so the node objects of only one statement are alive at a
+ * time. The tree is read either through the arrays, or through {@link #program()},
+ * whose main compound statement rebuilds each statement as it is read, so that the
+ * semantic analyzer and code generator, which take one statement at a time, run
+ * unchanged on it.
+ * </p>
+ *
+ * @author William Mork
+ */
+public class FlatTree {
+
+    /**
+     * The kinds of node, one per syntax tree node class.
+     */
+    public enum Kind {
+        NONE, PROGRAM, DECLARATIONS, SUBPROGRAM_DECLARATIONS, SUBPROGRAM, COMPOUND_STATEMENT,
+        ASSIGNMENT, IF, WHILE, PROCEDURE_STATEMENT, VARIABLE, ARRAY, FUNCTION, OPERATION,
+        UNARY_OPERATION, VALUE, NUMBER
+    }
+
+    /** Marks a missing child, sibling, operator or name. */
+    public static final int NO_NODE = -1;
+
+    /** Node kinds by ordinal. */
+    private static final Kind[] KINDS = Kind.values();
+
+    /** Token types by ordinal. */
+    private static final TokenType[] TYPES = TokenType.values();
+
+    /** Initial capacity of the node arrays. */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** The kind ordinal of each node. */
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+
+    /** The type ordinal of each node plus one, or 0 for no type. */
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    /** The operator ordinal of each operation node plus one, or 0 for other nodes. */
+    private byte[] operators = new byte[INITIAL_CAPACITY];
+
+    /** The first child of each node, or NO_NODE. */
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+
+    /** The next sibling of each node, or NO_NODE. */
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+
+    /** The id of the name or lexeme of each node, or NO_NODE. */
+    private int[] symbols = new int[INITIAL_CAPACITY];
+
+    /** The offset of the source text of each node, or -1. */
+    private int[] offsets = new int[INITIAL_CAPACITY];
+
+    /** The length of the source text of each node. */
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    /** Number of nodes in the tree. */
+    private int size = 0;
+
+    /** The name table of the parser, holding the names of program, subprogram and variable nodes. */
+    private final NameTable names;
+
+    /** The lexemes of the value nodes. */
+    private final NameTable literals = new NameTable();
+
+    /** The first statement of the main program, or NO_NODE. */
+    private int firstStatement = NO_NODE;
+
+    /** The last statement of the main program, or NO_NODE. */
+    private int lastStatement = NO_NODE;
+
+    /** The root node of the tree, or NO_NODE until the program is set. */
+    private int root = NO_NODE;
+
+    /** Appends each node by its class. */
+    private final Flattener flattener = new Flattener();
+
+    /**
+     * Creates an empty flat tree.
+     * @param names The name table of the parser which builds the tree.
+     */
+    public FlatTree(NameTable names) {
+        this.names = names;
+    }
+
+    /**
+     * Appends a statement of the main program, linking it after the statement
+     * appended before it.
+     * @param statement The statement, or null for a missing statement.
+     */
+    public void addStatement(StatementNode statement) {
+        int index = add(statement);
+        if (lastStatement == NO_NODE) {
+            firstStatement = index;
+        } else {
+            nextSiblings[lastStatement] = index;
+        }
+        lastStatement = index;
+    }
+
+    /**
+     * Appends the program node, once every statement of the main program has been
+     * appended, and trims the arrays to the size of the tree. The statements of the
+     * main compound statement of the program node are not appended again; the
+     * statements appended before become its children.
+     * @param program The program node.
+     */
+    public void setProgram(ProgramNode program) {
+        root = add(program);
+        int statements = child(root, 2);
+        if (kind(statements) == Kind.COMPOUND_STATEMENT) {
+            firstChildren[statements] = firstStatement;
+        }
+        resize(size);
+    }
+
+    /**
+     * Appends a node and its children to the tree.
+     * @param node The node, or null for a missing node.
+     * @return The index of the node.
+     */
+    public int add(SyntaxTreeNode node) {
+        if (node == null) {
+            return append(Kind.NONE, null, null, NO_NODE, -1, 0);
+        }
+        // Every node is appended before its children, so it takes the next index.
+        int index = size;
+        node.accept(flattener);
+        return index;
+    }
+
+    /**
+     * Appends the node visited, then its children.
+     */
+    private class Flattener implements SyntaxTreeVisitor<Void, RuntimeException> {
+
+        /**
+         * Rejects a node of a class the flat tree does not know.
+         * @param node The node.
+         * @return Nothing.
+         */
+        @Override
+        public Void visitNode(SyntaxTreeNode node) {
+            throw new IllegalArgumentException("Unknown syntax tree node " + node.getClass().getSimpleName() + ".");
+        }
+
+        @Override
+        public Void visit(ProgramNode node) {
+            int index = append(Kind.PROGRAM, null, null, nameId(node.getName()), node.getOffset(), node.getLength());
+            addChildren(index, node.getDeclarations(), node.getSubProgramDeclarations(), node.getCompoundStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(DeclarationsNode node) {
+            int index = append(Kind.DECLARATIONS, null, null, NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getVariables());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubProgramDeclarationsNode node) {
+            int index = append(Kind.SUBPROGRAM_DECLARATIONS, null, null, NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getProcs());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubProgramNode node) {
+            append(Kind.SUBPROGRAM, null, null, nameId(node.getName()), node.getOffset(), node.getLength());
+            return null;
+        }
+
+        @Override
+        public Void visit(CompoundStatementNode node) {
+            int index = append(Kind.COMPOUND_STATEMENT, null, null, NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getStatements());
+            return null;
+        }
+
+        @Override
+        public Void visit(AssignmentStatementNode node) {
+            int index = append(Kind.ASSIGNMENT, null, null, NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getLvalue(), node.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visit(IfStatementNode node) {
+            int index = append(Kind.IF, null, null, NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getTest(), node.getThenStatement(), node.getElseStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(WhileStatementNode node) {
+            int index = append(Kind.WHILE, null, null, NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getTest(), node.getDoStatement());
+            return null;
+        }
+
+        @Override
+        public Void visit(ProcedureStatementNode node) {
+            append(Kind.PROCEDURE_STATEMENT, null, null, NO_NODE, node.getOffset(), node.getLength());
+            return null;
+        }
+
+        @Override
+        public Void visit(VariableNode node) {
+            append(Kind.VARIABLE, node.getType(), null, nameId(node), node.getOffset(), node.getLength());
+            return null;
+        }
+
+        @Override
+        public Void visit(ArrayNode node) {
+            int index = append(Kind.ARRAY, node.getType(), null, nameId(node), node.getOffset(), node.getLength());
+            addChildren(index, node.getExpressionNode());
+            return null;
+        }
+
+        @Override
+        public Void visit(FunctionNode node) {
+            int index = append(Kind.FUNCTION, node.getType(), null, nameId(node), node.getOffset(), node.getLength());
+            addChildren(index, node.getArgs());
+            return null;
+        }
+
+        @Override
+        public Void visit(OperationNode node) {
+            int index = append(Kind.OPERATION, node.getType(), node.getOperation(), NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getLeft(), node.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visit(UnaryOperationNode node) {
+            int index = append(Kind.UNARY_OPERATION, node.getType(), node.getOperation(), NO_NODE, node.getOffset(), node.getLength());
+            addChildren(index, node.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(ValueNode node) {
+            append(node.isKnown() ? Kind.NUMBER : Kind.VALUE, node.getType(), null,
+                    node.getAttribute() == null ? NO_NODE : literals.intern(node.getAttribute()),
+                    node.getOffset(), node.getLength());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the id of a name in the name table of the parser.
+     * @param name The name, or null.
+     * @return The id of the name, or NO_NODE if there is no name.
+     */
+    private int nameId(String name) {
+        return name == null ? NO_NODE : names.intern(name);
+    }
+
+    /**
+     * Returns the id of the name of a variable, array or function node, which is
+     * the id the parser gave it unless the node was built without one.
+     * @param node The node.
+     * @return The id of the name, or NO_NODE if there is no name.
+     */
+    private int nameId(VariableNode node) {
+        return node.getNameId() != NameTable.NO_ID ? node.getNameId() : nameId(node.getName());
+    }
+
+    /**
+     * Appends children to a node, linking each to the next.
+     * @param parent The index of the parent node.
+     * @param children The children, any of which may be null.
+     */
+    private void addChildren(int parent, SyntaxTreeNode... children) {
+        addChildren(parent, Arrays.asList(children));
+    }
+
+    /**
+     * Appends children to a node, linking each to the next.
+     * @param parent The index of the parent node.
+     * @param children The children, any of which may be null.
+     */
+    private void addChildren(int parent, Iterable<? extends SyntaxTreeNode> children) {
+        int previous = NO_NODE;
+        for (SyntaxTreeNode child : children) {
+            int index = add(child);
+            if (previous == NO_NODE) {
+                firstChildren[parent] = index;
+            } else {
+                nextSiblings[previous] = index;
+            }
+            previous = index;
+        }
+    }
+
+    /**
+     * Appends a single node without children, growing the arrays if they are full.
+     * @param kind The kind of the node.
+     * @param type The type of the node, or null.
+     * @param operator The operator of the node, or null.
+     * @param symbol The id of the name or lexeme of the node, or NO_NODE.
+     * @param offset The offset of the source text of the node.
+     * @param length The length of the source text of the node.
+     * @return The index of the node.
+     */
+    private int append(Kind kind, TokenType type, TokenType operator, int symbol, int offset, int length) {
+        if (size == kinds.length) {
+            resize(Math.max(size * 2, INITIAL_CAPACITY));
+        }
+        kinds[size] = (byte) kind.ordinal();
+        types[size] = (byte) (type == null ? 0 : type.ordinal() + 1);
+        operators[size] = (byte) (operator == null ? 0 : operator.ordinal() + 1);
+        firstChildren[size] = NO_NODE;
+        nextSiblings[size] = NO_NODE;
+        symbols[size] = symbol;
+        offsets[size] = offset;
+        lengths[size] = length;
+        return size++;
+    }
+
+    /**
+     * Changes the capacity of the node arrays.
+     * @param capacity The new capacity, at least the number of nodes.
+     */
+    private void resize(int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        types = Arrays.copyOf(types, capacity);
+        operators = Arrays.copyOf(operators, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    /**
+     * Returns the root node of the tree.
+     * @return The index of the program node, or NO_NODE if the program has not been set.
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     * @return The node count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the kind of a node.
+     * @param node The index of the node.
+     * @return The kind of the node.
+     */
+    public Kind kind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    /**
+     * Returns the first child of a node.
+     * @param node The index of the node.
+     * @return The index of the first child, or NO_NODE.
+     */
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    /**
+     * Returns the next sibling of a node.
+     * @param node The index of the node.
+     * @return The index of the next sibling, or NO_NODE.
+     */
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    /**
+     * Returns a child of a node by position.
+     * @param node The index of the node.
+     * @param position The position of the child, counting from 0.
+     * @return The index of the child, or NO_NODE if the node has fewer children.
+     */
+    public int child(int node, int position) {
+        int child = firstChildren[node];
+        for (int i = 0; i < position && child != NO_NODE; i++) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+
+    /**
+     * Returns the type of a node.
+     * @param node The index of the node.
+     * @return The type, or null.
+     */
+    public TokenType type(int node) {
+        return types[node] == 0 ? null : TYPES[types[node] - 1];
+    }
+
+    /**
+     * Returns the operator of an operation node.
+     * @param node The index of the node.
+     * @return The operator, or null for other nodes.
+     */
+    public TokenType operator(int node) {
+        return operators[node] == 0 ? null : TYPES[operators[node] - 1];
+    }
+
+    /**
+     * Returns the id of the name or lexeme of a node. The name of a program,
+     * subprogram, variable, array or function node is an id in the name table of
+     * the parser; the lexeme of a value node is an id in the literals of the tree.
+     * @param node The index of the node.
+     * @return The id, or NO_NODE if the node has no name.
+     */
+    public int symbol(int node) {
+        return symbols[node];
+    }
+
+    /**
+     * Returns the name or lexeme of a node.
+     * @param node The index of the node.
+     * @return The name, or null if the node has no name.
+     */
+    public String name(int node) {
+        if (symbols[node] == NO_NODE) {
+            return null;
+        }
+        Kind kind = kind(node);
+        return kind == Kind.VALUE || kind == Kind.NUMBER ? literals.name(symbols[node]) : names.name(symbols[node]);
+    }
+
+    /**
+     * Returns the number of distinct literal lexemes in the tree.
+     * @return The literal count.
+     */
+    public int literalCount() {
+        return literals.size();
+    }
+
+    /**
+     * Returns the offset of the source text of a node.
+     * @param node The index of the node.
+     * @return The offset in characters, or -1 if it is not known.
+     */
+    public int offset(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * Returns the length of the source text of a node.
+     * @param node The index of the node.
+     * @return The length in characters.
+     */
+    public int length(int node) {
+        return lengths[node];
+    }
+
+    /**
+     * Returns the program as node objects. The declarations and subprograms are
+     * rebuilt at once. The statements of the main compound statement are rebuilt
+     * each time one is read from its list, so only the statement being read is
+     * held as node objects, and a pass which keeps state on the nodes, such as the
+     * symbols bound by name resolution, must finish with a statement before it
+     * reads the next.
+     * @return The program node, or null if the program has not been set.
+     */
+    public ProgramNode program() {
+        if (root == NO_NODE) {
+            return null;
+        }
+        ProgramNode program = new ProgramNode(name(root));
+        program.setDeclarations((DeclarationsNode) childNode(root, 0));
+        program.setSubprogramDeclarations((SubProgramDeclarationsNode) childNode(root, 1));
+        int statements = child(root, 2);
+        if (statements != NO_NODE && kind(statements) == Kind.COMPOUND_STATEMENT) {
+            program.setCompoundStatement(new FlatCompoundStatementNode(statements));
+        }
+        program.setSpan(offsets[root], lengths[root]);
+        return program;
+    }
+
+    /**
+     * Rebuilds the node objects of a subtree, so that it can be read through the
+     * accessors of the node classes.
+     * @param node The index of the root of the subtree.
+     * @return The node, or null for a node of kind NONE.
+     */
+    public SyntaxTreeNode node(int node) {
+        SyntaxTreeNode result;
+        switch (kind(node)) {
+            case PROGRAM:
+                ProgramNode program = new ProgramNode(name(node));
+                program.setDeclarations((DeclarationsNode) childNode(node, 0));
+                program.setSubprogramDeclarations((SubProgramDeclarationsNode) childNode(node, 1));
+                program.setCompoundStatement((CompoundStatementNode) childNode(node, 2));
+                result = program;
+                break;
+            case DECLARATIONS:
+                DeclarationsNode declarations = new DeclarationsNode();
+                for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                    declarations.addVariable((VariableNode) node(child));
+                }
+                result = declarations;
+                break;
+            case SUBPROGRAM_DECLARATIONS:
+                SubProgramDeclarationsNode subPrograms = new SubProgramDeclarationsNode();
+                for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                    subPrograms.addSubProgramDeclaration((SubProgramNode) node(child));
+                }
+                result = subPrograms;
+                break;
+            case SUBPROGRAM:
+                result = new SubProgramNode(name(node));
+                break;
+            case COMPOUND_STATEMENT:
+                CompoundStatementNode compound = new CompoundStatementNode();
+                for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                    compound.addStatement((StatementNode) node(child));
+                }
+                result = compound;
+                break;
+            case ASSIGNMENT:
+                AssignmentStatementNode assignment = new AssignmentStatementNode();
+                assignment.setLvalue((VariableNode) childNode(node, 0));
+                assignment.setExpression((ExpressionNode) childNode(node, 1));
+                result = assignment;
+                break;
+            case IF:
+                IfStatementNode ifStatement = new IfStatementNode();
+                ifStatement.setTest((ExpressionNode) childNode(node, 0));
+                ifStatement.setThenStatement((StatementNode) childNode(node, 1));
+                ifStatement.setElseStatement((StatementNode) childNode(node, 2));
+                result = ifStatement;
+                break;
+            case WHILE:
+                WhileStatementNode whileStatement = new WhileStatementNode();
+                whileStatement.setTest((ExpressionNode) childNode(node, 0));
+                whileStatement.setDoStatement((StatementNode) childNode(node, 1));
+                result = whileStatement;
+                break;
+            case PROCEDURE_STATEMENT:
+                result = new ProcedureStatementNode();
+                break;
+            case VARIABLE:
+                VariableNode variable = new VariableNode(name(node), type(node));
+                variable.setNameId(symbols[node]);
+                result = variable;
+                break;
+            case ARRAY:
+                ArrayNode array = new ArrayNode(name(node), type(node));
+                array.setNameId(symbols[node]);
+                array.setExpressionNode((ExpressionNode) childNode(node, 0));
+                result = array;
+                break;
+            case FUNCTION:
+                FunctionNode function = new FunctionNode(name(node));
+                function.setNameId(symbols[node]);
+                function.setType(type(node));
+                ArrayList<ExpressionNode> arguments = new ArrayList<>();
+                for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                    arguments.add((ExpressionNode) node(child));
+                }
+                function.setArgs(arguments);
+                result = function;
+                break;
+            case OPERATION:
+                OperationNode operation = new OperationNode(operator(node));
+                operation.setLeft((ExpressionNode) childNode(node, 0));
+                operation.setRight((ExpressionNode) childNode(node, 1));
+                operation.setType(type(node));
+                result = operation;
+                break;
+            case UNARY_OPERATION:
+                UnaryOperationNode unary = new UnaryOperationNode(operator(node), (ExpressionNode) childNode(node, 0));
+                unary.setType(type(node));
+                result = unary;
+                break;
+            case VALUE:
+                ValueNode value = new ValueNode(name(node));
+                value.setType(type(node));
+                result = value;
+                break;
+            case NUMBER:
+                result = number(node);
+                break;
+            default:
+                return null;
+        }
+        result.setSpan(offsets[node], lengths[node]);
+        return result;
+    }
+
+    /**
+     * Rebuilds a child of a node by position.
+     * @param node The index of the node.
+     * @param position The position of the child.
+     * @return The child node, or null if it is missing.
+     */
+    private SyntaxTreeNode childNode(int node, int position) {
+        int child = child(node, position);
+        return child == NO_NODE ? null : node(child);
+    }
+
+    /**
+     * Rebuilds a value node holding a literal, parsing the value again from its lexeme.
+     * @param node The index of the value node.
+     * @return The value node.
+     */
+    private ValueNode number(int node) {
+        String lexeme = name(node);
+        NumberToken number = NumberToken.parse(lexeme);
+        ValueNode value = number.isReal() ? new ValueNode(lexeme, number.getRealValue())
+                : new ValueNode(lexeme, number.getIntValue());
+        value.setType(type(node));
+        return value;
+    }
+
+    /**
+     * The main compound statement of a flat tree, whose statements are rebuilt from
+     * the arrays each time they are read.
+     */
+    private class FlatCompoundStatementNode extends CompoundStatementNode {
+
+        /** The statements, each rebuilt when it is read. */
+        private final List<StatementNode> statements;
+
+        /**
+         * Creates the compound statement of a node of the tree.
+         * @param node The index of the compound statement node.
+         */
+        FlatCompoundStatementNode(int node) {
+            int count = 0;
+            for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                count++;
+            }
+            // The indices of the statements, so that each is found without walking its siblings.
+            int[] indices = new int[count];
+            for (int child = firstChildren[node], i = 0; child != NO_NODE; child = nextSiblings[child], i++) {
+                indices[i] = child;
+            }
+            statements = new AbstractList<StatementNode>() {
+                @Override
+                public StatementNode get(int index) {
+                    return (StatementNode) node(indices[index]);
+                }
+
+                @Override
+                public int size() {
+                    return indices.length;
+                }
+            };
+            setSpan(offsets[node], lengths[node]);
+        }
+
+        /**
+         * Rejects a statement, as the statements of a flat tree can not be changed.
+         * @param statement The statement node.
+         */
+        @Override
+        public void addStatement(StatementNode statement) {
+            throw new UnsupportedOperationException("The statements of a flat tree can not be changed.");
+        }
+
+        /**
+         * Rejects statements, as the statements of a flat tree can not be changed.
+         * @param statements The statement nodes.
+         */
+        @Override
+        public void addStatement(ArrayList<StatementNode> statements) {
+            throw new UnsupportedOperationException("The statements of a flat tree can not be changed.");
+        }
+
+        /**
+         * Returns the statements, rebuilding each as it is read.
+         * @return The list of statement nodes.
+         */
+        @Override
+        public List<StatementNode> getStatements() {
+            return statements;
+        }
+    }
+}
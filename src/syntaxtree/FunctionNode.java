@@ -31,19 +31,23 @@ public class FunctionNode extends VariableNode {
     }
 
     /**
-     * Creates a String representation of this function node.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Returns the ArrayList of function arguments.
+     * @return An ArrayList of arguments in the form of ExpressionNodes.
+     */
+    public ArrayList<ExpressionNode> getArgs() {
+        return this.arguments;
+    }
+
+    /**
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Name: " + this.name + ", Type: " + this.tokenType + "\n";
-        answer += this.indentation(level);
-        answer += "Arguments: \n";
-        for (ExpressionNode argument : arguments) {
-            answer += (argument.indentedToString(level + 1));
-        }
-        return answer.toString();
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
-}
\ No newline at end of file
+}
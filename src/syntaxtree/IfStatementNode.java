@@ -64,19 +64,17 @@ public class IfStatementNode extends StatementNode {
     public void setElseStatement(StatementNode elseStatement) {
         this.elseStatement = elseStatement;
     }
-    
+
     /**
-     * Creates a String representation of this node and its children.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "If:\n";
-        answer += this.test.indentedToString(level + 1);
-        answer += this.thenStatement.indentedToString(level + 1);
-        answer += this.elseStatement.indentedToString(level + 1);
-        return answer;
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
 }
@@ -85,18 +85,17 @@ public class OperationNode extends ExpressionNode {
     public String toString() {
         return operation.toString();
     }
-    
+
     /**
-     * Creates a String representation of this node and its children.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Operation: " + this.operation + "\n";
-        answer += left.indentedToString(level + 1);
-        answer += right.indentedToString(level + 1);
-        return(answer);
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
 }
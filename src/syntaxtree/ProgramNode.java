@@ -28,6 +28,14 @@ public class ProgramNode extends SyntaxTreeNode {
         this.nodeName = name;
     }
 
+    /**
+     * Returns the name of this program node.
+     * @return The name of the program.
+     */
+    public String getName() {
+        return nodeName;
+    }
+
     /**
      * Returns the child declarations node which contains program declarations.
      * @return The child declarations node.
@@ -75,19 +83,17 @@ public class ProgramNode extends SyntaxTreeNode {
     public void setCompoundStatement(CompoundStatementNode compoundStatement) {
         this.compoundStatement = compoundStatement;
     }
-    
+
     /**
-     * Creates a String representation of this program node and its children.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Program: " + nodeName + "\n";
-        answer += declarations.indentedToString(level + 1);
-        answer += subProgramDeclarations.indentedToString(level + 1);
-        answer += compoundStatement.indentedToString(level + 1);
-        return answer;
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
 }
@@ -1,33 +1,78 @@
 package syntaxtree;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * The base class for all nodes in a syntax tree.
+ * <p>
+ * Each node built by the parser records its span, the offset and length of the
+ * source text it was parsed from. Lines and columns are computed from the offset
+ * by the {@link scanner.LineIndex} of the parser when they are needed.
+ * </p>
  *
  * @author William Mork
  * @author Erik Steinmetz
  */
 public abstract class SyntaxTreeNode {
-    
+
+    /** Offset of the source text of this node, or -1 if it is not known. */
+    private int offset = -1;
+
+    /** Length of the source text of this node. */
+    private int length;
+
+    /**
+     * Sets the span of this node.
+     * @param offset The offset of the source text of this node.
+     * @param length The length of the source text of this node.
+     */
+    public void setSpan(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns the offset of the source text of this node.
+     * @return The offset in characters, or -1 if the node was not parsed from a source.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the length of the source text of this node.
+     * @return The length in characters.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Visits this node with a pass over the syntax tree, calling the method of the
+     * visitor for the class of this node.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    public abstract <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E;
+
     /**
      * Creates a String representation of this node and its children.
+     * To write a large tree, stream it with a {@link SyntaxTreePrinter} instead.
      * @param level The level at which this node resides within the syntax tree.
      * @return A String representing this node.
      */
-    public abstract String indentedToString(int level);
-    
-    /**
-     * Creates an indentation String for the indentedToString.
-     * @param level The amount of indentation.
-     * @return A String displaying the given amount of indentation.
-     */
-    protected String indentation(int level) {
-        String answer = "";
-        if(level > 0) {
-            answer = "|-- ";
-        }
-        for(int indent = 1; indent < level; indent++) {
-            answer += "--- ";
+    public String indentedToString(int level) {
+        StringBuilder answer = new StringBuilder();
+        try {
+            new SyntaxTreePrinter(answer).print(this, level);
+        } catch (IOException e) {
+            // A StringBuilder never throws.
+            throw new UncheckedIOException(e);
         }
-        return( answer);        
+        return answer.toString();
     }
 }
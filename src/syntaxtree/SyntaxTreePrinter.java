@@ -0,0 +1,468 @@
+package syntaxtree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Writes a syntax tree to an output in a single pass, without building a String for
+ * each subtree.
+ * <p>
+ * The text format is the indented dump produced by {@link SyntaxTreeNode#indentedToString(int)}.
+ * The JSON format writes one object per line for each node, in pre-order, holding the
+ * id of the node, the id of its parent, its kind and its attributes, so that tools can
+ * load large trees a line at a time:
+ * </p>
+ * <pre>
+ * {"id":0,"parent":-1,"kind":"Program","name":"money"}
+ * {"id":1,"parent":0,"kind":"Declarations"}
+ * </pre>
+ *
+ * @author William Mork
+ */
+public class SyntaxTreePrinter {
+
+    /** The output formats of the printer. */
+    public enum Format {
+        /** Indented text, one node per line. */
+        TEXT,
+        /** One JSON object per node per line. */
+        JSON
+    }
+
+    /** The output the tree is written to. */
+    private Appendable out;
+
+    /** The output format. */
+    private Format format;
+
+    /** Indentation prefixes by level, built once per level. */
+    private ArrayList<String> indents = new ArrayList<>();
+
+    /** Id of the next node written in the JSON format. */
+    private int nextId;
+
+    /** Writes the nodes of the text format. */
+    private final TextWriter textWriter = new TextWriter();
+
+    /** Writes the nodes of the JSON format. */
+    private final JsonWriter jsonWriter = new JsonWriter();
+
+    /**
+     * Creates a printer which writes the indented text format.
+     * @param out The output the tree is written to.
+     */
+    public SyntaxTreePrinter(Appendable out) {
+        this(out, Format.TEXT);
+    }
+
+    /**
+     * Creates a printer.
+     * @param out The output the tree is written to.
+     * @param format The output format.
+     */
+    public SyntaxTreePrinter(Appendable out, Format format) {
+        this.out = out;
+        this.format = format;
+        indents.add("");
+    }
+
+    /**
+     * Writes a node and its children.
+     * @param node The root of the tree to write.
+     * @throws IOException If the output can not be written.
+     */
+    public void print(SyntaxTreeNode node) throws IOException {
+        print(node, 0);
+    }
+
+    /**
+     * Writes a node and its children.
+     * @param node The root of the tree to write.
+     * @param level The tree level at which the node resides.
+     * @throws IOException If the output can not be written.
+     */
+    public void print(SyntaxTreeNode node, int level) throws IOException {
+        if (format == Format.JSON) {
+            json(node, -1);
+        } else {
+            text(node, level);
+        }
+    }
+
+    /**
+     * Returns the indentation prefix of a tree level.
+     * @param level The tree level.
+     * @return The indentation prefix.
+     */
+    private String indent(int level) {
+        while (indents.size() <= level) {
+            int size = indents.size();
+            indents.add(size == 1 ? "|-- " : indents.get(size - 1) + "--- ");
+        }
+        return indents.get(level);
+    }
+
+    /**
+     * Writes a node and its children as indented text.
+     * @param node The node to write, or null.
+     * @param level The tree level at which the node resides.
+     * @throws IOException If the output can not be written.
+     */
+    private void text(SyntaxTreeNode node, int level) throws IOException {
+        if (node != null) {
+            int parentLevel = textWriter.level;
+            textWriter.level = level;
+            node.accept(textWriter);
+            textWriter.level = parentLevel;
+        }
+    }
+
+    /**
+     * Writes a node and its children as JSON lines.
+     * @param node The node to write, or null.
+     * @param parent The id of the parent node, or -1 for the root.
+     * @throws IOException If the output can not be written.
+     */
+    private void json(SyntaxTreeNode node, int parent) throws IOException {
+        if (node == null) {
+            return;
+        }
+        int id = nextId++;
+        out.append("{\"id\":").append(String.valueOf(id)).append(",\"parent\":").append(String.valueOf(parent)).append(",\"kind\":\"");
+        int grandparent = jsonWriter.id;
+        jsonWriter.id = id;
+        node.accept(jsonWriter);
+        jsonWriter.id = grandparent;
+    }
+
+    /**
+     * Writes the line of each node as indented text, then its children one level deeper.
+     */
+    private class TextWriter implements SyntaxTreeVisitor<Void, IOException> {
+
+        /** The tree level of the node being written. */
+        private int level;
+
+        /**
+         * Writes the indentation of the node being written and a line of text.
+         * @param text The line, without its newline.
+         * @return The output, so that the rest of the line can be appended.
+         * @throws IOException If the output can not be written.
+         */
+        private Appendable line(String text) throws IOException {
+            return out.append(indent(level)).append(text);
+        }
+
+        /**
+         * Writes a node as its indentation alone, as is done for a subprogram node.
+         * @param node The node.
+         * @return null.
+         * @throws IOException If the output can not be written.
+         */
+        @Override
+        public Void visitNode(SyntaxTreeNode node) throws IOException {
+            out.append(indent(level));
+            return null;
+        }
+
+        @Override
+        public Void visit(ProgramNode node) throws IOException {
+            line("Program: ").append(node.getName()).append('\n');
+            text(node.getDeclarations(), level + 1);
+            text(node.getSubProgramDeclarations(), level + 1);
+            text(node.getCompoundStatement(), level + 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(DeclarationsNode node) throws IOException {
+            line("Declarations\n");
+            for (VariableNode variable : node.getVariables()) {
+                text(variable, level + 1);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(SubProgramDeclarationsNode node) throws IOException {
+            line("SubProgramDeclarations\n");
+            for (SubProgramNode subProgram : node.getProcs()) {
+                text(subProgram, level + 1);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(CompoundStatementNode node) throws IOException {
+            line("Compound Statement\n");
+            for (StatementNode statement : node.getStatements()) {
+                text(statement, level + 1);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(AssignmentStatementNode node) throws IOException {
+            line("Assignment\n");
+            text(node.getLvalue(), level + 1);
+            text(node.getExpression(), level + 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(IfStatementNode node) throws IOException {
+            line("If:\n");
+            text(node.getTest(), level + 1);
+            text(node.getThenStatement(), level + 1);
+            text(node.getElseStatement(), level + 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(WhileStatementNode node) throws IOException {
+            line("While:\n");
+            text(node.getTest(), level + 1);
+            text(node.getDoStatement(), level + 1);
+            return null;
+        }
+
+        /**
+         * Writes nothing for a procedure statement.
+         * @param node The procedure statement node.
+         * @return null.
+         */
+        @Override
+        public Void visit(ProcedureStatementNode node) {
+            return null;
+        }
+
+        @Override
+        public Void visit(OperationNode node) throws IOException {
+            line("Operation: ").append(String.valueOf(node.getOperation())).append('\n');
+            text(node.getLeft(), level + 1);
+            text(node.getRight(), level + 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(UnaryOperationNode node) throws IOException {
+            line("Unary Operation: ").append(String.valueOf(node.getOperation())).append('\n');
+            text(node.getOperand(), level + 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(ValueNode node) throws IOException {
+            line("Value: ").append(node.getAttribute()).append(", Type: ").append(String.valueOf(node.getType())).append('\n');
+            return null;
+        }
+
+        @Override
+        public Void visit(VariableNode node) throws IOException {
+            line("Name: ").append(node.getName()).append(", Type: ").append(String.valueOf(node.getType())).append('\n');
+            return null;
+        }
+
+        @Override
+        public Void visit(ArrayNode node) throws IOException {
+            line("Array: ").append(node.getName()).append(", Type: ").append(String.valueOf(node.getType())).append('\n');
+            text(node.getExpressionNode(), level + 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(FunctionNode node) throws IOException {
+            visit((VariableNode) node);
+            line("Arguments: \n");
+            for (ExpressionNode argument : node.getArgs()) {
+                text(argument, level + 1);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Writes the rest of the JSON object of each node, after its id, parent and the
+     * opening quote of its kind, then the objects of its children.
+     */
+    private class JsonWriter implements SyntaxTreeVisitor<Void, IOException> {
+
+        /** The id of the node being written. */
+        private int id;
+
+        /**
+         * Writes the kind of a node with no attributes, by its class name.
+         * @param node The node.
+         * @return null.
+         * @throws IOException If the output can not be written.
+         */
+        @Override
+        public Void visitNode(SyntaxTreeNode node) throws IOException {
+            out.append(node.getClass().getSimpleName()).append("\"}\n");
+            return null;
+        }
+
+        @Override
+        public Void visit(ProgramNode node) throws IOException {
+            out.append("Program\"");
+            attribute("name", node.getName());
+            out.append("}\n");
+            json(node.getDeclarations(), id);
+            json(node.getSubProgramDeclarations(), id);
+            json(node.getCompoundStatement(), id);
+            return null;
+        }
+
+        @Override
+        public Void visit(DeclarationsNode node) throws IOException {
+            out.append("Declarations\"}\n");
+            for (VariableNode variable : node.getVariables()) {
+                json(variable, id);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(SubProgramDeclarationsNode node) throws IOException {
+            out.append("SubProgramDeclarations\"}\n");
+            for (SubProgramNode subProgram : node.getProcs()) {
+                json(subProgram, id);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(SubProgramNode node) throws IOException {
+            out.append("SubProgram\"");
+            attribute("name", node.getName());
+            out.append("}\n");
+            return null;
+        }
+
+        @Override
+        public Void visit(CompoundStatementNode node) throws IOException {
+            out.append("CompoundStatement\"}\n");
+            for (StatementNode statement : node.getStatements()) {
+                json(statement, id);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(AssignmentStatementNode node) throws IOException {
+            out.append("Assignment\"}\n");
+            json(node.getLvalue(), id);
+            json(node.getExpression(), id);
+            return null;
+        }
+
+        @Override
+        public Void visit(IfStatementNode node) throws IOException {
+            out.append("If\"}\n");
+            json(node.getTest(), id);
+            json(node.getThenStatement(), id);
+            json(node.getElseStatement(), id);
+            return null;
+        }
+
+        @Override
+        public Void visit(WhileStatementNode node) throws IOException {
+            out.append("While\"}\n");
+            json(node.getTest(), id);
+            json(node.getDoStatement(), id);
+            return null;
+        }
+
+        @Override
+        public Void visit(ProcedureStatementNode node) throws IOException {
+            out.append("ProcedureStatement\"}\n");
+            return null;
+        }
+
+        @Override
+        public Void visit(OperationNode node) throws IOException {
+            out.append("Operation\"");
+            attribute("operation", String.valueOf(node.getOperation()));
+            attribute("type", String.valueOf(node.getType()));
+            out.append("}\n");
+            json(node.getLeft(), id);
+            json(node.getRight(), id);
+            return null;
+        }
+
+        @Override
+        public Void visit(UnaryOperationNode node) throws IOException {
+            out.append("UnaryOperation\"");
+            attribute("operation", String.valueOf(node.getOperation()));
+            attribute("type", String.valueOf(node.getType()));
+            out.append("}\n");
+            json(node.getOperand(), id);
+            return null;
+        }
+
+        @Override
+        public Void visit(ValueNode node) throws IOException {
+            out.append("Value\"");
+            attribute("value", node.getAttribute());
+            attribute("type", String.valueOf(node.getType()));
+            out.append("}\n");
+            return null;
+        }
+
+        @Override
+        public Void visit(VariableNode node) throws IOException {
+            out.append("Variable\"");
+            attribute("name", node.getName());
+            attribute("type", String.valueOf(node.getType()));
+            out.append("}\n");
+            return null;
+        }
+
+        @Override
+        public Void visit(ArrayNode node) throws IOException {
+            out.append("Array\"");
+            attribute("name", node.getName());
+            attribute("type", String.valueOf(node.getType()));
+            out.append("}\n");
+            json(node.getExpressionNode(), id);
+            return null;
+        }
+
+        @Override
+        public Void visit(FunctionNode node) throws IOException {
+            out.append("Function\"");
+            attribute("name", node.getName());
+            attribute("type", String.valueOf(node.getType()));
+            out.append("}\n");
+            for (ExpressionNode argument : node.getArgs()) {
+                json(argument, id);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Writes a JSON string attribute of the current node.
+     * @param name The name of the attribute.
+     * @param value The value of the attribute.
+     * @throws IOException If the output can not be written.
+     */
+    private void attribute(String name, String value) throws IOException {
+        if (value == null) {
+            out.append(",\"").append(name).append("\":null");
+            return;
+        }
+        out.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < ' ') {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -7,6 +7,8 @@ import scanner.TokenType;
 import symboltable.SymbolTable;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * This class contains JUnit testing for the high-level functions of
@@ -23,7 +25,7 @@ public class SyntaxTreeTest {
      * call to program().
      */
     @Test
-    public void programTest() {
+    public void programTest() throws IOException {
         File input = new File("src/pascal/money.pas");
         Parser testParser = new Parser(input);
         ProgramNode testNode = testParser.program();
@@ -188,4 +190,68 @@ public class SyntaxTreeTest {
         System.out.println("Success.");
         */
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the JSON lines format of the syntax tree printer.
+     *
+     * @result The test fails if a node is written with the wrong id, parent or attributes.
+     */
+    @Test
+    public void jsonPrinterTest() throws IOException {
+        Parser testParser = new Parser("begin foo := 3 end");
+        testParser.getSymbolTable().addVariable("foo", TokenType.INTEGER);
+        CompoundStatementNode testNode = testParser.compound_statement();
+        StringBuilder actual = new StringBuilder();
+        new SyntaxTreePrinter(actual, SyntaxTreePrinter.Format.JSON).print(testNode);
+        String expected = "{\"id\":0,\"parent\":-1,\"kind\":\"CompoundStatement\"}\n"
+                + "{\"id\":1,\"parent\":0,\"kind\":\"Assignment\"}\n"
+                + "{\"id\":2,\"parent\":1,\"kind\":\"Variable\",\"name\":\"foo\",\"type\":\"INTEGER\"}\n"
+                + "{\"id\":3,\"parent\":1,\"kind\":\"Value\",\"value\":\"3\",\"type\":\"INTEGER\"}\n";
+        Assertions.assertEquals(expected, actual.toString());
+        System.out.println("Success.");
+    }
+
+    /**
+     * Tests that a program parsed into a flat tree holds its nodes in the arrays,
+     * and reads back through its program node as the same tree the parser builds
+     * from node objects.
+     *
+     * @result The test fails if the flat tree differs from the parsed one.
+     */
+    @Test
+    public void flatTreeTest() {
+        System.out.println("Testing flat syntax tree...");
+        String source = "program foo;\nvar a, b: integer;\nvar c: array[0:3] of real;\n"
+                + "begin\n  a := -3;\n  c[a] := 2.5 * (b + 1);\n"
+                + "  while not (a > 10) do\n    if a < b then a := a + 1 else b := b - 1\nend\n.\n";
+        ProgramNode program = new Parser(source).parse().getProgram();
+        Parser flatParser = new Parser(source);
+        ParseResult parsed = flatParser.parseFlat();
+        Assertions.assertTrue(parsed.isSuccess());
+
+        FlatTree tree = parsed.getFlatTree();
+        int root = tree.getRoot();
+        Assertions.assertEquals(FlatTree.Kind.PROGRAM, tree.kind(root));
+        Assertions.assertEquals("foo", tree.name(root));
+        int statements = tree.child(root, 2);
+        Assertions.assertEquals(FlatTree.Kind.COMPOUND_STATEMENT, tree.kind(statements));
+        Assertions.assertEquals(FlatTree.Kind.WHILE, tree.kind(tree.child(statements, 2)));
+        Assertions.assertEquals(FlatTree.NO_NODE, tree.child(statements, 3));
+        Assertions.assertEquals(TokenType.NOT, tree.operator(tree.child(tree.child(statements, 2), 0)));
+        // Names are the ids of the parser, and the literals 3, 2.5, 1 and 10 are each stored once.
+        int assigned = tree.child(tree.child(statements, 0), 0);
+        Assertions.assertEquals(flatParser.getSymbolTable().getNameTable().find("a"), tree.symbol(assigned));
+        Assertions.assertEquals(4, tree.literalCount());
+
+        ProgramNode facade = parsed.getProgram();
+        Assertions.assertEquals(program.indentedToString(0), facade.indentedToString(0));
+        List<StatementNode> flatStatements = facade.getCompoundStatement().getStatements();
+        StatementNode expected = program.getCompoundStatement().getStatements().get(1);
+        Assertions.assertEquals(3, flatStatements.size());
+        Assertions.assertEquals(expected.getOffset(), flatStatements.get(1).getOffset());
+        Assertions.assertEquals(expected.getLength(), flatStatements.get(1).getLength());
+        // Each statement is rebuilt when it is read, rather than kept.
+        Assertions.assertNotSame(flatStatements.get(1), flatStatements.get(1));
+        System.out.println("Success!");
+    }
+}
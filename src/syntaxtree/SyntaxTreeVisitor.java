@@ -0,0 +1,201 @@
+package syntaxtree;
+
+/**
+ * A pass over the syntax tree, with one method for each kind of node.
+ * <p>
+ * A node is visited by calling {@link SyntaxTreeNode#accept(SyntaxTreeVisitor)},
+ * which calls the method for its own class, so a pass needs no chain of
+ * instanceof tests. Each method by default visits the node as its superclass:
+ * an array or function node as a variable node, any other expression through
+ * {@link #visitExpression(ExpressionNode)}, any statement through
+ * {@link #visitStatement(StatementNode)} and every node at last through
+ * {@link #visitNode(SyntaxTreeNode)}, which returns null. A pass therefore only
+ * overrides the methods of the nodes it handles.
+ * </p>
+ *
+ * @param <R> The type of the result of visiting a node.
+ * @param <E> The checked exception a visit may throw, or RuntimeException if none.
+ * @author William Mork
+ */
+public interface SyntaxTreeVisitor<R, E extends Exception> {
+
+    /**
+     * Visits a node not handled by a more specific method.
+     * @param node The node.
+     * @return The result of the visit, null by default.
+     * @throws E If the pass fails.
+     */
+    default R visitNode(SyntaxTreeNode node) throws E {
+        return null;
+    }
+
+    /**
+     * Visits a statement not handled by a more specific method.
+     * @param node The statement.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visitStatement(StatementNode node) throws E {
+        return visitNode(node);
+    }
+
+    /**
+     * Visits an expression not handled by a more specific method.
+     * @param node The expression.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visitExpression(ExpressionNode node) throws E {
+        return visitNode(node);
+    }
+
+    /**
+     * Visits a program node.
+     * @param node The program node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(ProgramNode node) throws E {
+        return visitNode(node);
+    }
+
+    /**
+     * Visits a declarations node.
+     * @param node The declarations node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(DeclarationsNode node) throws E {
+        return visitNode(node);
+    }
+
+    /**
+     * Visits a subprogram declarations node.
+     * @param node The subprogram declarations node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(SubProgramDeclarationsNode node) throws E {
+        return visitNode(node);
+    }
+
+    /**
+     * Visits a subprogram node.
+     * @param node The subprogram node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(SubProgramNode node) throws E {
+        return visitNode(node);
+    }
+
+    /**
+     * Visits a compound statement node.
+     * @param node The compound statement node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(CompoundStatementNode node) throws E {
+        return visitStatement(node);
+    }
+
+    /**
+     * Visits an assignment statement node.
+     * @param node The assignment statement node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(AssignmentStatementNode node) throws E {
+        return visitStatement(node);
+    }
+
+    /**
+     * Visits an if statement node.
+     * @param node The if statement node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(IfStatementNode node) throws E {
+        return visitStatement(node);
+    }
+
+    /**
+     * Visits a while statement node.
+     * @param node The while statement node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(WhileStatementNode node) throws E {
+        return visitStatement(node);
+    }
+
+    /**
+     * Visits a procedure statement node.
+     * @param node The procedure statement node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(ProcedureStatementNode node) throws E {
+        return visitStatement(node);
+    }
+
+    /**
+     * Visits an operation node.
+     * @param node The operation node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(OperationNode node) throws E {
+        return visitExpression(node);
+    }
+
+    /**
+     * Visits a unary operation node.
+     * @param node The unary operation node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(UnaryOperationNode node) throws E {
+        return visitExpression(node);
+    }
+
+    /**
+     * Visits a value node.
+     * @param node The value node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(ValueNode node) throws E {
+        return visitExpression(node);
+    }
+
+    /**
+     * Visits a variable node, and by default an array or function node.
+     * @param node The variable node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(VariableNode node) throws E {
+        return visitExpression(node);
+    }
+
+    /**
+     * Visits an array node.
+     * @param node The array node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(ArrayNode node) throws E {
+        return visit((VariableNode) node);
+    }
+
+    /**
+     * Visits a function node.
+     * @param node The function node.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    default R visit(FunctionNode node) throws E {
+        return visit((VariableNode) node);
+    }
+}
@@ -0,0 +1,66 @@
+package syntaxtree;
+
+import scanner.TokenType;
+
+/**
+ * Syntax tree node which represents a unary operation within an expression,
+ * either a negation (MINUS) or a logical not (NOT).
+ *
+ * @author William Mork
+ */
+public class UnaryOperationNode extends ExpressionNode {
+
+    /** The operand of the operation. */
+    private ExpressionNode operand;
+
+    /** The type of operation being handled. */
+    private TokenType operation;
+
+    /**
+     * Creates a unary operation node.
+     * @param operation The token representing this node's operation.
+     * @param operand The operand of the operation.
+     */
+    public UnaryOperationNode(TokenType operation, ExpressionNode operand) {
+        this.operation = operation;
+        this.operand = operand;
+    }
+
+    /**
+     * Returns the child operand expression node.
+     * @return The operand expression node.
+     */
+    public ExpressionNode getOperand() {
+        return operand;
+    }
+
+    /**
+     * Returns the operation type.
+     * @return The operation token type.
+     */
+    public TokenType getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the operation token as a String.
+     * @return The String version of the operation token.
+     */
+    @Override
+    public String toString() {
+        return operation.toString();
+    }
+
+    /**
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
+     */
+    @Override
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
+    }
+}
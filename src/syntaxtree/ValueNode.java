@@ -1,16 +1,31 @@
 package syntaxtree;
 
+import scanner.TokenType;
+
 /**
  * Represents a value or number in an expression.
+ * <p>
+ * A value node created from a literal holds the value parsed by the scanner
+ * along with the lexeme, so that later phases use the value without re-parsing it.
+ * </p>
  *
  * @author William Mork
  * @author Erik Steinmetz
  */
 public class ValueNode extends ExpressionNode {
-    
+
     /** The attribute associated with this value node. */
     String attribute;
-    
+
+    /** The value of an integer value node. */
+    private int intValue;
+
+    /** The value of this value node as a real. */
+    private double realValue;
+
+    /** True if this value node holds a parsed value. */
+    private boolean known;
+
     /**
      * Creates a value node. with the given attribute.
      * @param attr The attribute for this value node.
@@ -18,15 +33,72 @@ public class ValueNode extends ExpressionNode {
     public ValueNode(String attr) {
         this.attribute = attr;
     }
-    
-    /** 
+
+    /**
+     * Creates an INTEGER value node.
+     * @param attr The lexeme of the value.
+     * @param value The value.
+     */
+    public ValueNode(String attr, int value) {
+        super(TokenType.INTEGER);
+        this.attribute = attr;
+        this.intValue = value;
+        this.realValue = value;
+        this.known = true;
+    }
+
+    /**
+     * Creates a REAL value node.
+     * @param attr The lexeme of the value.
+     * @param value The value.
+     */
+    public ValueNode(String attr, double value) {
+        super(TokenType.REAL);
+        this.attribute = attr;
+        this.realValue = value;
+        this.known = true;
+    }
+
+    /**
      * Returns the attribute of this value node.
      * @return The attribute of this value node.
      */
     public String getAttribute() {
         return(this.attribute);
     }
-    
+
+    /**
+     * Returns whether this value node holds a parsed value.
+     * @return True if the value is known, false if only the attribute is.
+     */
+    public boolean isKnown() {
+        return known;
+    }
+
+    /**
+     * Returns whether this value node holds a known INTEGER value.
+     * @return True for a known integer value.
+     */
+    public boolean isInteger() {
+        return known && tokenType == TokenType.INTEGER;
+    }
+
+    /**
+     * Returns the value of an INTEGER value node.
+     * @return The integer value.
+     */
+    public int getIntValue() {
+        return intValue;
+    }
+
+    /**
+     * Returns the value of this value node as a real.
+     * @return The real value.
+     */
+    public double getRealValue() {
+        return realValue;
+    }
+
     /**
      * Returns the attribute as the description of this value node.
      * @return The attribute String of this value node.
@@ -35,16 +107,17 @@ public class ValueNode extends ExpressionNode {
     public String toString() {
         return(attribute);
     }
-    
+
     /**
-     * Creates a String representation of this value node.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Value: " + this.attribute + ", Type: " + this.tokenType + "\n";
-        return answer;
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
 }
@@ -1,6 +1,8 @@
 package syntaxtree;
 
+import scanner.NameTable;
 import scanner.TokenType;
+import symboltable.Symbol;
 
 /**
  * Represents a variable in the syntax tree.
@@ -12,7 +14,13 @@ public class VariableNode extends ExpressionNode {
     
     /** The name of the variable associated with this variable node. */
     public String name;
-    
+
+    /** The id of the name in the name table of the parser, or NameTable.NO_ID. */
+    private int nameId = NameTable.NO_ID;
+
+    /** The symbol the name is bound to by name resolution, or null. */
+    private Symbol symbol;
+
     /**
      * Creates a value node with the given name.
      * @param name The name of this variable node.
@@ -39,6 +47,38 @@ public class VariableNode extends ExpressionNode {
         return(this.name);
     }
 
+    /**
+     * Returns the id of the name of this variable node, which keys its symbol in the
+     * symbol table of the parser that built it.
+     * @return The id of the name, or NameTable.NO_ID if the node was not built by a parser.
+     */
+    public int getNameId() {
+        return nameId;
+    }
+
+    /**
+     * Sets the id of the name of this variable node.
+     * @param nameId The id of the name in the name table of the parser.
+     */
+    public void setNameId(int nameId) {
+        this.nameId = nameId;
+    }
+
+    /**
+     * Returns the symbol this variable node refers to, as bound by name resolution.
+     * @return The symbol, or null if the node has not been resolved or its name is not declared.
+     */
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Binds this variable node to the symbol it refers to.
+     * @param symbol The symbol of the name in the scope of the node.
+     */
+    public void setSymbol(Symbol symbol) {
+        this.symbol = symbol;
+    }
 
     /**
      * Returns the name of the variable as the description of this node.
@@ -48,16 +88,17 @@ public class VariableNode extends ExpressionNode {
     public String toString() {
         return(name);
     }
-    
+
     /**
-     * Creates a String representation of this variable node.
-     * @param level The tree level at which this node resides.
-     * @return A String representing this node.
+     * Visits this node with a pass over the syntax tree.
+     * @param visitor The pass.
+     * @param <R> The type of the result of the visit.
+     * @param <E> The exception the pass may throw.
+     * @return The result of the visit.
+     * @throws E If the pass fails.
      */
     @Override
-    public String indentedToString(int level) {
-        String answer = this.indentation(level);
-        answer += "Name: " + this.name + ", Type: " + this.tokenType + "\n";
-        return answer;
+    public <R, E extends Exception> R accept(SyntaxTreeVisitor<R, E> visitor) throws E {
+        return visitor.visit(this);
     }
 }